@@ -0,0 +1,84 @@
+package com.statify.backend.anomaly;
+
+/**
+ * Count, mean and M2 of a series of amount magnitudes (Welford's online algorithm), plus
+ * an approximate running median: a multiplicative frugal estimate that moves a fixed
+ * fraction towards each new value, so it settles on the median in log space with O(1)
+ * state. Not thread-safe.
+ */
+public final class AmountStats {
+
+    private static final double MEDIAN_STEP = 0.05;
+
+    private long n;
+    private double mean;
+    private double m2;
+    private double median;
+
+    public AmountStats(long n, double mean, double m2, double median) {
+        this.n = n;
+        this.mean = mean;
+        this.m2 = m2;
+        this.median = median;
+    }
+
+    /** Empty series whose median estimate continues from {@code median} (0 when there is none). */
+    public static AmountStats continuing(double median) {
+        return new AmountStats(0, 0, 0, median);
+    }
+
+    public void add(double x) {
+        n++;
+        double delta = x - mean;
+        mean += delta / n;
+        m2 += delta * (x - mean);
+        if (median <= 0)
+            median = x;
+        else if (x > median)
+            median *= 1 + MEDIAN_STEP;
+        else if (x < median)
+            median /= 1 + MEDIAN_STEP;
+    }
+
+    /** Folds another series into this one (Chan et al.); the median estimate is taken from {@code other}. */
+    public void merge(AmountStats other) {
+        if (other.n == 0)
+            return;
+        long total = n + other.n;
+        double delta = other.mean - mean;
+        mean += delta * other.n / total;
+        m2 += other.m2 + delta * delta * n * other.n / total;
+        n = total;
+        median = other.median;
+    }
+
+    public double stddev() {
+        return n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+    }
+
+    /** Standard scores above the mean; 0 while the series has no spread. */
+    public double zScore(double x) {
+        double sd = stddev();
+        return sd > 0 ? (x - mean) / sd : 0;
+    }
+
+    public double ratioToMedian(double x) {
+        return median > 0 ? x / median : 0;
+    }
+
+    public long n() {
+        return n;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double m2() {
+        return m2;
+    }
+
+    public double median() {
+        return median;
+    }
+}
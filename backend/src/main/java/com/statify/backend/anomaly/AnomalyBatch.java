@@ -0,0 +1,68 @@
+package com.statify.backend.anomaly;
+
+import com.statify.backend.entity.Transaction;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One batch as the rules see it: the rows plus whatever {@link BatchState} the enabled
+ * rules declared, filled in by {@link AnomalyRuleEngine} before the first rule runs.
+ * Asking for state nobody declared is a programming error.
+ */
+public final class AnomalyBatch {
+
+    private final List<Transaction> rows;
+    private final String accountKey;
+
+    /** DUPLICATE_GROUPS: per row, the shared counter of its group. */
+    int[][] groups;
+
+    /** AMOUNT_HISTORY: per row, its series (either may be null) and the stored statistics. */
+    StatKey[] merchantKeys;
+    StatKey[] categoryKeys;
+    Map<StatKey, AmountStats> history;
+
+    AnomalyBatch(List<Transaction> rows, String accountKey) {
+        this.rows = rows;
+        this.accountKey = accountKey;
+    }
+
+    public Transaction row(int row) {
+        return rows.get(row);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public String accountKey() {
+        return accountKey;
+    }
+
+    /** Rows in the batch sharing this row's date, amount and description, itself included. */
+    public int duplicateGroupSize(int row) {
+        return require(groups, BatchState.DUPLICATE_GROUPS)[row][0];
+    }
+
+    /** The row's merchant series, or null when it has no merchant key. */
+    public StatKey merchantKey(int row) {
+        return require(merchantKeys, BatchState.AMOUNT_HISTORY)[row];
+    }
+
+    /** The row's category series, or null when it is uncategorized. */
+    public StatKey categoryKey(int row) {
+        return require(categoryKeys, BatchState.AMOUNT_HISTORY)[row];
+    }
+
+    /** Statistics of the series before this batch; null for a series with no history or a null key. */
+    public AmountStats history(StatKey key) {
+        return key == null ? null : require(history, BatchState.AMOUNT_HISTORY).get(key);
+    }
+
+    private static <T> T require(T state, BatchState kind) {
+        if (state == null)
+            throw new IllegalStateException(kind + " was not declared by any enabled rule");
+        return state;
+    }
+}
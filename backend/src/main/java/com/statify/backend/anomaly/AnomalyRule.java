@@ -0,0 +1,36 @@
+package com.statify.backend.anomaly;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One anomaly check, picked up as a bean by {@link AnomalyRuleEngine}. A rule looks at a
+ * single row at a time; anything it needs across rows it declares in {@link #requires()},
+ * so adding a rule never adds a pass over the batch.
+ */
+public interface AnomalyRule {
+
+    /** Stored as the anomaly's rule_name and keys the rule's settings; at most 50 chars. */
+    String name();
+
+    /** LOW, MEDIUM or HIGH, unless an account overrides it. */
+    String defaultSeverity();
+
+    /** Every threshold the rule reads, with its default; accounts may override any of them. */
+    default Map<String, Double> defaultParams() {
+        return Map.of();
+    }
+
+    default Set<BatchState> requires() {
+        return Set.of();
+    }
+
+    /** Called once per batch with the account's thresholds; the returned check runs per row. */
+    Check bind(RuleSettings settings);
+
+    @FunctionalInterface
+    interface Check {
+        /** Detail text when {@code row} is anomalous, else null. */
+        String detail(AnomalyBatch batch, int row);
+    }
+}
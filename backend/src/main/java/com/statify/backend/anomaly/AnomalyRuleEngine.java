@@ -0,0 +1,166 @@
+package com.statify.backend.anomaly;
+
+import com.statify.backend.entity.AnomalyRuleSetting;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.fingerprint.DuplicateKey;
+import com.statify.backend.repository.AmountStatsRepository;
+import com.statify.backend.repository.AnomalyRuleSettingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs every enabled {@link AnomalyRule} over a batch in one fused pass. A pre-pass builds
+ * the {@link BatchState} the enabled rules declared, once however many rules share it;
+ * the evaluation pass then runs each rule's check on each row and, when amount history
+ * was loaded, folds the row into the batch's aggregates, which are merged into the
+ * account's statistics at the end. A series therefore learns only from batches some
+ * enabled rule read it for. Two passes, whatever the number of rules.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnomalyRuleEngine {
+
+    /** One flagged row, not yet an entity. */
+    public record Finding(Transaction txn, String rule, String severity, String detail) {
+    }
+
+    private final List<AnomalyRule> rules;
+    private final AnomalyRuleSettingRepository settingRepository;
+    private final AmountStatsRepository amountStatsRepository;
+
+    public List<AnomalyRule> rules() {
+        return rules;
+    }
+
+    public Optional<AnomalyRule> rule(String name) {
+        return rules.stream().filter(r -> r.name().equals(name)).findFirst();
+    }
+
+    /** Every rule's effective settings for the account, in evaluation order. */
+    public Map<AnomalyRule, RuleSettings> settingsFor(String accountKey) {
+        Map<String, AnomalyRuleSetting> overrides = settingRepository.findByAccountKey(accountKey).stream()
+                .collect(Collectors.toMap(AnomalyRuleSetting::getRuleName, Function.identity()));
+        Map<AnomalyRule, RuleSettings> settings = new LinkedHashMap<>();
+        for (AnomalyRule rule : rules)
+            settings.put(rule, effective(rule, overrides.get(rule.name())));
+        return settings;
+    }
+
+    /** The rule's defaults with the override on top; parameters the rule no longer reads are dropped. */
+    public static RuleSettings effective(AnomalyRule rule, AnomalyRuleSetting override) {
+        if (override == null)
+            return new RuleSettings(true, rule.defaultSeverity(), rule.defaultParams());
+        Map<String, Double> params = new HashMap<>(rule.defaultParams());
+        override.getParams().forEach((name, value) -> params.replace(name, value));
+        return new RuleSettings(override.isEnabled(),
+                override.getSeverity() != null ? override.getSeverity() : rule.defaultSeverity(),
+                Map.copyOf(params));
+    }
+
+    /**
+     * Findings for the account's batch, in row order. Rows whose ids are in
+     * {@code alreadyImported} are checked but not folded into the statistics, which an
+     * earlier upload already counted them in.
+     */
+    public List<Finding> evaluate(String accountKey, List<Transaction> transactions, Set<UUID> alreadyImported) {
+        if (transactions.isEmpty())
+            return List.of();
+
+        List<AnomalyRule> enabled = new ArrayList<>();
+        List<String> severities = new ArrayList<>();
+        List<AnomalyRule.Check> checks = new ArrayList<>();
+        Set<BatchState> needed = EnumSet.noneOf(BatchState.class);
+        settingsFor(accountKey).forEach((rule, settings) -> {
+            if (!settings.enabled())
+                return;
+            enabled.add(rule);
+            severities.add(settings.severity());
+            checks.add(rule.bind(settings));
+            needed.addAll(rule.requires());
+        });
+
+        AnomalyBatch batch = prepare(transactions, accountKey, needed);
+        Map<StatKey, AmountStats> aggregates = batch.history != null ? new HashMap<>() : null;
+        List<Finding> findings = new ArrayList<>();
+        for (int row = 0; row < batch.size(); row++) {
+            for (int r = 0; r < checks.size(); r++) {
+                String detail = checks.get(r).detail(batch, row);
+                if (detail != null)
+                    findings.add(new Finding(batch.row(row), enabled.get(r).name(), severities.get(r), detail));
+            }
+            if (aggregates != null && !alreadyImported.contains(batch.row(row).getId())) {
+                double amount = batch.row(row).getAmount().abs().doubleValue();
+                fold(aggregates, batch, batch.merchantKeys[row], amount);
+                fold(aggregates, batch, batch.categoryKeys[row], amount);
+            }
+        }
+        if (aggregates != null)
+            amountStatsRepository.merge(accountKey, aggregates);
+        return findings;
+    }
+
+    /** The pre-pass: one walk over the rows fills every declared kind of state. */
+    private AnomalyBatch prepare(List<Transaction> transactions, String accountKey, Set<BatchState> needed) {
+        AnomalyBatch batch = new AnomalyBatch(transactions, accountKey);
+        int n = transactions.size();
+        boolean groups = needed.contains(BatchState.DUPLICATE_GROUPS);
+        boolean history = needed.contains(BatchState.AMOUNT_HISTORY);
+        if (!groups && !history)
+            return batch;
+
+        Map<DuplicateKey, int[]> counters = null;
+        Set<StatKey> keys = null;
+        if (groups) {
+            counters = new HashMap<>(n * 2);
+            batch.groups = new int[n][];
+        }
+        if (history) {
+            keys = new HashSet<>();
+            batch.merchantKeys = new StatKey[n];
+            batch.categoryKeys = new StatKey[n];
+        }
+        for (int row = 0; row < n; row++) {
+            Transaction txn = transactions.get(row);
+            if (groups) {
+                int[] counter = counters.computeIfAbsent(DuplicateKey.of(txn), k -> new int[1]);
+                counter[0]++;
+                batch.groups[row] = counter; // sizes are final once the walk ends
+            }
+            if (history) {
+                StatKey merchant = StatKey.merchant(txn);
+                StatKey category = StatKey.category(txn);
+                batch.merchantKeys[row] = merchant;
+                batch.categoryKeys[row] = category;
+                if (merchant != null)
+                    keys.add(merchant);
+                if (category != null)
+                    keys.add(category);
+            }
+        }
+        if (history)
+            batch.history = amountStatsRepository.find(accountKey, keys);
+        return batch;
+    }
+
+    private static void fold(Map<StatKey, AmountStats> aggregates, AnomalyBatch batch, StatKey key, double amount) {
+        if (key == null)
+            return;
+        aggregates.computeIfAbsent(key, k -> {
+            AmountStats known = batch.history(k);
+            return AmountStats.continuing(known != null ? known.median() : 0);
+        }).add(amount);
+    }
+}
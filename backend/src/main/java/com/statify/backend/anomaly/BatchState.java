@@ -0,0 +1,13 @@
+package com.statify.backend.anomaly;
+
+/**
+ * Derived state a rule can ask of a batch. The engine builds each kind at most once per
+ * batch, in one pre-pass shared by every rule that declared it, and skips kinds no
+ * enabled rule declared.
+ */
+public enum BatchState {
+    /** Size of each row's {@link com.statify.backend.fingerprint.DuplicateKey} group. */
+    DUPLICATE_GROUPS,
+    /** The account's running amount statistics for each row's merchant and category. */
+    AMOUNT_HISTORY
+}
@@ -0,0 +1,48 @@
+package com.statify.backend.anomaly;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * US-005: rows sharing a date, amount and description within one statement. Every member
+ * of a large enough group is flagged once, whatever the group's size.
+ */
+@Component
+@Order(20)
+public class DuplicateRule implements AnomalyRule {
+
+    @Override
+    public String name() {
+        return "Duplicate";
+    }
+
+    @Override
+    public String defaultSeverity() {
+        return "HIGH";
+    }
+
+    @Override
+    public Map<String, Double> defaultParams() {
+        return Map.of("minGroupSize", 2.0);
+    }
+
+    @Override
+    public Set<BatchState> requires() {
+        return Set.of(BatchState.DUPLICATE_GROUPS);
+    }
+
+    @Override
+    public Check bind(RuleSettings settings) {
+        int minGroupSize = Math.max(2, (int) settings.param("minGroupSize"));
+        return (batch, row) -> {
+            int size = batch.duplicateGroupSize(row);
+            if (size < minGroupSize)
+                return null;
+            return size == 2 ? "Same date, amount and description as another transaction in this statement"
+                    : "Same date, amount and description as " + (size - 1) + " other transactions in this statement";
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package com.statify.backend.classifier;
+
+import com.statify.backend.classifier.NaiveBayesModel.Prediction;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.repository.ClassifierModelRepository;
+import com.statify.backend.rules.RuleSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fallback categorizer for rows no rule matches. Learns from manual overrides and
+ * answers only when its posterior clears {@code statify.classifier.min-confidence} and
+ * it has seen enough examples. Each distinct match text teaches a category once, however
+ * many overridden rows carry it, whether they were overridden one by one or in bulk.
+ *
+ * <p>The counts live in the database (V12) and are updated in the overriding transaction;
+ * this instance takes the stored values once it commits. Overrides made on other
+ * instances arrive through {@link #refresh}, which re-reads only the counts changed since
+ * the last one, so its cost follows the override rate, not the override history.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenClassifier {
+
+    private final ClassifierModelRepository modelRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NaiveBayesModel model = new NaiveBayesModel();
+
+    /** Database time of the last refresh; null until the first has loaded every count. */
+    private OffsetDateTime refreshedAt;
+
+    @Value("${statify.classifier.min-confidence:0.8}")
+    private double minConfidence = 0.8;
+
+    /** No predictions until this many overrides have been learned. */
+    @Value("${statify.classifier.min-examples:20}")
+    private int minExamples = 20;
+
+    /** Counts written this long before a refresh are read again by the next, for writes that commit late. */
+    @Value("${statify.classifier.refresh-overlap:5m}")
+    private Duration refreshOverlap = Duration.ofMinutes(5);
+
+    /** Category for {@code txn} if the model is confident enough; never throws. */
+    public OptionalInt classify(Transaction txn) {
+        List<String> tokens = tokens(RuleSnapshot.matchText(txn));
+        Prediction prediction;
+        lock.readLock().lock();
+        try {
+            if (model.totalDocs() < minExamples)
+                return OptionalInt.empty();
+            prediction = model.predict(tokens);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return prediction != null && prediction.confidence() >= minConfidence
+                ? OptionalInt.of(prediction.categoryId())
+                : OptionalInt.empty();
+    }
+
+    /** Counts the overridden row towards its category; see {@link #adjust}. */
+    public void learn(Transaction txn, int categoryId) {
+        adjust(RuleSnapshot.matchText(txn), categoryId, 1);
+    }
+
+    /** Takes back an earlier override of the same row before it is overridden again. */
+    public void unlearn(Transaction txn, int categoryId) {
+        adjust(RuleSnapshot.matchText(txn), categoryId, -1);
+    }
+
+    /**
+     * Adds {@code rows} overridden rows with this match text to the category, or takes them
+     * back when negative, in the caller's transaction. The text's tokens are counted when
+     * its first row arrives and taken back when its last one leaves. The model here takes
+     * the new counts after commit; a rollback teaches nothing.
+     */
+    public void adjust(String matchText, int categoryId, int rows) {
+        List<String> tokens = tokens(matchText);
+        if (rows == 0 || tokens.isEmpty())
+            return;
+        int after = modelRepository.addOverrideRows(matchText, categoryId, rows);
+        boolean wasTaught = after - rows > 0;
+        if (wasTaught == after > 0)
+            return;
+        int delta = after > 0 ? 1 : -1;
+        Map<String, Integer> counts = modelRepository.addTokens(tokens, categoryId, delta);
+        int examples = modelRepository.addExamples(categoryId, delta);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                counts.forEach((token, count) -> model.setTokenCount(token, categoryId, count));
+                model.setExamples(categoryId, examples);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Loads every stored count on the first call (seeding the store from existing
+     * overrides if it is empty) and afterwards the counts changed since the previous call,
+     * less {@code refresh-overlap}. Counts are set, not added, so reading one twice is
+     * harmless. On a read error the current model is kept until the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${statify.classifier.refresh-interval:30s}",
+            fixedDelayString = "${statify.classifier.refresh-interval:30s}")
+    public synchronized void refresh() {
+        try {
+            if (refreshedAt == null)
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> seedIfEmpty());
+            OffsetDateTime now = modelRepository.now();
+            OffsetDateTime since = refreshedAt != null ? refreshedAt.minus(refreshOverlap) : null;
+            Map<Integer, Integer> categories = new HashMap<>();
+            List<Object[]> tokens = new ArrayList<>();
+            modelRepository.forEachCategory(since, rs -> {
+                categories.put(rs.getInt("category_id"), rs.getInt("examples"));
+            });
+            modelRepository.forEachToken(since, rs -> {
+                tokens.add(new Object[] { rs.getString("token"), rs.getInt("category_id"), rs.getInt("examples") });
+            });
+            lock.writeLock().lock();
+            try {
+                categories.forEach(model::setExamples);
+                for (Object[] t : tokens)
+                    model.setTokenCount((String) t[0], (Integer) t[1], (Integer) t[2]);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            refreshedAt = now;
+            log.debug("Classifier refreshed: {} categories, {} token counts changed", categories.size(), tokens.size());
+        } catch (DataAccessException e) {
+            log.warn("Classifier not refreshed, keeping the current model: {}", e.getMessage());
+        }
+    }
+
+    /** Overrides made before the classifier existed, each text once per category. */
+    private void seedIfEmpty() {
+        if (!modelRepository.lockIfEmpty())
+            return;
+        Map<List<Object>, Integer> rows = new HashMap<>();
+        Transaction row = new Transaction();
+        modelRepository.forEachOverride(rs -> {
+            row.setMerchantKey(rs.getString("merchant_key"));
+            row.setDescription(rs.getString("description"));
+            rows.merge(List.of(RuleSnapshot.matchText(row), rs.getInt("category_id")), rs.getInt("override_rows"),
+                    Integer::sum);
+        });
+        rows.forEach((key, count) -> adjust((String) key.get(0), (Integer) key.get(1), count));
+        log.info("Classifier seeded from {} stored override texts", rows.size());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // ── Tokens: the match text split on spaces ──
+    static List<String> tokens(String matchText) {
+        List<String> tokens = new ArrayList<>(4);
+        int start = 0;
+        for (int i = 0; i <= matchText.length(); i++) {
+            if (i == matchText.length() || matchText.charAt(i) == ' ') {
+                if (i - start >= 2)
+                    tokens.add(matchText.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,37 @@
+package com.statify.backend.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the replica and everything else
+ * to the primary. Must sit behind {@link LazyConnectionDataSourceProxy}: the read-only
+ * flag is bound after the transaction manager asks for a connection, so the physical
+ * connection has to be fetched on the first statement, not at transaction begin.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /** The routing datasource wrapped so connection acquisition is deferred. */
+    public static DataSource create(DataSource primary, DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaLagGuard.isPrimaryForced();
+        return replica ? Route.REPLICA : Route.PRIMARY;
+    }
+}
@@ -0,0 +1,13 @@
+package com.statify.backend.dto;
+
+import java.util.Map;
+
+/** A rule as one account runs it: effective settings, with the rule's defaults alongside. */
+public record AnomalyRuleView(
+        String rule,
+        boolean enabled,
+        String severity,
+        Map<String, Double> params,
+        String defaultSeverity,
+        Map<String, Double> defaultParams) {
+}
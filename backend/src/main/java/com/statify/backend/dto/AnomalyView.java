@@ -0,0 +1,52 @@
+package com.statify.backend.dto;
+
+import com.statify.backend.entity.Anomaly;
+import com.statify.backend.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Anomaly review row with the flagged transaction inlined, in the shape the review
+ * page reads ({@code anomaly.transaction.description}). Filled by one JPQL join.
+ */
+public record AnomalyView(
+        UUID id,
+        UUID uploadId,
+        String ruleName,
+        String severity,
+        String detail,
+        String status,
+        OffsetDateTime reviewedAt,
+        OffsetDateTime createdAt,
+        FlaggedTransaction transaction) {
+
+    public record FlaggedTransaction(
+            UUID id,
+            LocalDate txnDate,
+            String description,
+            BigDecimal amount,
+            String currency,
+            Integer categoryId) {
+    }
+
+    /** Flat constructor for the JPQL constructor expression, which cannot nest. */
+    public AnomalyView(UUID id, UUID uploadId, String ruleName, String severity, String detail,
+            String status, OffsetDateTime reviewedAt, OffsetDateTime createdAt,
+            UUID txnId, LocalDate txnDate, String description, BigDecimal amount, String currency,
+            Integer categoryId) {
+        this(id, uploadId, ruleName, severity, detail, status, reviewedAt, createdAt,
+                new FlaggedTransaction(txnId, txnDate, description, amount, currency, categoryId));
+    }
+
+    /** Maps a managed entity; initializes the lazy transaction, so call inside a transaction. */
+    public static AnomalyView from(Anomaly a) {
+        Transaction t = a.getTransaction();
+        return new AnomalyView(a.getId(), a.getUploadId(), a.getRuleName(), a.getSeverity(), a.getDetail(),
+                a.getStatus(), a.getReviewedAt(), a.getCreatedAt(),
+                new FlaggedTransaction(t.getId(), t.getTxnDate(), t.getDescription(), t.getAmount(),
+                        t.getCurrency(), t.getCategoryId()));
+    }
+}
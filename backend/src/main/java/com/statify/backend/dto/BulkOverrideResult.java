@@ -0,0 +1,5 @@
+package com.statify.backend.dto;
+
+/** {@code ruleId} is set when the request asked for a rule and one was created. */
+public record BulkOverrideResult(int updated, Integer ruleId) {
+}
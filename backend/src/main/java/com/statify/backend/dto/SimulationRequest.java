@@ -0,0 +1,14 @@
+package com.statify.backend.dto;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/v1/rules/simulate: rules overlaid on the current set. A rule with an
+ * {@code id} stands in for that existing rule, one without is evaluated as a new rule.
+ * {@code uploads} is how many of the most recent completed uploads to replay (default 5).
+ */
+public record SimulationRequest(List<ProposedRule> rules, Integer uploads) {
+
+    public record ProposedRule(Integer id, RuleRequest rule) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.statify.backend.dto;
+
+import com.statify.backend.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in the (txn_date, id) ordering of an upload's transactions.
+ * Opaque to clients: encoded as URL-safe base64 of "date|id".
+ */
+public record TransactionCursor(LocalDate txnDate, UUID id) {
+
+    public static TransactionCursor after(TransactionView last) {
+        return new TransactionCursor(last.txnDate(), last.id());
+    }
+
+    public String encode() {
+        String raw = txnDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new TransactionCursor(LocalDate.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.statify.backend.dto;
+
+import java.util.List;
+
+/** One keyset page; {@code nextCursor} is null on the last page. */
+public record TransactionPage(List<TransactionView> items, String nextCursor) {
+}
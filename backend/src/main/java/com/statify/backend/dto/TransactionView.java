@@ -0,0 +1,32 @@
+package com.statify.backend.dto;
+
+import com.statify.backend.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only transaction row for the listing endpoints. Filled by a JPQL constructor
+ * expression, so no entity is hydrated and the lazy Upload proxy is never touched.
+ */
+public record TransactionView(
+        UUID id,
+        UUID uploadId,
+        LocalDate txnDate,
+        String description,
+        BigDecimal amount,
+        String currency,
+        Integer categoryId,
+        Integer matchedRuleId,
+        boolean override,
+        OffsetDateTime createdAt) {
+
+    /** Maps a managed entity; reading the proxy's id does not initialize it. */
+    public static TransactionView from(Transaction t) {
+        return new TransactionView(t.getId(), t.getUpload().getId(), t.getTxnDate(), t.getDescription(),
+                t.getAmount(), t.getCurrency(), t.getCategoryId(), t.getMatchedRuleId(), t.isOverride(),
+                t.getCreatedAt());
+    }
+}
@@ -0,0 +1,50 @@
+package com.statify.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dashboard aggregates for one upload, computed during ingest and kept current
+ * incrementally (category overrides, anomaly review). Read by primary key.
+ */
+@Entity
+@Table(name = "upload_summaries")
+@Getter
+@Setter
+public class UploadSummary {
+    @Id
+    @Column(name = "upload_id")
+    private UUID uploadId;
+
+    @Column(name = "total_income", nullable = false)
+    private BigDecimal totalIncome = BigDecimal.ZERO;
+
+    @Column(name = "total_expense", nullable = false)
+    private BigDecimal totalExpense = BigDecimal.ZERO;
+
+    @Column(name = "txn_count", nullable = false)
+    private Integer txnCount = 0;
+
+    @Column(name = "anomaly_count", nullable = false)
+    private Integer anomalyCount = 0;
+
+    @Column(name = "open_anomaly_count", nullable = false)
+    private Integer openAnomalyCount = 0;
+
+    /** categoryId → absolute expense; drives the donut chart. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "by_category", nullable = false)
+    private Map<Integer, BigDecimal> byCategory = new HashMap<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt = OffsetDateTime.now();
+}
@@ -40,6 +40,66 @@ public class GlobalExceptionHandler {
                         "Please upload an Excel (.xlsx), PDF, or CSV file."));
     }
 
+    // ── 400: Malformed pagination cursor ───────────────────────────────
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Rejected request: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(error("INVALID_CURSOR",
+                        "The page cursor is not valid for this listing.",
+                        "Reload the first page and continue from the cursor it returns."));
+    }
+
+    // ── 400: Rule with no or malformed conditions ──────────────────────
+    @ExceptionHandler(InvalidRuleException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRule(InvalidRuleException ex) {
+        log.warn("Rule rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(error("INVALID_RULE",
+                        ex.getMessage(),
+                        "Give the rule a keyword or at least one condition, and check ranges and patterns."));
+    }
+
+    // ── 400: Bulk override without a usable target ─────────────────────
+    @ExceptionHandler(InvalidOverrideException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidOverride(InvalidOverrideException ex) {
+        log.warn("Override rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(error("INVALID_OVERRIDE",
+                        ex.getMessage(),
+                        "Pick a category and either list transactions or name one to match similar rows."));
+    }
+
+    // ── 400: Anomaly rule setting out of range ─────────────────────────
+    @ExceptionHandler(InvalidRuleSettingException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRuleSetting(InvalidRuleSettingException ex) {
+        log.warn("Rule setting rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(error("INVALID_RULE_SETTING",
+                        ex.getMessage(),
+                        "Use a severity of LOW, MEDIUM or HIGH and only the parameters the rule lists."));
+    }
+
+    // ── 409: Resume with a different file ──────────────────────────────
+    @ExceptionHandler(FileMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleFileMismatch(FileMismatchException ex) {
+        log.warn("Resume rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(error("FILE_MISMATCH",
+                        ex.getMessage(),
+                        "Resume with the exact file the upload was started with, or start a new upload."));
+    }
+
+    // ── 429: Too many rule simulations at once ─────────────────────────
+    @ExceptionHandler(SimulationBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleSimulationBusy(SimulationBusyException ex) {
+        log.warn("Simulation rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(error("SIMULATION_BUSY",
+                        "Other rule simulations are still running.",
+                        "Please try again in a few moments."));
+    }
+
     // ── 422: Scanned / image-based PDF ────────────────────────────────
     @ExceptionHandler(ScannedPdfException.class)
     public ResponseEntity<Map<String, Object>> handleScannedPdf(ScannedPdfException ex) {
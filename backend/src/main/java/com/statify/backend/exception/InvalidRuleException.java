@@ -0,0 +1,7 @@
+package com.statify.backend.exception;
+
+public class InvalidRuleException extends RuntimeException {
+    public InvalidRuleException(String message) {
+        super(message);
+    }
+}
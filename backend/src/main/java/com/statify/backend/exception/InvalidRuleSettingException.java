@@ -0,0 +1,7 @@
+package com.statify.backend.exception;
+
+public class InvalidRuleSettingException extends RuntimeException {
+    public InvalidRuleSettingException(String message) {
+        super(message);
+    }
+}
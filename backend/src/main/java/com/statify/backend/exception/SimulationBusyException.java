@@ -0,0 +1,7 @@
+package com.statify.backend.exception;
+
+public class SimulationBusyException extends RuntimeException {
+    public SimulationBusyException(int running) {
+        super(running + " rule simulations are already running");
+    }
+}
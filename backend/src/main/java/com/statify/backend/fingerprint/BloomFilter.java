@@ -0,0 +1,52 @@
+package com.statify.backend.fingerprint;
+
+/**
+ * Bloom filter over 64-bit fingerprints: a {@code long[]} bit set probed at {@code k}
+ * positions derived from the fingerprint itself (Kirsch–Mitzenmacher double hashing),
+ * since fingerprints are already well mixed. No false negatives for what was put here;
+ * about {@code fpp} false positives while at most {@code capacity} entries are held.
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashes;
+    private final int capacity;
+    private int size;
+
+    public BloomFilter(int capacity, double fpp) {
+        long m = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, (m + 63) >>> 6)];
+        this.bitCount = (long) bits.length << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    public synchronized void put(long fingerprint) {
+        long h2 = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(fingerprint + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+    }
+
+    public synchronized boolean mightContain(long fingerprint) {
+        long h2 = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(fingerprint + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /** Entries put so far; past {@link #capacity()} the false-positive rate climbs. */
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,48 @@
+package com.statify.backend.fingerprint;
+
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.parser.DescriptionNormalizer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * What makes two rows the same posting: same day, same amount (scale-insensitive) and the
+ * same description apart from printed dates and times. Reference and account numbers are
+ * part of the key: two transfers of one amount to different accounts, or two purchases
+ * with their own references, are separate postings, not a double one.
+ */
+public record DuplicateKey(LocalDate date, BigDecimal amount, String text) {
+
+    public static DuplicateKey of(Transaction txn) {
+        return new DuplicateKey(txn.getTxnDate(), txn.getAmount().stripTrailingZeros(),
+                DescriptionNormalizer.withoutDates(txn.getDescription()));
+    }
+
+    /**
+     * 64-bit hash of this key and its {@code occurrence} within one statement (0 for the
+     * first such row, 1 for the second, ...), so two identical purchases in a statement
+     * stay two distinct fingerprints. FNV-1a over the fields, then a murmur3 finalizer.
+     */
+    public long fingerprint(int occurrence) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, date.toEpochDay());
+        h = mix(h, amount.scale());
+        h = mix(h, amount.unscaledValue().hashCode());
+        h = mix(h, amount.unscaledValue().bitLength());
+        for (int i = 0; i < text.length(); i++)
+            h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        h = mix(h, occurrence);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static long mix(long h, long value) {
+        for (int shift = 0; shift < 64; shift += 16)
+            h = (h ^ ((value >>> shift) & 0xffff)) * 0x100000001b3L;
+        return h;
+    }
+}
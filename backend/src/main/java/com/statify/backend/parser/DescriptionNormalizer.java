@@ -0,0 +1,248 @@
+package com.statify.backend.parser;
+
+import java.util.Set;
+
+/**
+ * Strips the volatile parts of a bank description (reference numbers, dates, times,
+ * terminal ids, card masks) so that repeat purchases at one merchant share a key:
+ * {@code "KFC RAMA 9 REF 88231 12/03/26"} → {@code "KFC RAMA 9"}. A merchant fused with
+ * a number loses only the digits ({@code "SHOPEE12345678"} → {@code "SHOPEE"}), and when
+ * nothing but generic words would remain ({@code "TRANSFER TO"}, {@code "PROMPTPAY"})
+ * the account or phone numbers are kept, since there they name the payee.
+ *
+ * <p>Single pass over whitespace-separated chunks, no regex. Output is case-folded
+ * (upper case) with single spaces.
+ */
+public final class DescriptionNormalizer {
+
+    /** Labels whose following chunk is an identifier, e.g. {@code REF 88231}, {@code TID: 0042}. */
+    private static final Set<String> ID_LABELS = Set.of(
+            "REF", "REFNO", "TID", "TXN", "TRACE", "AUTH", "APPR", "INV", "NO", "SEQ", "TERM", "#");
+
+    /** Channel and verb words that say how money moved, not to whom. */
+    private static final Set<String> GENERIC_WORDS = Set.of(
+            "POS", "PAYMENT", "PAY", "BILL", "PURCHASE", "TRANSFER", "TRF", "TO", "FROM", "PROMPTPAY",
+            "ATM", "WITHDRAWAL", "DEPOSIT", "CASH", "CARD", "DEBIT", "CREDIT", "ONLINE", "MOBILE", "INTERNET",
+            "BANKING", "INTERBANK", "ORFT", "SMART", "DIRECT", "TOPUP", "TOP", "UP", "FEE", "RECEIVED", "SENT",
+            "โอนเงิน", "ชำระเงิน", "พร้อมเพย์", "ถอนเงิน", "ฝากเงิน", "ไปยัง", "จาก");
+
+    private static final Set<String> MONTHS = Set.of(
+            "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+
+    private DescriptionNormalizer() {
+    }
+
+    public static String normalize(String description) {
+        if (description == null)
+            return "";
+        StringBuilder key = new StringBuilder(description.length());
+        StringBuilder withIds = new StringBuilder(description.length());
+        boolean onlyGeneric = true;
+        String pendingLabel = null;
+
+        int i = 0;
+        int n = description.length();
+        while (i < n) {
+            while (i < n && Character.isWhitespace(description.charAt(i)))
+                i++;
+            int start = i;
+            while (i < n && !Character.isWhitespace(description.charAt(i)))
+                i++;
+            if (start == i)
+                break;
+
+            String chunk = trimPunctuation(description.substring(start, i)).toUpperCase();
+            if (chunk.isEmpty())
+                continue;
+
+            if (pendingLabel != null) {
+                String label = pendingLabel;
+                pendingLabel = null;
+                if (countDigits(chunk) > 0)
+                    continue; // "REF 88231": drop label and value
+                // "NO BRAND": the label was part of the name
+                append(key, label);
+                append(withIds, label);
+                onlyGeneric = false;
+            }
+            String label = labelOf(chunk);
+            if (label != null) {
+                if (label.length() == chunk.length())
+                    pendingLabel = chunk; // decided by the next chunk
+                continue; // "REF:88231" / "REF#88231" carries its own value
+            }
+
+            switch (classify(chunk)) {
+                case DROP -> {
+                }
+                case IDENTIFIER -> append(withIds, chunk);
+                case FUSED -> {
+                    String word = withoutDigits(chunk);
+                    if (word != null) {
+                        append(key, word);
+                        append(withIds, word);
+                        onlyGeneric &= GENERIC_WORDS.contains(word);
+                    }
+                }
+                case WORD -> {
+                    append(key, chunk);
+                    append(withIds, chunk);
+                    onlyGeneric &= GENERIC_WORDS.contains(chunk);
+                }
+            }
+        }
+        if (pendingLabel != null) {
+            append(key, pendingLabel);
+            append(withIds, pendingLabel);
+            onlyGeneric = false;
+        }
+
+        // Nothing recognisable left (e.g. a bare transfer reference): keep the folded original
+        if (key.isEmpty())
+            return collapse(description);
+        return onlyGeneric ? withIds.toString() : key.toString();
+    }
+
+    /**
+     * The description folded and collapsed with only its date, time and amount chunks
+     * removed; references, terminal ids and account numbers stay. Two postings whose
+     * descriptions differ only in when they were printed give the same text.
+     */
+    public static String withoutDates(String description) {
+        StringBuilder text = new StringBuilder(description.length());
+        for (String chunk : description.trim().toUpperCase().split("\\s+")) {
+            if (!chunk.isEmpty() && classify(trimPunctuation(chunk)) != Kind.DROP)
+                append(text, chunk);
+        }
+        return text.isEmpty() ? collapse(description) : text.toString();
+    }
+
+    /**
+     * Whether {@code key} names someone: at least one chunk that is not a generic channel
+     * word. {@code "PAYMENT"} and {@code "TRANSFER TO"} do not; {@code "SHOPEE PAYMENT"}
+     * and a payee account number do.
+     */
+    public static boolean namesMerchant(String key) {
+        for (String chunk : key.trim().split("\\s+")) {
+            if (!chunk.isEmpty() && !GENERIC_WORDS.contains(chunk.toUpperCase()))
+                return true;
+        }
+        return false;
+    }
+
+    private static void append(StringBuilder out, String chunk) {
+        if (!out.isEmpty())
+            out.append(' ');
+        out.append(chunk);
+    }
+
+    /** The label a chunk starts with, if the rest is empty or a {@code :#.=}-separated value. */
+    private static String labelOf(String chunk) {
+        int end = 0;
+        while (end < chunk.length() && (Character.isLetter(chunk.charAt(end)) || chunk.charAt(end) == '#'))
+            end++;
+        String head = chunk.substring(0, end);
+        if (!ID_LABELS.contains(head))
+            return null;
+        if (end == chunk.length())
+            return head;
+        char separator = chunk.charAt(end);
+        return separator == ':' || separator == '#' || separator == '.' || separator == '=' ? head : null;
+    }
+
+    enum Kind {
+        /** Part of the merchant: words, short numbers ({@code RAMA 9}), {@code 7-11}. */
+        WORD,
+        /** A word fused with 4+ digits ({@code KFC#1234}, {@code XXXX1234}); only the word part can stay. */
+        FUSED,
+        /** Bare numbers of 3+ digits and account-style groups ({@code 123-4-56789-0}); kept only as a payee. */
+        IDENTIFIER,
+        /** Dates, times and amounts. */
+        DROP
+    }
+
+    static Kind classify(String chunk) {
+        int digits = 0;
+        int separators = 0;
+        boolean dateSeparator = false;
+        boolean other = false;
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (Character.isDigit(c)) {
+                digits++;
+            } else if (c == '/' || c == ':' || c == '.' || c == '-' || c == ',') {
+                separators++;
+                dateSeparator |= c == '/' || c == ':';
+            } else {
+                other = true;
+            }
+        }
+        if (digits == 0)
+            return Kind.WORD;
+        if (dateSeparator)
+            return Kind.DROP; // 12/03/26, 10:32, 10:32AM
+        if (other)
+            return digits >= 4 ? Kind.FUSED : Kind.WORD;
+        return switch (separators) {
+            case 0 -> digits >= 3 ? Kind.IDENTIFIER : Kind.WORD;
+            case 1 -> Kind.WORD;
+            case 2 -> Kind.DROP; // 2026-03-12, 1,234.50
+            default -> Kind.IDENTIFIER;
+        };
+    }
+
+    /**
+     * The word left once the digits are taken out, or null when that is no merchant:
+     * a card mask ({@code XXXX}), an id label ({@code TID}) or a month ({@code 12MAR2026}).
+     */
+    private static String withoutDigits(String chunk) {
+        StringBuilder word = new StringBuilder(chunk.length());
+        for (int i = 0; i < chunk.length(); i++) {
+            if (!Character.isDigit(chunk.charAt(i)))
+                word.append(chunk.charAt(i));
+        }
+        int start = 0;
+        int end = word.length();
+        while (start < end && !isWordChar(word.charAt(start)))
+            start++;
+        while (end > start && !isWordChar(word.charAt(end - 1)))
+            end--;
+        String trimmed = word.substring(start, end);
+        if (trimmed.isEmpty() || trimmed.chars().allMatch(c -> c == 'X' || c == '*')
+                || ID_LABELS.contains(trimmed) || MONTHS.contains(trimmed))
+            return null;
+        return trimmed;
+    }
+
+    /** Letters, plus the combining vowel and tone marks Thai words can end with. */
+    private static boolean isWordChar(char c) {
+        return Character.isLetter(c) || Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    private static int countDigits(String chunk) {
+        int digits = 0;
+        for (int i = 0; i < chunk.length(); i++) {
+            if (Character.isDigit(chunk.charAt(i)))
+                digits++;
+        }
+        return digits;
+    }
+
+    private static String trimPunctuation(String chunk) {
+        int start = 0;
+        int end = chunk.length();
+        while (start < end && isEdgePunctuation(chunk.charAt(start)))
+            start++;
+        while (end > start && isEdgePunctuation(chunk.charAt(end - 1)))
+            end--;
+        return chunk.substring(start, end);
+    }
+
+    private static boolean isEdgePunctuation(char c) {
+        return c == ',' || c == ';' || c == '(' || c == ')' || c == '[' || c == ']' || c == '"' || c == '|';
+    }
+
+    private static String collapse(String description) {
+        return String.join(" ", description.trim().toUpperCase().split("\\s+"));
+    }
+}
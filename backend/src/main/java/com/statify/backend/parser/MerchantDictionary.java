@@ -0,0 +1,30 @@
+package com.statify.backend.parser;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps descriptions to canonical merchant keys. Keys are interned in a bounded
+ * dictionary so a statement with thousands of "KFC RAMA 9 ..." rows holds one key
+ * instance, and identity-equal keys make downstream memo lookups cheap.
+ */
+@Component
+public class MerchantDictionary {
+
+    private final Cache<String, String> keys;
+
+    public MerchantDictionary(@Value("${statify.ingest.merchant-dictionary-size:50000}") long maxSize) {
+        this.keys = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public String merchantKey(String description) {
+        String normalized = DescriptionNormalizer.normalize(description);
+        return keys.get(normalized, key -> key);
+    }
+
+    public long size() {
+        return keys.estimatedSize();
+    }
+}
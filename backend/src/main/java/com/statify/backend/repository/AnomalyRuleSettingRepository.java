@@ -0,0 +1,20 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.entity.AnomalyRuleSetting;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AnomalyRuleSettingRepository extends JpaRepository<AnomalyRuleSetting, Integer> {
+
+    /** Read once per upload; served from the query cache until the table is written. */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<AnomalyRuleSetting> findByAccountKey(String accountKey);
+
+    Optional<AnomalyRuleSetting> findByAccountKeyAndRuleName(String accountKey, String ruleName);
+}
@@ -0,0 +1,259 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.entity.Anomaly;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.UuidV7Generator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Bulk persistence path for ingest — bypasses the Hibernate persistence context.
+ *
+ * PostgreSQL: rows are streamed with COPY ... FROM STDIN (CSV), one round trip per buffer.
+ * Other databases (H2 in tests/local): JDBC batch inserts.
+ *
+ * Both paths join the caller's transaction through DataSourceUtils. Single-row edits
+ * (category override, anomaly review) stay on the JPA repositories.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class BulkInsertRepository {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    private static final String TXN_COLUMNS =
+            "id, upload_id, txn_date, description, merchant_key, amount, currency, category_id, matched_rule_id, is_override, created_at";
+    private static final String ANOMALY_COLUMNS =
+            "id, upload_id, transaction_id, rule_name, severity, detail, status, reviewed_at, created_at";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public void insertTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty())
+            return;
+        for (Transaction t : transactions) {
+            if (t.getId() == null)
+                t.setId(UuidV7Generator.next());
+        }
+
+        if (isPostgres()) {
+            copyIn("COPY transactions (" + TXN_COLUMNS + ") FROM STDIN WITH (FORMAT csv)", transactions,
+                    (t, row) -> row.add(t.getId())
+                            .add(t.getUpload().getId())
+                            .add(t.getTxnDate())
+                            .add(t.getDescription())
+                            .add(t.getMerchantKey())
+                            .add(t.getAmount())
+                            .add(t.getCurrency())
+                            .add(t.getCategoryId())
+                            .add(t.getMatchedRuleId())
+                            .add(t.isOverride())
+                            .add(t.getCreatedAt()));
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (" + TXN_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                transactions, BATCH_SIZE, (ps, t) -> {
+                    ps.setObject(1, t.getId());
+                    ps.setObject(2, t.getUpload().getId());
+                    ps.setObject(3, t.getTxnDate());
+                    ps.setString(4, t.getDescription());
+                    ps.setString(5, t.getMerchantKey());
+                    ps.setBigDecimal(6, t.getAmount());
+                    ps.setString(7, t.getCurrency());
+                    ps.setObject(8, t.getCategoryId(), Types.INTEGER);
+                    ps.setObject(9, t.getMatchedRuleId(), Types.INTEGER);
+                    ps.setBoolean(10, t.isOverride());
+                    ps.setObject(11, t.getCreatedAt());
+                });
+    }
+
+    public void insertAnomalies(List<Anomaly> anomalies) {
+        if (anomalies.isEmpty())
+            return;
+        for (Anomaly a : anomalies) {
+            if (a.getId() == null)
+                a.setId(UuidV7Generator.next());
+        }
+
+        if (isPostgres()) {
+            copyIn("COPY anomalies (" + ANOMALY_COLUMNS + ") FROM STDIN WITH (FORMAT csv)", anomalies,
+                    (a, row) -> row.add(a.getId())
+                            .add(a.getUploadId())
+                            .add(a.getTransaction().getId())
+                            .add(a.getRuleName())
+                            .add(a.getSeverity())
+                            .add(a.getDetail())
+                            .add(a.getStatus())
+                            .add(a.getReviewedAt())
+                            .add(a.getCreatedAt()));
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO anomalies (" + ANOMALY_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                anomalies, BATCH_SIZE, (ps, a) -> {
+                    ps.setObject(1, a.getId());
+                    ps.setObject(2, a.getUploadId());
+                    ps.setObject(3, a.getTransaction().getId());
+                    ps.setString(4, a.getRuleName());
+                    ps.setString(5, a.getSeverity());
+                    ps.setString(6, a.getDetail());
+                    ps.setString(7, a.getStatus());
+                    ps.setObject(8, a.getReviewedAt());
+                    ps.setObject(9, a.getCreatedAt());
+                });
+    }
+
+    /**
+     * Inserts fingerprints the account does not hold yet and returns those actually
+     * inserted; the rest were claimed meanwhile by another upload. PostgreSQL: one
+     * {@code INSERT ... SELECT unnest(?) ON CONFLICT DO NOTHING RETURNING}. Elsewhere a
+     * batch insert, where a conflict fails the chunk.
+     */
+    public Set<Long> insertFingerprints(String accountKey, UUID uploadId, long[] fingerprints) {
+        Set<Long> inserted = new HashSet<>(fingerprints.length * 2);
+        if (fingerprints.length == 0)
+            return inserted;
+
+        if (isPostgres()) {
+            Long[] boxed = Arrays.stream(fingerprints).boxed().toArray(Long[]::new);
+            jdbcTemplate.query("INSERT INTO transaction_fingerprints (account_key, fingerprint, upload_id)"
+                    + " SELECT ?, f, ? FROM unnest(?) AS f ON CONFLICT DO NOTHING RETURNING fingerprint",
+                    ps -> {
+                        ps.setString(1, accountKey);
+                        ps.setObject(2, uploadId);
+                        ps.setArray(3, ps.getConnection().createArrayOf("bigint", boxed));
+                    },
+                    rs -> {
+                        inserted.add(rs.getLong(1));
+                    });
+            return inserted;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transaction_fingerprints (account_key, fingerprint, upload_id) VALUES (?, ?, ?)",
+                Arrays.stream(fingerprints).boxed().toList(), BATCH_SIZE, (ps, fingerprint) -> {
+                    ps.setString(1, accountKey);
+                    ps.setLong(2, fingerprint);
+                    ps.setObject(3, uploadId);
+                });
+        for (long fingerprint : fingerprints)
+            inserted.add(fingerprint);
+        return inserted;
+    }
+
+    // ── PostgreSQL COPY ────────────────────────────────────────────────
+    private <T> void copyIn(String sql, List<T> rows, BiConsumer<T, CsvRow> writer) {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        CopyIn copy = null;
+        try {
+            copy = con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            CsvRow row = new CsvRow();
+            for (T item : rows) {
+                writer.accept(item, row);
+                row.end();
+                if (row.buffer.length() >= COPY_BUFFER_CHARS) {
+                    flush(copy, row.buffer);
+                }
+            }
+            flush(copy, row.buffer);
+            long copied = copy.endCopy();
+            log.debug("COPY loaded {} rows", copied);
+        } catch (SQLException e) {
+            cancelQuietly(copy);
+            throw new IllegalStateException("Bulk COPY failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    private static void flush(CopyIn copy, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty())
+            return;
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private static void cancelQuietly(CopyIn copy) {
+        if (copy == null || !copy.isActive())
+            return;
+        try {
+            copy.cancelCopy();
+        } catch (SQLException e) {
+            log.warn("Failed to cancel COPY: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected != null)
+            return detected;
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            detected = con.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            detected = false;
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+        postgres = detected;
+        return detected;
+    }
+
+    /**
+     * Appends one CSV record (COPY csv format: unquoted empty field = NULL). Strings are
+     * always quoted, so an empty string stays distinct from NULL and commas, newlines and
+     * backslashes are literal; only the quote itself is doubled.
+     */
+    static final class CsvRow {
+        final StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 1024);
+        private boolean first = true;
+
+        CsvRow add(Object value) {
+            if (!first)
+                buffer.append(',');
+            first = false;
+            if (value == null)
+                return this;
+            if (value instanceof String s) {
+                buffer.append('"').append(s.replace("\"", "\"\"")).append('"');
+            } else if (value instanceof BigDecimal d) {
+                buffer.append(d.toPlainString());
+            } else {
+                buffer.append(value);
+            }
+            return this;
+        }
+
+        void end() {
+            buffer.append('\n');
+            first = true;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.statify.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Set-based manual overrides. A {@link Target} is a WHERE clause over {@code transactions};
+ * the rows it selects are locked and read once (for summary deltas and classifier
+ * learning), then rewritten by a single UPDATE with the same clause. Only rows of
+ * completed uploads are touched, so no row can join the target between the two statements.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkOverrideRepository {
+
+    /**
+     * The stored side of {@code RuleSnapshot.matchText}: the merchant key. Rows stored
+     * before keys existed fall back to their raw description here, where the snapshot
+     * normalizes it first. SQL has no normalizer, and a keyword found in the normalized
+     * text is found in the raw one too unless it spans a chunk the normalizer removed.
+     */
+    static final String MATCH_TEXT = "COALESCE(merchant_key, description)";
+
+    private static final String COMPLETED = "upload_id IN (SELECT id FROM uploads WHERE status = 'completed')";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Rows to override; build with {@link #ids}, {@link #similarInUpload} or {@link #similarEverywhere}. */
+    public record Target(String where, MapSqlParameterSource params) {
+    }
+
+    public static Target ids(Collection<UUID> ids) {
+        return new Target("id IN (:ids)", new MapSqlParameterSource("ids", ids));
+    }
+
+    public static Target similarInUpload(UUID uploadId, String matchText) {
+        return new Target("upload_id = :uploadId AND " + MATCH_TEXT + " = :matchText",
+                new MapSqlParameterSource("uploadId", uploadId).addValue("matchText", matchText));
+    }
+
+    public static Target similarEverywhere(String matchText) {
+        return new Target(MATCH_TEXT + " = :matchText", new MapSqlParameterSource("matchText", matchText));
+    }
+
+    /**
+     * Locks the target's rows that the override would change and streams them: id,
+     * upload_id, amount, category_id, is_override, merchant_key, description.
+     */
+    public void lockChanging(Target target, int categoryId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, upload_id, amount, category_id, is_override, merchant_key, description"
+                + " FROM transactions WHERE " + changing(target) + " FOR UPDATE",
+                params(target, categoryId), handler);
+    }
+
+    /** The single UPDATE; returns the number of rows overridden. */
+    public int override(Target target, int categoryId) {
+        return jdbcTemplate.update("UPDATE transactions SET category_id = :categoryId, is_override = TRUE"
+                + " WHERE " + changing(target), params(target, categoryId));
+    }
+
+    /** Rows already overridden to this category are left alone. */
+    private static String changing(Target target) {
+        return "(" + target.where() + ") AND " + COMPLETED
+                + " AND (category_id IS DISTINCT FROM :categoryId OR is_override = FALSE)";
+    }
+
+    private static MapSqlParameterSource params(Target target, int categoryId) {
+        return new MapSqlParameterSource(target.params().getValues()).addValue("categoryId", categoryId);
+    }
+}
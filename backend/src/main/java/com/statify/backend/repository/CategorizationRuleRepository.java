@@ -1,11 +1,23 @@
 package com.statify.backend.repository;
 
 import com.statify.backend.entity.CategorizationRule;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 
 public interface CategorizationRuleRepository extends JpaRepository<CategorizationRule, Integer> {
+    // Query cache holds the ids; rules and categories come from the 2nd-level cache.
+    // Hibernate invalidates it on any write to categorization_rules through JPA.
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("SELECT r FROM CategorizationRule r JOIN FETCH r.category ORDER BY r.priority DESC")
     List<CategorizationRule> findAllWithCategories();
+
+    // Same rules read from the database, refreshing the cached entries they touch. For
+    // the snapshot build: an edit made on another instance never invalidated this JVM's
+    // cache regions, so the cached list above can be older than the version just read.
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheMode", value = "REFRESH"))
+    @Query("SELECT r FROM CategorizationRule r JOIN FETCH r.category ORDER BY r.priority DESC")
+    List<CategorizationRule> findAllWithCategoriesUncached();
 }
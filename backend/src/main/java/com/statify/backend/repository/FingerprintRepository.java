@@ -0,0 +1,91 @@
+package com.statify.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads of {@code transaction_fingerprints}, all by primary-key prefix. Inserts go
+ * through {@link BulkInsertRepository#insertFingerprints} with the rest of ingest.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FingerprintRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public long countByAccount(String accountKey) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction_fingerprints WHERE account_key = :accountKey",
+                new MapSqlParameterSource("accountKey", accountKey), Long.class);
+        return count != null ? count : 0;
+    }
+
+    /** Streams every fingerprint of the account; used once per account to fill its Bloom filter. */
+    public void forEachFingerprint(String accountKey, LongConsumer consumer) {
+        jdbcTemplate.query("SELECT fingerprint FROM transaction_fingerprints WHERE account_key = :accountKey",
+                new MapSqlParameterSource("accountKey", accountKey),
+                rs -> {
+                    consumer.accept(rs.getLong(1));
+                });
+    }
+
+    /**
+     * The upload that owns each of the given fingerprints; absent ones, and ones held by a
+     * failed upload, are not in the map. An upload being processed (including a failed one
+     * being resumed) still owns its rows, so concurrent imports of one statement collide.
+     */
+    public Map<Long, UUID> findOwners(String accountKey, Collection<Long> fingerprints) {
+        Map<Long, UUID> owners = new HashMap<>();
+        if (fingerprints.isEmpty())
+            return owners;
+        jdbcTemplate.query("SELECT f.fingerprint, f.upload_id FROM transaction_fingerprints f"
+                + " JOIN uploads u ON u.id = f.upload_id"
+                + " WHERE f.account_key = :accountKey AND f.fingerprint IN (:fingerprints) AND u.status <> 'failed'",
+                new MapSqlParameterSource("accountKey", accountKey).addValue("fingerprints", fingerprints),
+                rs -> {
+                    owners.put(rs.getLong(1), rs.getObject(2, UUID.class));
+                });
+        return owners;
+    }
+
+    /**
+     * Moves those of the given fingerprints that a failed upload holds to {@code uploadId},
+     * and returns them. The row lock makes a second taker wait and then find a live owner.
+     * Each upload they are taken from can no longer be resumed, as its committed rows now
+     * belong to {@code uploadId}.
+     */
+    public Set<Long> takeOverFailed(String accountKey, UUID uploadId, Collection<Long> fingerprints) {
+        Set<Long> taken = new HashSet<>();
+        if (fingerprints.isEmpty())
+            return taken;
+        Set<UUID> sources = new HashSet<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("accountKey", accountKey)
+                .addValue("uploadId", uploadId)
+                .addValue("fingerprints", fingerprints);
+        String failed = " WHERE account_key = :accountKey AND fingerprint IN (:fingerprints)"
+                + " AND upload_id IN (SELECT id FROM uploads WHERE status = 'failed')";
+        jdbcTemplate.query("SELECT fingerprint, upload_id FROM transaction_fingerprints" + failed + " FOR UPDATE",
+                params, rs -> {
+                    taken.add(rs.getLong(1));
+                    sources.add(rs.getObject(2, UUID.class));
+                });
+        if (taken.isEmpty())
+            return taken;
+        jdbcTemplate.update("UPDATE transaction_fingerprints SET upload_id = :uploadId"
+                + " WHERE account_key = :accountKey AND fingerprint IN (:taken)",
+                params.addValue("taken", taken));
+        jdbcTemplate.update("UPDATE uploads SET resumable = FALSE WHERE id IN (:sources)",
+                params.addValue("sources", sources));
+        return taken;
+    }
+}
@@ -0,0 +1,27 @@
+package com.statify.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Single-row counter in {@code rule_set_state}, bumped in the same transaction as every
+ * rule write. Compiled rule snapshots and uploads are labelled with it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RuleSetVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM rule_set_state WHERE id = 1", Long.class);
+        return version == null ? 0 : version;
+    }
+
+    /** Increments the version; the row lock also serializes concurrent rule edits. */
+    public long bump() {
+        jdbcTemplate.update("UPDATE rule_set_state SET version = version + 1 WHERE id = 1");
+        return currentVersion();
+    }
+}
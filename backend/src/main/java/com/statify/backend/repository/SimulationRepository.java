@@ -0,0 +1,39 @@
+package com.statify.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only streaming access for rule dry runs. Rows are handed to a callback straight
+ * off the cursor instead of being materialized as entities; PostgreSQL only streams with
+ * a fetch size inside a transaction, so callers read within one.
+ */
+@Repository
+public class SimulationRepository {
+
+    private static final int FETCH_SIZE = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SimulationRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public List<UUID> recentUploadIds(int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM uploads WHERE status = 'completed' ORDER BY uploaded_at DESC LIMIT ?",
+                UUID.class, limit);
+    }
+
+    /** Columns: id, txn_date, description, merchant_key, amount, category_id, is_override. */
+    public void streamUpload(UUID uploadId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, txn_date, description, merchant_key, amount, category_id, is_override"
+                + " FROM transactions WHERE upload_id = ?", handler, uploadId);
+    }
+}
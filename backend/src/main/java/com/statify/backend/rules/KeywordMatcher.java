@@ -0,0 +1,216 @@
+package com.statify.backend.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over case-folded code points. Keywords are ranked by their
+ * position in the input list (0 = highest priority); {@link #firstMatch} scans a text
+ * once and returns the best rank among every keyword it contains, so cost depends on
+ * text length, not on how many keywords there are.
+ *
+ * {@link #collectMatches} reports every contained keyword instead, for rules whose
+ * keyword is only one of several conditions.
+ *
+ * <p>Immutable and safe to share between threads once compiled.
+ */
+public final class KeywordMatcher {
+
+    public static final int NO_MATCH = -1;
+
+    private static final int ROOT = 0;
+    private static final int CODE_POINT_BITS = 21; // Character.MAX_CODE_POINT < 2^21
+    private static final long EMPTY = -1L;
+
+    /** Goto function: (state << 21 | codePoint) → state, open addressing with linear probing. */
+    private final long[] edgeKeys;
+    private final int[] edgeTargets;
+    private final int edgeMask;
+
+    private final int[] fail;
+    /** Lowest rank ending at this state or anywhere along its failure chain. */
+    private final int[] best;
+    /** Ranks of the keywords ending exactly at this state; null if none. */
+    private final int[][] outputs;
+    /** Nearest state on the failure chain with outputs, or -1 (output/dictionary link). */
+    private final int[] outputLink;
+    private final int keywordCount;
+
+    private KeywordMatcher(long[] edgeKeys, int[] edgeTargets, int[] fail, int[] best, int[][] outputs,
+            int[] outputLink, int keywordCount) {
+        this.edgeKeys = edgeKeys;
+        this.edgeTargets = edgeTargets;
+        this.edgeMask = edgeKeys.length - 1;
+        this.fail = fail;
+        this.best = best;
+        this.outputs = outputs;
+        this.outputLink = outputLink;
+        this.keywordCount = keywordCount;
+    }
+
+    /** Null keywords are skipped; an empty keyword matches every text, as {@code contains("")} does. */
+    public static KeywordMatcher compile(List<String> keywords) {
+        // 1. Trie
+        List<Map<Integer, Integer>> children = new ArrayList<>();
+        List<List<Integer>> own = new ArrayList<>();
+        children.add(new HashMap<>());
+        own.add(new ArrayList<>());
+
+        for (int rank = 0; rank < keywords.size(); rank++) {
+            String keyword = keywords.get(rank);
+            if (keyword == null)
+                continue;
+            int state = ROOT;
+            for (int i = 0; i < keyword.length();) {
+                int raw = keyword.codePointAt(i);
+                i += Character.charCount(raw);
+                int cp = fold(raw);
+                Integer next = children.get(state).get(cp);
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(cp, next);
+                    children.add(new HashMap<>());
+                    own.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            own.get(state).add(rank);
+        }
+
+        int states = children.size();
+        int edges = states - 1;
+        int capacity = Integer.highestOneBit(Math.max(2, edges * 2 - 1)) << 1;
+        long[] edgeKeys = new long[capacity];
+        int[] edgeTargets = new int[capacity];
+        Arrays.fill(edgeKeys, EMPTY);
+        for (int s = 0; s < states; s++) {
+            for (Map.Entry<Integer, Integer> e : children.get(s).entrySet()) {
+                long key = edgeKey(s, e.getKey());
+                int slot = slot(key, capacity - 1);
+                while (edgeKeys[slot] != EMPTY)
+                    slot = (slot + 1) & (capacity - 1);
+                edgeKeys[slot] = key;
+                edgeTargets[slot] = e.getValue();
+            }
+        }
+
+        // 2. Failure links and best-rank outputs, breadth first
+        int[] fail = new int[states];
+        int[] best = new int[states];
+        int[][] outputs = new int[states][];
+        int[] outputLink = new int[states];
+        for (int s = 0; s < states; s++) {
+            List<Integer> ranks = own.get(s);
+            outputs[s] = ranks.isEmpty() ? null : ranks.stream().mapToInt(Integer::intValue).toArray();
+            best[s] = ranks.isEmpty() ? Integer.MAX_VALUE : outputs[s][0]; // ranks were added in ascending order
+        }
+        outputLink[ROOT] = -1;
+
+        KeywordMatcher partial = new KeywordMatcher(edgeKeys, edgeTargets, fail, best, outputs, outputLink,
+                keywords.size());
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : children.get(ROOT).values()) {
+            fail[child] = ROOT;
+            best[child] = Math.min(best[child], best[ROOT]);
+            outputLink[child] = outputs[ROOT] != null ? ROOT : -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Integer, Integer> e : children.get(state).entrySet()) {
+                int cp = e.getKey();
+                int child = e.getValue();
+                int f = fail[state];
+                int target;
+                while ((target = partial.edge(f, cp)) < 0 && f != ROOT)
+                    f = fail[f];
+                fail[child] = target >= 0 ? target : ROOT;
+                best[child] = Math.min(best[child], best[fail[child]]);
+                outputLink[child] = outputs[fail[child]] != null ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return partial;
+    }
+
+    /** Lowest rank of any keyword contained in {@code text}, or {@link #NO_MATCH}. */
+    public int firstMatch(CharSequence text) {
+        int result = best[ROOT];
+        int state = ROOT;
+        for (int i = 0, n = text.length(); i < n;) {
+            int raw = Character.codePointAt(text, i);
+            i += Character.charCount(raw);
+            int cp = fold(raw);
+
+            int next;
+            while ((next = edge(state, cp)) < 0 && state != ROOT)
+                state = fail[state];
+            state = next >= 0 ? next : ROOT;
+
+            if (best[state] < result) {
+                result = best[state];
+                if (result == 0)
+                    break; // nothing outranks the first keyword
+            }
+        }
+        return result == Integer.MAX_VALUE ? NO_MATCH : result;
+    }
+
+    /** Sets the rank of every keyword contained in {@code text} (each occurrence, so a bit may be set twice). */
+    public void collectMatches(CharSequence text, BitSet ranks) {
+        emit(ROOT, ranks);
+        int state = ROOT;
+        for (int i = 0, n = text.length(); i < n;) {
+            int raw = Character.codePointAt(text, i);
+            i += Character.charCount(raw);
+            int cp = fold(raw);
+
+            int next;
+            while ((next = edge(state, cp)) < 0 && state != ROOT)
+                state = fail[state];
+            state = next >= 0 ? next : ROOT;
+            emit(state, ranks);
+        }
+    }
+
+    private void emit(int state, BitSet ranks) {
+        for (int s = outputs[state] != null ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+            for (int rank : outputs[s])
+                ranks.set(rank);
+        }
+    }
+
+    public int keywordCount() {
+        return keywordCount;
+    }
+
+    private int edge(int state, int cp) {
+        long key = edgeKey(state, cp);
+        for (int slot = slot(key, edgeMask);; slot = (slot + 1) & edgeMask) {
+            long k = edgeKeys[slot];
+            if (k == key)
+                return edgeTargets[slot];
+            if (k == EMPTY)
+                return -1;
+        }
+    }
+
+    /** Simple case folding per code point; leaves scripts without case (Thai) untouched. */
+    static int fold(int cp) {
+        return Character.toLowerCase(Character.toUpperCase(cp));
+    }
+
+    private static long edgeKey(int state, int cp) {
+        return ((long) state << CODE_POINT_BITS) | cp;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,247 @@
+package com.statify.backend.rules;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * One structured condition of a rule, compiled once per snapshot. Besides the test itself
+ * each condition estimates its cost and how many rows it lets through, so a rule's
+ * conditions run cheapest-and-most-selective first (ascending {@code cost / (1 - passRate)}).
+ * The keyword and a keywordless merchant key are not conditions: {@link RuleSnapshot}
+ * answers those from its automaton and merchant index before any condition runs.
+ */
+public sealed interface RuleCondition extends Predicate<Transaction> {
+
+    /** Relative evaluation cost; a field comparison is 1. */
+    int cost();
+
+    /** Rough fraction of transactions expected to pass. */
+    double passRate();
+
+    /** Magnitude of the amount within [min, max]; either bound may be open. Sign is {@link Direction}'s job. */
+    record AmountRange(BigDecimal min, BigDecimal max) implements RuleCondition {
+        @Override
+        public boolean test(Transaction txn) {
+            BigDecimal magnitude = txn.getAmount().abs();
+            return (min == null || magnitude.compareTo(min) >= 0) && (max == null || magnitude.compareTo(max) <= 0);
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+
+        @Override
+        public double passRate() {
+            return min != null && max != null ? 0.2 : 0.5;
+        }
+    }
+
+    record Direction(boolean credit) implements RuleCondition {
+        @Override
+        public boolean test(Transaction txn) {
+            int sign = txn.getAmount().signum();
+            return credit ? sign > 0 : sign < 0;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public double passRate() {
+            return credit ? 0.2 : 0.8; // statements are mostly debits
+        }
+    }
+
+    /** Day of month within [from, to]; wraps past month end when from &gt; to (e.g. 25..5). */
+    record DayOfMonth(int from, int to) implements RuleCondition {
+        @Override
+        public boolean test(Transaction txn) {
+            int day = txn.getTxnDate().getDayOfMonth();
+            return from <= to ? day >= from && day <= to : day >= from || day <= to;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public double passRate() {
+            int days = from <= to ? to - from + 1 : 31 - from + 1 + to;
+            return days / 31.0;
+        }
+    }
+
+    record DateRange(LocalDate from, LocalDate to) implements RuleCondition {
+        @Override
+        public boolean test(Transaction txn) {
+            LocalDate date = txn.getTxnDate();
+            return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public double passRate() {
+            return 0.5;
+        }
+    }
+
+    /** Only used alongside a keyword; keywordless merchant rules are served by the snapshot's index. */
+    record MerchantKeyEquals(String merchantKey) implements RuleCondition {
+        @Override
+        public boolean test(Transaction txn) {
+            return merchantKey.equals(txn.getMerchantKey());
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public double passRate() {
+            return 0.05;
+        }
+    }
+
+    /**
+     * User-supplied, so bounded against catastrophic backtracking: the pattern is capped at
+     * {@link #MAX_PATTERN} characters, reads at most {@link #MAX_INPUT} of the description,
+     * and a match still running after {@link #BUDGET_NANOS} counts as no match.
+     */
+    record DescriptionRegex(Pattern pattern) implements RuleCondition {
+        static final int MAX_PATTERN = 200;
+        static final int MAX_INPUT = 512;
+        static final long BUDGET_NANOS = 10_000_000;
+
+        @Override
+        public boolean test(Transaction txn) {
+            String description = txn.getDescription();
+            if (description.length() > MAX_INPUT)
+                description = description.substring(0, MAX_INPUT);
+            try {
+                return pattern.matcher(new DeadlineInput(description, System.nanoTime() + BUDGET_NANOS)).find();
+            } catch (DeadlineInput.Exceeded e) {
+                return false;
+            }
+        }
+
+        @Override
+        public int cost() {
+            return 50;
+        }
+
+        @Override
+        public double passRate() {
+            return 0.1;
+        }
+
+        /** The description as the matcher sees it; every 1024th read checks the clock. */
+        private static final class DeadlineInput implements CharSequence {
+            private final String text;
+            private final long deadline;
+            private int reads;
+
+            DeadlineInput(String text, long deadline) {
+                this.text = text;
+                this.deadline = deadline;
+            }
+
+            @Override
+            public char charAt(int index) {
+                if ((++reads & 1023) == 0 && System.nanoTime() > deadline)
+                    throw new Exceeded();
+                return text.charAt(index);
+            }
+
+            @Override
+            public int length() {
+                return text.length();
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return text.subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return text;
+            }
+
+            private static final class Exceeded extends RuntimeException {
+                Exceeded() {
+                    super(null, null, false, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * The rule's conditions in evaluation order. The merchant key is included only when
+     * {@code withMerchantKey} (the snapshot indexes it otherwise).
+     *
+     * @throws IllegalArgumentException for an unparsable or overlong regex, or inverted bounds
+     */
+    static List<RuleCondition> of(CategorizationRule rule, boolean withMerchantKey) {
+        List<RuleCondition> conditions = new ArrayList<>();
+        if (rule.getAmountMin() != null || rule.getAmountMax() != null) {
+            if (rule.getAmountMin() != null && rule.getAmountMax() != null
+                    && rule.getAmountMin().compareTo(rule.getAmountMax()) > 0)
+                throw new IllegalArgumentException("amountMin is greater than amountMax");
+            conditions.add(new AmountRange(rule.getAmountMin(), rule.getAmountMax()));
+        }
+        if (rule.getDirection() != null) {
+            conditions.add(switch (rule.getDirection()) {
+                case "CREDIT" -> new Direction(true);
+                case "DEBIT" -> new Direction(false);
+                default -> throw new IllegalArgumentException("direction must be DEBIT or CREDIT");
+            });
+        }
+        if (rule.getDayFrom() != null || rule.getDayTo() != null) {
+            int from = rule.getDayFrom() != null ? rule.getDayFrom() : 1;
+            int to = rule.getDayTo() != null ? rule.getDayTo() : 31;
+            if (from < 1 || from > 31 || to < 1 || to > 31)
+                throw new IllegalArgumentException("dayFrom/dayTo must be between 1 and 31");
+            conditions.add(new DayOfMonth(from, to));
+        }
+        if (rule.getDateFrom() != null || rule.getDateTo() != null) {
+            if (rule.getDateFrom() != null && rule.getDateTo() != null && rule.getDateFrom().isAfter(rule.getDateTo()))
+                throw new IllegalArgumentException("dateFrom is after dateTo");
+            conditions.add(new DateRange(rule.getDateFrom(), rule.getDateTo()));
+        }
+        if (withMerchantKey && rule.getMerchantKey() != null) {
+            conditions.add(new MerchantKeyEquals(rule.getMerchantKey()));
+        }
+        if (rule.getDescriptionRegex() != null) {
+            if (rule.getDescriptionRegex().length() > DescriptionRegex.MAX_PATTERN)
+                throw new IllegalArgumentException(
+                        "descriptionRegex is longer than " + DescriptionRegex.MAX_PATTERN + " characters");
+            try {
+                conditions.add(new DescriptionRegex(
+                        Pattern.compile(rule.getDescriptionRegex(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("descriptionRegex is not a valid pattern: " + e.getDescription()
+                        + " near index " + e.getIndex());
+            }
+        }
+        conditions.sort(Comparator.comparingDouble(c -> c.cost() / Math.max(1e-3, 1 - c.passRate())));
+        return conditions;
+    }
+}
@@ -0,0 +1,8 @@
+package com.statify.backend.rules;
+
+/**
+ * Published inside the transaction that changed a rule; {@code version} is the bumped
+ * rule-set version and {@code ruleId} the rule that was added, edited or deleted.
+ */
+public record RulesChangedEvent(long version, Integer ruleId) {
+}
@@ -1,56 +1,88 @@
 package com.statify.backend.service;
 
+import com.statify.backend.anomaly.AnomalyRuleEngine;
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.AnomalyView;
 import com.statify.backend.entity.Anomaly;
 import com.statify.backend.entity.Transaction;
 import com.statify.backend.repository.AnomalyRepository;
+import com.statify.backend.repository.BulkInsertRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AnomalyService {
 
-    private final AnomalyRepository anomalyRepository;
+    static final String CROSS_UPLOAD_DUPLICATE = "Cross-upload Duplicate";
 
-    // Default threshold from PRD
-    private static final BigDecimal LARGE_AMOUNT_THRESHOLD = new BigDecimal("10000.00");
+    private final BulkInsertRepository bulkInsertRepository;
+    private final AnomalyRepository anomalyRepository;
+    private final UploadSummaryService uploadSummaryService;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final AnomalyRuleEngine anomalyRuleEngine;
 
+    /**
+     * Flags and stores anomalies for the account's batch; returns how many were raised.
+     * Every rule enabled for the account runs in the engine's single pass; see
+     * {@link AnomalyRuleEngine}. Rows in {@code alreadyImported} are left out of the
+     * amount statistics.
+     */
     @Transactional
-    public void detectAnomalies(List<Transaction> transactions) {
-        List<Anomaly> anomalies = new ArrayList<>();
-
-        for (int i = 0; i < transactions.size(); i++) {
-            Transaction txn = transactions.get(i);
+    public int detectAnomalies(String accountKey, List<Transaction> transactions, Set<UUID> alreadyImported) {
+        if (transactions.isEmpty())
+            return 0;
+        List<Anomaly> anomalies = anomalyRuleEngine.evaluate(accountKey, transactions, alreadyImported).stream()
+                .map(f -> createAnomaly(f.txn(), f.rule(), f.severity(), f.detail()))
+                .toList();
+        bulkInsertRepository.insertAnomalies(anomalies);
+        return anomalies.size();
+    }
 
-            // 1. Large Amount Rule
-            if (txn.getAmount().abs().compareTo(LARGE_AMOUNT_THRESHOLD) >= 0) {
-                anomalies.add(createAnomaly(txn, "Large Amount", "MEDIUM",
-                        "Transaction exceeds threshold of " + LARGE_AMOUNT_THRESHOLD));
-            }
+    /** Flags rows an earlier upload of the same account already imported; returns how many. */
+    @Transactional
+    public int flagCrossUploadDuplicates(Map<Transaction, UUID> owners) {
+        List<Anomaly> anomalies = new ArrayList<>(owners.size());
+        owners.forEach((txn, owner) -> anomalies.add(createAnomaly(txn, CROSS_UPLOAD_DUPLICATE, "HIGH",
+                "Already imported with upload " + owner)));
+        bulkInsertRepository.insertAnomalies(anomalies);
+        return anomalies.size();
+    }
 
-            // 2. Duplicate Rule (N^2 check limited to this batch for MVP)
-            for (int j = i + 1; j < transactions.size(); j++) {
-                Transaction other = transactions.get(j);
-                if (txn.getDescription().equals(other.getDescription()) &&
-                        txn.getAmount().equals(other.getAmount()) &&
-                        txn.getTxnDate().equals(other.getTxnDate())) {
+    /** Rows of the upload flagged as already imported; read on the primary, which wrote them. */
+    @Transactional
+    public Set<UUID> crossUploadDuplicates(UUID uploadId) {
+        return new HashSet<>(anomalyRepository.findTransactionIds(uploadId, CROSS_UPLOAD_DUPLICATE));
+    }
 
-                    anomalies.add(createAnomaly(txn, "Duplicate", "HIGH",
-                            "Potential duplicate with other transaction in this statement"));
-                }
+    /** Records a review decision and keeps the upload's open-anomaly count in step. */
+    @Transactional
+    public Optional<AnomalyView> reviewAnomaly(UUID anomalyId, String status) {
+        return anomalyRepository.findById(anomalyId).map(anomaly -> {
+            boolean wasOpen = "open".equals(anomaly.getStatus());
+            anomaly.setStatus(status);
+            anomaly.setReviewedAt(OffsetDateTime.now());
+            if (wasOpen) {
+                uploadSummaryService.anomalyReviewed(anomaly.getUploadId());
             }
-        }
-
-        anomalyRepository.saveAll(anomalies);
+            replicaLagGuard.markWritten(anomaly.getUploadId());
+            return AnomalyView.from(anomaly);
+        });
     }
 
     private Anomaly createAnomaly(Transaction txn, String rule, String severity, String detail) {
         Anomaly anomaly = new Anomaly();
+        anomaly.setUploadId(txn.getUpload().getId());
         anomaly.setTransaction(txn);
         anomaly.setRuleName(rule);
         anomaly.setSeverity(severity);
@@ -0,0 +1,123 @@
+package com.statify.backend.service;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.BulkOverrideRequest;
+import com.statify.backend.dto.BulkOverrideResult;
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.exception.InvalidOverrideException;
+import com.statify.backend.parser.DescriptionNormalizer;
+import com.statify.backend.repository.BulkOverrideRepository;
+import com.statify.backend.repository.BulkOverrideRepository.Target;
+import com.statify.backend.repository.CategoryRepository;
+import com.statify.backend.repository.TransactionRepository;
+import com.statify.backend.rules.RuleSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Overrides many transactions at once: "these rows" or "every row like this one". The
+ * affected rows are locked and read once to work out the summary deltas and teach the
+ * classifier, then written by one UPDATE; the summaries are adjusted by delta, never
+ * recomputed. The classifier is told how many rows of each match text moved, once per
+ * text and category.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkOverrideService {
+
+    private static final int MAX_IDS = 10_000;
+
+    private final TransactionRepository transactionRepository;
+    private final CategoryRepository categoryRepository;
+    private final BulkOverrideRepository bulkOverrideRepository;
+    private final RuleService ruleService;
+    private final TokenClassifier tokenClassifier;
+    private final UploadSummaryService uploadSummaryService;
+    private final ReplicaLagGuard replicaLagGuard;
+
+    /** {@link InvalidOverrideException} for an unusable request; {@link NoSuchElementException} for an unknown anchor. */
+    @Transactional
+    public BulkOverrideResult override(BulkOverrideRequest req) {
+        if (req.categoryId() == null || !categoryRepository.existsById(req.categoryId()))
+            throw new InvalidOverrideException("Category " + req.categoryId() + " does not exist.");
+        int categoryId = req.categoryId();
+
+        Transaction anchor = null;
+        Target target;
+        boolean byIds = req.transactionIds() != null && !req.transactionIds().isEmpty();
+        if (byIds == (req.similarTo() != null)) {
+            throw new InvalidOverrideException("Give either transactionIds or similarTo.");
+        } else if (byIds) {
+            if (req.transactionIds().size() > MAX_IDS)
+                throw new InvalidOverrideException("At most " + MAX_IDS + " transactions per request.");
+            if (req.createRule())
+                throw new InvalidOverrideException("A rule can only be created from similarTo.");
+            target = BulkOverrideRepository.ids(req.transactionIds());
+        } else {
+            anchor = transactionRepository.findById(req.similarTo())
+                    .orElseThrow(() -> new NoSuchElementException("Transaction " + req.similarTo()));
+            if (req.createRule() && anchor.getMerchantKey() == null)
+                throw new InvalidOverrideException("The transaction has no merchant key to build a rule from.");
+            String matchText = anchor.getMerchantKey() != null ? anchor.getMerchantKey() : anchor.getDescription();
+            String scope = req.scope() != null ? req.scope() : "upload";
+            // "PAYMENT" alone would reach every such row of every merchant
+            if ((req.createRule() || scope.equals("all")) && !DescriptionNormalizer.namesMerchant(matchText))
+                throw new InvalidOverrideException("'" + matchText + "' names no merchant; override these rows"
+                        + " within their upload or by id instead.");
+            target = switch (scope) {
+                case "upload" -> BulkOverrideRepository.similarInUpload(anchor.getUpload().getId(), matchText);
+                case "all" -> BulkOverrideRepository.similarEverywhere(matchText);
+                default -> throw new InvalidOverrideException("Unknown scope '" + scope + "'; use upload or all.");
+            };
+        }
+
+        Map<UUID, Map<Integer, BigDecimal>> deltas = new HashMap<>();
+        Map<List<Object>, Integer> taught = new HashMap<>(); // (match text, category) → rows gained or lost
+        Transaction row = new Transaction(); // reused to derive the match text
+        bulkOverrideRepository.lockChanging(target, categoryId, rs -> {
+            UUID uploadId = rs.getObject("upload_id", UUID.class);
+            BigDecimal amount = rs.getBigDecimal("amount");
+            Integer previous = rs.getObject("category_id", Integer.class);
+            row.setMerchantKey(rs.getString("merchant_key"));
+            row.setDescription(rs.getString("description"));
+            String text = RuleSnapshot.matchText(row);
+
+            if (rs.getBoolean("is_override") && previous != null)
+                taught.merge(List.of(text, previous), -1, Integer::sum);
+            taught.merge(List.of(text, categoryId), 1, Integer::sum);
+
+            Map<Integer, BigDecimal> upload = deltas.computeIfAbsent(uploadId, u -> new HashMap<>());
+            if (amount.signum() < 0 && !Objects.equals(previous, categoryId)) { // income is not bucketed
+                if (previous != null)
+                    upload.merge(previous, amount, BigDecimal::add);
+                upload.merge(categoryId, amount.negate(), BigDecimal::add);
+            }
+        });
+        int updated = bulkOverrideRepository.override(target, categoryId);
+        taught.forEach((key, rows) -> tokenClassifier.adjust((String) key.get(0), (Integer) key.get(1), rows));
+
+        deltas.forEach(uploadSummaryService::applyCategoryDeltas);
+        deltas.keySet().forEach(replicaLagGuard::markWritten);
+
+        Integer ruleId = null;
+        if (req.createRule()) {
+            ruleId = ruleService.addRule(new RuleRequest(null, categoryId, req.rulePriority(), null, null, null,
+                    null, null, null, null, null, anchor.getMerchantKey()))
+                    .map(CategorizationRule::getId)
+                    .orElse(null);
+        }
+        return new BulkOverrideResult(updated, ruleId);
+    }
+}
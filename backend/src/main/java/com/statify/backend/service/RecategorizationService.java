@@ -0,0 +1,191 @@
+package com.statify.backend.service;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.RecategorizationProgress;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.RecategorizationRepository;
+import com.statify.backend.repository.RecategorizationRepository.Assignment;
+import com.statify.backend.repository.RecategorizationRepository.Candidate;
+import com.statify.backend.rules.KeywordMatcher;
+import com.statify.backend.rules.RuleSnapshot;
+import com.statify.backend.rules.RuleSnapshotHolder;
+import com.statify.backend.rules.RulesChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Brings stored transactions in line with the rules after a rule change. Only rows the
+ * changed rule owns or could now match are read (see {@link RecategorizationRepository}),
+ * each keyset page is re-matched against the full snapshot so priorities still hold, and
+ * rows that move are written with one UPDATE per target category in their own transaction,
+ * together with the upload summary deltas. Overridden rows are left alone.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecategorizationService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final UUID FIRST = new UUID(0, 0);
+    private static final Assignment UNMATCHED = new Assignment(null, null);
+
+    private final CategorizationRuleRepository ruleRepository;
+    private final RuleSnapshotHolder ruleSnapshotHolder;
+    private final TokenClassifier tokenClassifier;
+    private final RecategorizationRepository recategorizationRepository;
+    private final UploadSummaryService uploadSummaryService;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicReference<RecategorizationProgress> progress = new AtomicReference<>();
+
+    /** The latest job; empty until a rule has been added or edited. */
+    public Optional<RecategorizationProgress> progress() {
+        return Optional.ofNullable(progress.get());
+    }
+
+    /** Runs after the rule change commits; jobs run one at a time. A rule that is gone was deleted. */
+    @Async
+    @TransactionalEventListener
+    public synchronized void onRulesChanged(RulesChangedEvent event) {
+        if (event.ruleId() == null)
+            return;
+        RuleSnapshot rules = ruleSnapshotHolder.refresh();
+        Optional<CategorizationRule> rule = ruleRepository.findById(event.ruleId());
+        if (rule.isPresent())
+            recategorize(rule.get(), rules);
+        else
+            releaseRule(event.ruleId(), rules);
+    }
+
+    void recategorize(CategorizationRule rule, RuleSnapshot rules) {
+        boolean scanAll = rule.getKeyword() == null && rule.getMerchantKey() == null;
+        if (scanAll)
+            log.warn("Rule {} has neither keyword nor merchant key; re-categorization scans every row", rule.getId());
+        run(rule.getId(), rule.getKeyword(), rule.getMerchantKey(), scanAll, rules);
+    }
+
+    /**
+     * Hands the rows of a deleted rule to the remaining rules in {@code rules}, after the
+     * delete has committed and in batches of their own, so deleting a popular rule never
+     * holds its rows locked in one transaction. Overridden rows keep their category and
+     * just drop the rule reference. Until a row's batch commits it still names the
+     * deleted rule, which is why matched_rule_id has no foreign key (V11).
+     */
+    void releaseRule(int ruleId, RuleSnapshot rules) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int detached;
+        do {
+            detached = tx.execute(status -> recategorizationRepository.detachOverrides(ruleId, BATCH_SIZE));
+        } while (detached == BATCH_SIZE);
+        run(ruleId, null, null, false, rules);
+    }
+
+    /** Pages through the rule's reach, re-matching each page in its own transaction and reporting progress. */
+    private void run(int ruleId, String keyword, String merchantKey, boolean scanAll, RuleSnapshot rules) {
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        progress.set(new RecategorizationProgress(rules.version(), ruleId, "running", 0, 0, startedAt, null));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long scanned = 0;
+        long updated = 0;
+        try {
+            UUID afterUpload = FIRST;
+            UUID afterId = FIRST;
+            List<Candidate> page;
+            while (!(page = recategorizationRepository.findCandidates(afterUpload, afterId, ruleId, keyword,
+                    merchantKey, scanAll, BATCH_SIZE)).isEmpty()) {
+                List<Candidate> batch = page;
+                updated += tx.execute(status -> apply(batch, rules));
+                scanned += page.size();
+                Candidate last = page.get(page.size() - 1);
+                afterUpload = last.uploadId();
+                afterId = last.txn().getId();
+                progress.set(new RecategorizationProgress(rules.version(), ruleId, "running", scanned, updated,
+                        startedAt, null));
+            }
+            progress.set(new RecategorizationProgress(rules.version(), ruleId, "done", scanned, updated,
+                    startedAt, OffsetDateTime.now()));
+            log.info("Re-categorized for rule {} (v{}): {} candidates, {} moved", ruleId, rules.version(), scanned, updated);
+        } catch (RuntimeException e) {
+            log.error("Re-categorization for rule {} failed after {} rows", ruleId, scanned, e);
+            progress.set(new RecategorizationProgress(rules.version(), ruleId, "failed", scanned, updated,
+                    startedAt, OffsetDateTime.now()));
+        }
+    }
+
+    /** Re-matches one page and writes the rows that move; returns how many did. */
+    private int apply(List<Candidate> page, RuleSnapshot rules) {
+        Map<UUID, Candidate> candidates = new HashMap<>();
+        Map<Assignment, List<UUID>> moves = new HashMap<>();
+        for (Candidate candidate : page) {
+            Transaction txn = candidate.txn();
+            int rank = rules.match(txn);
+            Assignment target;
+            if (rank != KeywordMatcher.NO_MATCH) {
+                target = new Assignment(rules.categoryId(rank), rules.ruleId(rank));
+            } else {
+                OptionalInt predicted = tokenClassifier.classify(txn); // same fallback as at ingest
+                target = predicted.isPresent() ? new Assignment(predicted.getAsInt(), null) : UNMATCHED;
+            }
+            if (!target.equals(new Assignment(txn.getCategoryId(), txn.getMatchedRuleId()))) {
+                moves.computeIfAbsent(target, t -> new ArrayList<>()).add(txn.getId());
+                candidates.put(txn.getId(), candidate);
+            }
+        }
+        if (moves.isEmpty())
+            return 0;
+
+        // Lock first and diff against the locked values: an override or another job may have won meanwhile
+        Map<UUID, Assignment> locked = recategorizationRepository.lockEligible(candidates.keySet());
+        Map<UUID, Map<Integer, BigDecimal>> deltas = new HashMap<>();
+        Set<UUID> uploads = new HashSet<>();
+        int moved = 0;
+        for (Map.Entry<Assignment, List<UUID>> move : moves.entrySet()) {
+            Assignment target = move.getKey();
+            List<UUID> ids = move.getValue().stream()
+                    .filter(id -> locked.containsKey(id) && !locked.get(id).equals(target))
+                    .toList();
+            if (ids.isEmpty())
+                continue;
+            moved += recategorizationRepository.reassign(ids, target.categoryId(), target.ruleId());
+
+            for (UUID id : ids) {
+                Candidate candidate = candidates.get(id);
+                uploads.add(candidate.uploadId());
+                BigDecimal amount = candidate.txn().getAmount();
+                if (amount.signum() >= 0)
+                    continue; // income is not bucketed
+                Map<Integer, BigDecimal> upload = deltas.computeIfAbsent(candidate.uploadId(), u -> new HashMap<>());
+                Integer from = locked.get(id).categoryId();
+                if (from != null)
+                    upload.merge(from, amount, BigDecimal::add);
+                if (target.categoryId() != null)
+                    upload.merge(target.categoryId(), amount.negate(), BigDecimal::add);
+            }
+        }
+        deltas.forEach(uploadSummaryService::applyCategoryDeltas);
+        uploads.forEach(replicaLagGuard::markWritten);
+        return moved;
+    }
+}
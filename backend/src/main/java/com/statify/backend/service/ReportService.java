@@ -1,7 +1,8 @@
 package com.statify.backend.service;
 
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.TransactionView;
 import com.statify.backend.entity.Category;
-import com.statify.backend.entity.Transaction;
 import com.statify.backend.repository.CategoryRepository;
 import com.statify.backend.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.InputStream;
 import java.math.BigDecimal;
@@ -21,22 +23,25 @@ public class ReportService {
 
     private final TransactionRepository transactionRepository;
     private final CategoryRepository categoryRepository;
+    private final ReplicaLagGuard replicaLagGuard;
 
+    @Transactional(readOnly = true)
     public byte[] generatePdfReport(UUID uploadId) throws Exception {
-        List<Transaction> txns = transactionRepository.findByUploadIdOrderByTxnDate(uploadId);
+        replicaLagGuard.routeFor(uploadId);
+        List<TransactionView> txns = transactionRepository.findViewsByUploadId(uploadId);
         List<Category> allCategories = categoryRepository.findAll();
         Map<Integer, String> categoryMap = allCategories.stream()
                 .collect(Collectors.toMap(Category::getId, Category::getName));
 
         // Prepare parameters
         BigDecimal totalIncome = txns.stream()
-                .filter(t -> t.getAmount().compareTo(BigDecimal.ZERO) > 0)
-                .map(Transaction::getAmount)
+                .filter(t -> t.amount().compareTo(BigDecimal.ZERO) > 0)
+                .map(TransactionView::amount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         BigDecimal totalExpense = txns.stream()
-                .filter(t -> t.getAmount().compareTo(BigDecimal.ZERO) < 0)
-                .map(t -> t.getAmount().abs())
+                .filter(t -> t.amount().compareTo(BigDecimal.ZERO) < 0)
+                .map(t -> t.amount().abs())
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         BigDecimal netBalance = totalIncome.subtract(totalExpense);
@@ -49,13 +54,13 @@ public class ReportService {
 
         // Prepare data records
         List<Map<String, Object>> records = new ArrayList<>();
-        for (Transaction t : txns) {
+        for (TransactionView t : txns) {
             Map<String, Object> record = new HashMap<>();
-            record.put("txnDate", t.getTxnDate());
-            record.put("description", t.getDescription());
-            record.put("amount", t.getAmount());
+            record.put("txnDate", t.txnDate());
+            record.put("description", t.description());
+            record.put("amount", t.amount());
             record.put("categoryName",
-                    t.getCategoryId() != null ? categoryMap.getOrDefault(t.getCategoryId(), "Uncategorized")
+                    t.categoryId() != null ? categoryMap.getOrDefault(t.categoryId(), "Uncategorized")
                             : "Uncategorized");
             records.add(record);
         }
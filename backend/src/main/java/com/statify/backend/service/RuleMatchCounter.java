@@ -0,0 +1,93 @@
+package com.statify.backend.service;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Transaction;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rule hit counts, accumulated in memory and flushed as one JDBC batch of relative
+ * increments. Uploads never write categorization_rules rows themselves, so concurrent
+ * uploads neither contend on those rows nor overwrite each other's counts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleMatchCounter {
+
+    private static final String FLUSH_SQL =
+            "UPDATE categorization_rules SET match_count = match_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /** Adds hits already aggregated by the caller (one call per rule per batch). */
+    public void add(Integer ruleId, long hits) {
+        pending.computeIfAbsent(ruleId, id -> new LongAdder()).add(hits);
+    }
+
+    /**
+     * Counts one hit for each stored row's matched rule, one {@link #add} per rule. Called
+     * once the rows have committed, so rows left out or rolled back are never counted.
+     */
+    public void addMatches(Collection<Transaction> rows) {
+        Map<Integer, Long> hits = new HashMap<>();
+        for (Transaction row : rows) {
+            if (row.getMatchedRuleId() != null)
+                hits.merge(row.getMatchedRuleId(), 1L, Long::sum);
+        }
+        hits.forEach(this::add);
+    }
+
+    /** Hits recorded since the last flush (not yet in the database). */
+    public long pendingCount(Integer ruleId) {
+        LongAdder adder = pending.get(ruleId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${statify.rules.match-count-flush-interval:30s}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Integer, LongAdder> entry : pending.entrySet()) {
+            // sumThenReset keeps increments that race with it; they land in the next flush
+            long hits = entry.getValue().sumThenReset();
+            if (hits > 0)
+                batch.add(new Object[] { hits, entry.getKey() });
+        }
+        if (batch.isEmpty())
+            return;
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        } catch (DataAccessException e) {
+            log.warn("Rule match count flush failed, retrying next cycle: {}", e.getMessage());
+            batch.forEach(row -> pending.computeIfAbsent((Integer) row[1], id -> new LongAdder()).add((Long) row[0]));
+            return;
+        }
+
+        // JDBC bypasses Hibernate: drop just the counted rules' cached rows so the rule list
+        // shows fresh counts. Cached queries keep ids only and stay valid; categorization
+        // never reads match_count.
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        batch.forEach(row -> cache.evictEntityData(CategorizationRule.class, row[1]));
+        log.debug("Flushed match counts for {} rules", batch.size());
+    }
+}
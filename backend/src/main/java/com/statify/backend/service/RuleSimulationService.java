@@ -0,0 +1,248 @@
+package com.statify.backend.service;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.dto.SimulationRequest;
+import com.statify.backend.dto.SimulationRequest.ProposedRule;
+import com.statify.backend.dto.SimulationResult;
+import com.statify.backend.dto.SimulationResult.RuleHits;
+import com.statify.backend.dto.SimulationResult.SampleChange;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.exception.InvalidRuleException;
+import com.statify.backend.exception.SimulationBusyException;
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.CategoryRepository;
+import com.statify.backend.repository.SimulationRepository;
+import com.statify.backend.rules.KeywordMatcher;
+import com.statify.backend.rules.RuleSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dry run of a proposed rule set: the current rules with the proposed ones overlaid are
+ * compiled into a throwaway snapshot and replayed over the most recent uploads. Each
+ * upload is streamed on a worker of the shared {@code simulationExecutor} in a read-only
+ * transaction (so it may be served by the replica); nothing is written and no entities are
+ * loaded for transactions. At most {@code maxConcurrent} simulations run at once; more are
+ * refused rather than queued behind them.
+ */
+@Service
+@RequiredArgsConstructor
+public class RuleSimulationService {
+
+    private static final int DEFAULT_UPLOADS = 5;
+    public static final int MAX_UPLOADS = 50;
+    private static final int SAMPLE_SIZE = 20;
+
+    private final CategorizationRuleRepository ruleRepository;
+    private final CategoryRepository categoryRepository;
+    private final SimulationRepository simulationRepository;
+    private final TokenClassifier tokenClassifier;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService simulationExecutor;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    /** Simulations allowed at once; their uploads share the executor's workers. */
+    @Value("${statify.rules.simulate-max-concurrent:2}")
+    private int maxConcurrent = 2;
+
+    public SimulationResult simulate(SimulationRequest req) {
+        long started = System.nanoTime();
+        Proposal proposal = propose(req.rules() != null ? req.rules() : List.of());
+        int limit = Math.clamp(req.uploads() != null ? req.uploads() : DEFAULT_UPLOADS, 1, MAX_UPLOADS);
+
+        if (running.incrementAndGet() > maxConcurrent) {
+            running.decrementAndGet();
+            throw new SimulationBusyException(maxConcurrent);
+        }
+        List<UUID> uploadIds;
+        Partial total = new Partial(proposal.snapshot().size());
+        List<Future<Partial>> futures = new ArrayList<>();
+        try {
+            uploadIds = simulationRepository.recentUploadIds(limit);
+            for (UUID uploadId : uploadIds)
+                futures.add(simulationExecutor.submit(() -> replay(uploadId, proposal.snapshot())));
+            for (Future<Partial> future : futures)
+                total.merge(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true)); // no-op once done; frees workers on failure
+            running.decrementAndGet();
+        }
+
+        List<RuleHits> hits = new ArrayList<>();
+        RuleSnapshot rules = proposal.snapshot();
+        for (int rank = 0; rank < rules.size(); rank++) {
+            Integer index = proposal.proposedIndex().get(rank);
+            if (total.hits[rank] == 0 && index == null)
+                continue; // untouched existing rules with no hits are noise
+            int ruleId = rules.ruleId(rank);
+            hits.add(new RuleHits(ruleId > 0 ? ruleId : null, index, proposal.keywords().get(rank),
+                    rules.categoryId(rank), total.hits[rank]));
+        }
+        hits.sort(Comparator.comparingLong(RuleHits::hits).reversed());
+
+        return new SimulationResult(uploadIds.size(), total.scanned, total.newlyCategorized, total.changed, hits,
+                total.samples, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Streams one upload and tallies what the proposed snapshot would do to it. */
+    private Partial replay(UUID uploadId, RuleSnapshot rules) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Partial partial = new Partial(rules.size());
+        Transaction txn = new Transaction(); // reused per row, the snapshot keeps no reference
+        Map<String, int[]> keywordHits = new HashMap<>(); // per-match-text memo, local to this upload
+        tx.executeWithoutResult(status -> simulationRepository.streamUpload(uploadId, rs -> {
+            partial.scanned++;
+            if (rs.getBoolean("is_override"))
+                return;
+            txn.setTxnDate(rs.getObject("txn_date", LocalDate.class));
+            txn.setDescription(rs.getString("description"));
+            txn.setMerchantKey(rs.getString("merchant_key"));
+            txn.setAmount(rs.getBigDecimal("amount"));
+            Integer current = rs.getObject("category_id", Integer.class);
+
+            int rank = rules.resolve(txn, keywordHits.computeIfAbsent(RuleSnapshot.matchText(txn), rules::keywordHits));
+            Integer proposed = null;
+            if (rank != KeywordMatcher.NO_MATCH) {
+                proposed = rules.categoryId(rank);
+                partial.hits[rank]++;
+            } else {
+                OptionalInt predicted = tokenClassifier.classify(txn);
+                if (predicted.isPresent())
+                    proposed = predicted.getAsInt();
+            }
+            if (Objects.equals(current, proposed))
+                return;
+            if (current == null)
+                partial.newlyCategorized++;
+            else
+                partial.changed++;
+            if (partial.samples.size() < SAMPLE_SIZE)
+                partial.samples.add(new SampleChange(rs.getObject("id", UUID.class), txn.getDescription(), current,
+                        proposed));
+        }));
+        return partial;
+    }
+
+    /**
+     * Current rules with the proposal overlaid, in priority order. New rules get negative
+     * ids so their hits can be told apart; conditions are validated as on a real save.
+     */
+    private Proposal propose(List<ProposedRule> proposedRules) {
+        List<CategorizationRule> current = ruleRepository.findAllWithCategories();
+        Map<Integer, CategorizationRule> currentById = new HashMap<>();
+        current.forEach(rule -> currentById.put(rule.getId(), rule));
+
+        Map<Integer, CategorizationRule> replacements = new HashMap<>();
+        List<CategorizationRule> added = new ArrayList<>();
+        Map<CategorizationRule, Integer> indexOf = new IdentityHashMap<>();
+        for (int i = 0; i < proposedRules.size(); i++) {
+            ProposedRule proposed = proposedRules.get(i);
+            if (proposed.rule() == null)
+                throw new InvalidRuleException("Proposed rule " + i + " has no rule body.");
+            CategorizationRule existing = proposed.id() != null ? currentById.get(proposed.id()) : null;
+            if (proposed.id() != null && existing == null)
+                throw new InvalidRuleException("Rule " + proposed.id() + " does not exist.");
+
+            CategorizationRule rule = toRule(proposed.rule(), existing);
+            indexOf.put(rule, i);
+            if (existing != null) {
+                rule.setId(existing.getId());
+                replacements.put(existing.getId(), rule);
+            } else {
+                rule.setId(-(i + 1));
+                added.add(rule);
+            }
+        }
+
+        // Replacements keep their slot, new rules go last; the stable sort then orders by priority
+        List<CategorizationRule> rules = new ArrayList<>(current.size() + added.size());
+        for (CategorizationRule rule : current)
+            rules.add(replacements.getOrDefault(rule.getId(), rule));
+        rules.addAll(added);
+        rules.sort(Comparator.comparing(CategorizationRule::getPriority).reversed());
+
+        List<Integer> proposedIndex = new ArrayList<>(rules.size());
+        List<String> keywords = new ArrayList<>(rules.size());
+        for (CategorizationRule rule : rules) {
+            proposedIndex.add(indexOf.get(rule));
+            keywords.add(rule.getKeyword());
+        }
+        return new Proposal(RuleSnapshot.compile(0, rules), proposedIndex, keywords);
+    }
+
+    private CategorizationRule toRule(RuleRequest req, CategorizationRule existing) {
+        CategorizationRule rule = new CategorizationRule();
+        RuleService.applyConditions(rule, req);
+        if (req.categoryId() != null) {
+            Category category = categoryRepository.findById(req.categoryId())
+                    .orElseThrow(() -> new InvalidRuleException("Category " + req.categoryId() + " does not exist."));
+            rule.setCategory(category);
+        } else if (existing != null) {
+            rule.setCategory(existing.getCategory());
+        } else {
+            throw new InvalidRuleException("A new rule needs a categoryId.");
+        }
+        rule.setPriority(req.priority() != null ? req.priority() : existing != null ? existing.getPriority() : 0);
+        return rule;
+    }
+
+    /** {@code proposedIndex} and {@code keywords} are per snapshot rank. */
+    private record Proposal(RuleSnapshot snapshot, List<Integer> proposedIndex, List<String> keywords) {
+    }
+
+    /** Tallies of one upload; merged on the calling thread. */
+    private static final class Partial {
+        final long[] hits;
+        long scanned;
+        long newlyCategorized;
+        long changed;
+        final List<SampleChange> samples = new ArrayList<>();
+
+        Partial(int rules) {
+            this.hits = new long[rules];
+        }
+
+        void merge(Partial other) {
+            for (int i = 0; i < hits.length; i++)
+                hits[i] += other.hits[i];
+            scanned += other.scanned;
+            newlyCategorized += other.newlyCategorized;
+            changed += other.changed;
+            for (SampleChange sample : other.samples) {
+                if (samples.size() < SAMPLE_SIZE)
+                    samples.add(sample);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- V11: Indexes for re-categorizing history after a rule change without scanning every row.
+-- Trigram GIN over the text rules match against, COALESCE(merchant_key, description),
+-- answers keyword containment (ILIKE '%kw%') for re-categorization and match-text equality
+-- for bulk override; the btree finds merchant-key rules' rows, and the partial index on
+-- matched_rule_id the rows a rule currently owns.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_match_text_trgm
+    ON transactions USING gin ((COALESCE(merchant_key, description)) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_merchant_key
+    ON transactions (merchant_key) WHERE merchant_key IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_matched_rule
+    ON transactions (matched_rule_id) WHERE matched_rule_id IS NOT NULL;
+
+-- A deleted rule's rows are handed to the remaining rules after the delete commits, in
+-- batches; until then they still name it, so matched_rule_id is no longer a foreign key
+ALTER TABLE transactions DROP CONSTRAINT IF EXISTS transactions_matched_rule_id_fkey;
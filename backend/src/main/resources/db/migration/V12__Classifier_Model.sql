@@ -0,0 +1,36 @@
+-- V12: Persisted token-frequency classifier, updated in place by every override.
+-- A match text (merchant key, else normalized description) teaches a category once,
+-- however many overridden rows carry it: classifier_examples counts those rows, and a
+-- text's tokens are added to the counts when its first row arrives and taken back when
+-- its last row leaves. Counts are additive upserts, so instances never overwrite each
+-- other; each instance loads the counts at startup and re-reads the recently changed ones.
+
+CREATE TABLE IF NOT EXISTS classifier_examples (
+    match_text    TEXT    NOT NULL,
+    category_id   INTEGER NOT NULL,
+    override_rows INTEGER NOT NULL,
+    PRIMARY KEY (match_text, category_id)
+);
+
+-- Per category: distinct match texts (the prior) ...
+CREATE TABLE IF NOT EXISTS classifier_categories (
+    category_id INTEGER     PRIMARY KEY,
+    examples    INTEGER     NOT NULL,
+    updated_at  TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- ... and per token, the distinct match texts containing it (the likelihoods)
+CREATE TABLE IF NOT EXISTS classifier_tokens (
+    token       TEXT        NOT NULL,
+    category_id INTEGER     NOT NULL,
+    examples    INTEGER     NOT NULL,
+    updated_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (token, category_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_classifier_categories_updated ON classifier_categories (updated_at);
+CREATE INDEX IF NOT EXISTS idx_classifier_tokens_updated ON classifier_tokens (updated_at);
+
+-- Overrides made before the classifier existed seed it once, on first startup
+CREATE INDEX IF NOT EXISTS idx_transactions_override
+    ON transactions (category_id) WHERE is_override = TRUE AND category_id IS NOT NULL;
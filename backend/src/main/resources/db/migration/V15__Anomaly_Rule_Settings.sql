@@ -0,0 +1,13 @@
+-- V15: Per-account overrides for anomaly rules. A missing row, or a missing entry in
+-- params, means the rule's built-in default; severity NULL keeps the rule's own.
+
+CREATE TABLE IF NOT EXISTS anomaly_rule_settings (
+    id          SERIAL      PRIMARY KEY,
+    account_key VARCHAR(64) NOT NULL,
+    rule_name   VARCHAR(50) NOT NULL,
+    enabled     BOOLEAN     NOT NULL DEFAULT TRUE,
+    severity    VARCHAR(10)          CHECK (severity IN ('LOW', 'MEDIUM', 'HIGH')),
+    params      JSONB       NOT NULL DEFAULT '{}',  -- threshold name → value
+    updated_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    UNIQUE (account_key, rule_name)
+);
@@ -0,0 +1,5 @@
+-- V16: Fingerprint of the uploaded file, so a resume can refuse a different file.
+-- row_count is now set as soon as the file is parsed; uploads from before this
+-- migration have neither and are resumed unchecked.
+
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS file_sha256 CHAR(64);
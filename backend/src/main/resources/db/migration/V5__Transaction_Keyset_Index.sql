@@ -0,0 +1,6 @@
+-- V5: Keyset pagination orders by (txn_date, id) within an upload.
+-- Extending the composite index with id lets every page be an index range scan
+-- that stops after LIMIT rows, with no sort step.
+
+CREATE INDEX IF NOT EXISTS idx_transactions_upload_date_id ON transactions (upload_id, txn_date, id);
+DROP INDEX IF EXISTS idx_transactions_upload_date;
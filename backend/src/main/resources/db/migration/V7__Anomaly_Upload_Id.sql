@@ -0,0 +1,21 @@
+-- V7: Denormalize upload_id onto anomalies for the review page
+
+ALTER TABLE anomalies ADD COLUMN IF NOT EXISTS upload_id UUID;
+
+UPDATE anomalies a
+SET upload_id = t.upload_id
+FROM transactions t
+WHERE t.id = a.transaction_id AND a.upload_id IS NULL;
+
+-- Orphans left behind while the FK was missing (V4) have no upload to belong to
+DELETE FROM anomalies WHERE upload_id IS NULL;
+
+ALTER TABLE anomalies ALTER COLUMN upload_id SET NOT NULL;
+
+-- Restores the FK dropped in V4, now against the partitioned (upload_id, id) key
+ALTER TABLE anomalies
+    ADD CONSTRAINT anomalies_upload_transaction_fkey
+    FOREIGN KEY (upload_id, transaction_id) REFERENCES transactions (upload_id, id) ON DELETE CASCADE;
+
+-- Review page: WHERE upload_id = ? [AND status = ?], grouped by severity
+CREATE INDEX IF NOT EXISTS idx_anomalies_upload_status_severity ON anomalies (upload_id, status, severity);
@@ -0,0 +1,4 @@
+-- V9: Canonical merchant key (description minus reference numbers, dates, terminal ids)
+-- Written at ingest by the application; NULL on rows ingested before this migration.
+
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS merchant_key TEXT;
@@ -0,0 +1,108 @@
+package com.statify.backend.benchmark;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.repository.ClassifierModelRepository;
+import com.statify.backend.rules.CategorizationMemo;
+import com.statify.backend.rules.RuleSnapshot;
+import com.statify.backend.rules.RuleSnapshotHolder;
+import com.statify.backend.service.CategorizationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Sequential vs fork/join categorization of a 200k-row archive import against 2,000
+ * rules. Raw descriptions (no merchant key) so every row pays for a real automaton scan.
+ *
+ * <pre>
+ * mvn -q test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.statify.backend.benchmark.CategorizationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategorizationBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int RULES = 2_000;
+
+    private CategorizationService sequential;
+    private CategorizationService parallel;
+    private RuleSnapshot rules;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        Category category = new Category();
+        category.setId(1);
+        List<CategorizationRule> ruleList = new ArrayList<>();
+        for (int i = 0; i < RULES; i++) {
+            CategorizationRule rule = new CategorizationRule();
+            rule.setId(i + 1);
+            rule.setKeyword("MERCHANT" + i);
+            rule.setCategory(category);
+            ruleList.add(rule);
+        }
+        rules = RuleSnapshot.compile(1, ruleList);
+
+        transactions = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Transaction t = new Transaction();
+            t.setTxnDate(LocalDate.of(2026, 1, 1));
+            t.setDescription("POS MERCHANT" + random.nextInt(RULES * 2) + " BRANCH " + random.nextInt(99)
+                    + " REF " + random.nextInt(1_000_000));
+            t.setAmount(new BigDecimal("-120.00"));
+            transactions.add(t);
+        }
+
+        sequential = service(Integer.MAX_VALUE);
+        parallel = service(10_000);
+    }
+
+    private static CategorizationService service(int parallelThreshold) {
+        CategorizationService service = new CategorizationService(mock(RuleSnapshotHolder.class),
+                new CategorizationMemo(1, new SimpleMeterRegistry()),
+                new TokenClassifier(mock(ClassifierModelRepository.class), mock(PlatformTransactionManager.class)),
+                null, null, null);
+        ReflectionTestUtils.setField(service, "parallelThreshold", parallelThreshold);
+        return service;
+    }
+
+    @Benchmark
+    public List<Transaction> sequential() {
+        sequential.categorizeTransactions(transactions, rules);
+        return transactions;
+    }
+
+    @Benchmark
+    public List<Transaction> forkJoin() {
+        parallel.categorizeTransactions(transactions, rules);
+        return transactions;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CategorizationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.statify.backend.benchmark;
+
+import com.statify.backend.anomaly.AnomalyRuleEngine;
+import com.statify.backend.anomaly.DuplicateRule;
+import com.statify.backend.anomaly.LargeAmountRule;
+import com.statify.backend.anomaly.UnusualAmountRule;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.Upload;
+import com.statify.backend.repository.AmountStatsRepository;
+import com.statify.backend.repository.AnomalyRuleSettingRepository;
+import com.statify.backend.repository.BulkInsertRepository;
+import com.statify.backend.service.AnomalyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Anomaly detection over statements of growing size. Time per row should stay flat
+ * across {@code rows} (linear total); the old pairwise duplicate check grew with n².
+ * About 2% of rows are repeated so duplicate groups exist.
+ *
+ * <pre>
+ * mvn -q test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.statify.backend.benchmark.DuplicateDetectionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DuplicateDetectionBenchmark {
+
+    @Param({ "10000", "50000", "200000" })
+    private int rows;
+
+    private AnomalyService service;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        Upload upload = new Upload();
+        upload.setId(UUID.randomUUID());
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        transactions = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Transaction t = new Transaction();
+            t.setId(UUID.randomUUID());
+            t.setUpload(upload);
+            if (i > 0 && random.nextInt(50) == 0) {
+                Transaction repeated = transactions.get(random.nextInt(i));
+                t.setTxnDate(repeated.getTxnDate());
+                t.setDescription(repeated.getDescription());
+                t.setMerchantKey(repeated.getMerchantKey());
+                t.setAmount(repeated.getAmount());
+            } else {
+                int merchant = random.nextInt(5_000);
+                t.setTxnDate(start.plusDays(random.nextInt(365)));
+                t.setDescription("POS MERCHANT" + merchant + " REF " + random.nextInt(1_000_000));
+                t.setMerchantKey("POS MERCHANT" + merchant);
+                t.setAmount(new BigDecimal(-random.nextInt(500_000)).movePointLeft(2));
+            }
+            transactions.add(t);
+        }
+        AnomalyRuleEngine engine = new AnomalyRuleEngine(
+                List.of(new LargeAmountRule(), new DuplicateRule(), new UnusualAmountRule()),
+                mock(AnomalyRuleSettingRepository.class), mock(AmountStatsRepository.class));
+        service = new AnomalyService(mock(BulkInsertRepository.class), null, null, null, engine);
+    }
+
+    @Benchmark
+    public int detect() {
+        return service.detectAnomalies("default", transactions, Set.of());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DuplicateDetectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
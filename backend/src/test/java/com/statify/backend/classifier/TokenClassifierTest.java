@@ -0,0 +1,217 @@
+package com.statify.backend.classifier;
+
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.repository.ClassifierModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Learning and refresh against a fake of the stored counts: maps with the repository's
+ * additive semantics, shared by every classifier built on it.
+ */
+class TokenClassifierTest {
+
+    private final Map<List<Object>, Integer> examples = new HashMap<>();
+    private final Map<List<Object>, Integer> tokens = new HashMap<>();
+    private final Map<Integer, Integer> categories = new HashMap<>();
+    private final ClassifierModelRepository repository = mock(ClassifierModelRepository.class);
+    private TokenClassifier classifier;
+
+    private static Transaction txn(String merchantKey) {
+        Transaction t = new Transaction();
+        t.setDescription(merchantKey + " 0091");
+        t.setMerchantKey(merchantKey);
+        return t;
+    }
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setup() {
+        when(repository.addOverrideRows(anyString(), anyInt(), anyInt())).thenAnswer(inv -> {
+            int after = examples.merge(List.of(inv.getArgument(0), inv.getArgument(1)), inv.getArgument(2),
+                    Integer::sum);
+            return Math.max(0, after);
+        });
+        when(repository.addTokens(any(), anyInt(), anyInt())).thenAnswer(inv -> {
+            Map<String, Integer> after = new HashMap<>();
+            for (String token : (Collection<String>) inv.getArgument(0))
+                after.put(token, tokens.merge(List.of(token, inv.getArgument(1)), inv.getArgument(2), Integer::sum));
+            return after;
+        });
+        when(repository.addExamples(anyInt(), anyInt()))
+                .thenAnswer(inv -> categories.merge(inv.getArgument(0), inv.getArgument(1), Integer::sum));
+        classifier = classifier();
+    }
+
+    private TokenClassifier classifier() {
+        TokenClassifier c = new TokenClassifier(repository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(c, "minExamples", 4);
+        ReflectionTestUtils.setField(c, "minConfidence", 0.7);
+        return c;
+    }
+
+    private void teach() {
+        classifier.learn(txn("STARBUCKS SIAM"), 1);
+        classifier.learn(txn("STARBUCKS ASOKE"), 1);
+        classifier.learn(txn("BTS SIAM"), 2);
+        classifier.learn(txn("BTS ASOKE"), 2);
+    }
+
+    /** Serves the fake's contents as the stored counts, every row on every read. */
+    private void storeServesCounts() {
+        when(repository.now()).thenReturn(OffsetDateTime.now());
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (Map.Entry<Integer, Integer> e : categories.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getInt("category_id")).thenReturn(e.getKey());
+                when(rs.getInt("examples")).thenReturn(e.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(repository).forEachCategory(any(), any());
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (Map.Entry<List<Object>, Integer> e : tokens.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("token")).thenReturn((String) e.getKey().get(0));
+                when(rs.getInt("category_id")).thenReturn((Integer) e.getKey().get(1));
+                when(rs.getInt("examples")).thenReturn(e.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(repository).forEachToken(any(), any());
+    }
+
+    @Test
+    @DisplayName("predicts the category whose tokens dominate once enough examples are learned")
+    void learns_from_overrides() {
+        classifier.learn(txn("STARBUCKS SIAM"), 1);
+        assertTrue(classifier.classify(txn("STARBUCKS SIAM")).isEmpty(), "below min-examples");
+
+        classifier.learn(txn("STARBUCKS ASOKE"), 1);
+        classifier.learn(txn("BTS SIAM"), 2);
+        classifier.learn(txn("BTS ASOKE"), 2);
+
+        assertEquals(OptionalInt.of(1), classifier.classify(txn("STARBUCKS CHIDLOM")));
+        assertEquals(OptionalInt.of(2), classifier.classify(txn("BTS CHIDLOM")));
+        assertTrue(classifier.classify(txn("SIAM")).isEmpty(), "evenly split token is not confident");
+        assertTrue(classifier.classify(txn("UNKNOWN SHOP")).isEmpty(), "no known tokens");
+    }
+
+    @Test
+    @DisplayName("unlearning an override takes its counts back")
+    void unlearn_reverts() {
+        teach();
+        classifier.learn(txn("BTS SIAM"), 1);
+        classifier.unlearn(txn("BTS SIAM"), 1);
+
+        assertEquals(OptionalInt.of(2), classifier.classify(txn("BTS")));
+    }
+
+    @Test
+    @DisplayName("a text counts once however many rows carry it, until its last row is taken back")
+    void text_counts_once() {
+        teach();
+        classifier.learn(txn("BTS SIAM"), 2);
+        classifier.adjust("BTS SIAM", 2, 5); // a bulk override of five more rows
+
+        assertEquals(2, tokens.get(List.of("BTS", 2)), "BTS SIAM and BTS ASOKE, one each");
+        assertEquals(2, categories.get(2));
+
+        classifier.unlearn(txn("BTS SIAM"), 2);
+        assertEquals(1, tokens.get(List.of("SIAM", 2)), "other rows still carry BTS SIAM");
+
+        classifier.adjust("BTS SIAM", 2, -6);
+        assertEquals(0, tokens.get(List.of("SIAM", 2)));
+        assertEquals(1, tokens.get(List.of("BTS", 2)));
+        assertEquals(1, categories.get(2));
+    }
+
+    @Test
+    @DisplayName("tokens come from the match text, dropping one-character fragments")
+    void tokenizes_match_text() {
+        assertEquals(List.of("7-ELEVEN", "SUKHUMVIT"), TokenClassifier.tokens("7-ELEVEN A SUKHUMVIT"));
+    }
+
+    @Test
+    @DisplayName("a refresh takes the counts other instances stored")
+    void refresh_reads_stored_counts() {
+        teach(); // on another instance
+        storeServesCounts();
+        TokenClassifier other = classifier();
+        when(repository.lockIfEmpty()).thenReturn(false);
+
+        other.refresh();
+        assertEquals(OptionalInt.of(1), other.classify(txn("STARBUCKS CHIDLOM")));
+
+        for (String station : List.of("SAMYAN", "SILOM", "LUMPINI", "KHLONGTOEI"))
+            classifier.learn(txn("MRT " + station), 3);
+        other.refresh();
+        assertEquals(OptionalInt.of(3), other.classify(txn("MRT")), "counts changed since the first refresh");
+        verify(repository).forEachToken(eq(null), any());
+    }
+
+    @Test
+    @DisplayName("the first refresh seeds an empty store from existing overrides, each text once per category")
+    void seeds_from_overrides() throws Exception {
+        storeServesCounts();
+        when(repository.lockIfEmpty()).thenReturn(true);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(0);
+            Object[][] stored = { { "STARBUCKS SIAM", null, 1, 3 }, { null, "starbucks asoke 12/03", 1, 1 },
+                    { "BTS SIAM", null, 2, 2 }, { "BTS ASOKE", null, 2, 1 } };
+            for (Object[] row : stored) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("merchant_key")).thenReturn((String) row[0]);
+                when(rs.getString("description")).thenReturn((String) row[1]);
+                when(rs.getInt("category_id")).thenReturn((Integer) row[2]);
+                when(rs.getInt("override_rows")).thenReturn((Integer) row[3]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(repository).forEachOverride(any());
+
+        classifier.refresh();
+
+        assertEquals(3, examples.get(List.of("STARBUCKS SIAM", 1)));
+        assertEquals(1, examples.get(List.of("STARBUCKS ASOKE", 1)), "keyless rows use the normalized description");
+        assertEquals(2, tokens.get(List.of("STARBUCKS", 1)));
+        assertEquals(OptionalInt.of(1), classifier.classify(txn("STARBUCKS CHIDLOM")));
+    }
+
+    @Test
+    @DisplayName("inside a transaction an override is learned only once it commits")
+    void learns_after_commit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            teach();
+            assertTrue(classifier.classify(txn("STARBUCKS CHIDLOM")).isEmpty(), "not committed yet");
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(OptionalInt.of(1), classifier.classify(txn("STARBUCKS CHIDLOM")));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.statify.backend.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing against two embedded H2 databases, each holding a marker row naming itself,
+ * so a query reveals which one served it.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private ReplicaLagGuard lagGuard;
+
+    private static DataSource node(String name) {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate init = new JdbcTemplate(ds);
+        init.execute("CREATE TABLE node (name VARCHAR(16))");
+        init.update("INSERT INTO node VALUES (?)", name);
+        return ds;
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource routing = ReplicaRoutingDataSource.create(node("primary"), node("replica"));
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(routing);
+        jdbc = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(txManager);
+        readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+        lagGuard = new ReplicaLagGuard();
+    }
+
+    private String servedBy() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    @Test
+    @DisplayName("readOnly transactions are served by the replica")
+    void read_only_goes_to_replica() {
+        assertEquals("replica", readOnly.execute(status -> servedBy()));
+    }
+
+    @Test
+    @DisplayName("read-write transactions and non-transactional access use the primary")
+    void writes_go_to_primary() {
+        assertEquals("primary", readWrite.execute(status -> servedBy()));
+        assertEquals("primary", servedBy());
+    }
+
+    @Test
+    @DisplayName("reads of a just-written upload fall back to the primary, then return to the replica")
+    void recent_write_pins_read_to_primary() {
+        UUID uploadId = UUID.randomUUID();
+        lagGuard.markWritten(uploadId);
+
+        assertEquals("primary", readOnly.execute(status -> {
+            lagGuard.routeFor(uploadId);
+            return servedBy();
+        }));
+        assertEquals("replica", readOnly.execute(status -> {
+            lagGuard.routeFor(UUID.randomUUID());
+            return servedBy();
+        }));
+    }
+}
@@ -0,0 +1,47 @@
+package com.statify.backend.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("sets version 7 and the IETF variant")
+    void sets_version_and_variant() {
+        UUID id = UuidV7Generator.next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    @DisplayName("embeds the current unix millis in the top 48 bits")
+    void embeds_timestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1, "timestamp out of range: " + millis);
+    }
+
+    @Test
+    @DisplayName("ids drawn in a tight loop are unique and strictly increasing")
+    void strictly_increasing() {
+        Set<UUID> seen = new HashSet<>();
+        UUID previous = UuidV7Generator.next();
+        for (int i = 0; i < 50_000; i++) {
+            UUID next = UuidV7Generator.next();
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+                    "ids must sort by generation order");
+            assertTrue(seen.add(next));
+            previous = next;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.repository.BulkInsertRepository.CsvRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The COPY csv encoding. Records are read back with PostgreSQL's csv rules (quoted fields,
+ * doubled quotes, unquoted empty = NULL) so user-supplied descriptions survive intact.
+ */
+class CsvRowTest {
+
+    private static String encode(Object... values) {
+        CsvRow row = new CsvRow();
+        for (Object value : values)
+            row.add(value);
+        row.end();
+        return row.buffer.toString();
+    }
+
+    /** PostgreSQL COPY ... (FORMAT csv) parsing of a single record, without the trailing newline. */
+    private static List<String> decode(String record) {
+        assertTrue(record.endsWith("\n"), "record must end with a newline");
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        for (int i = 0; i < record.length() - 1; i++) {
+            char c = record.charAt(i);
+            if (inQuotes) {
+                if (c == '"' && i + 1 < record.length() - 1 && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.isEmpty() && !quoted ? null : field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else {
+                assertNotEquals('\n', c, "unquoted newline splits the record");
+                field.append(c);
+            }
+        }
+        assertFalse(inQuotes, "unterminated quote");
+        fields.add(field.isEmpty() && !quoted ? null : field.toString());
+        return fields;
+    }
+
+    @Test
+    @DisplayName("quotes, commas, newlines and backslashes round-trip as literal text")
+    void special_characters_round_trip() {
+        String[] descriptions = {
+                "SAY \"HELLO\" CAFE",
+                "KFC, CENTRAL WORLD",
+                "LINE ONE\nLINE TWO",
+                "CRLF\r\nROW",
+                "C:\\PATH\\N",
+                "\\.",
+                "\\N",
+                "\"",
+                "ร้านกาแฟ, สาขา \"สยาม\"",
+        };
+        for (String description : descriptions)
+            assertEquals(Arrays.asList("a", description, "z"), decode(encode("a", description, "z")), description);
+    }
+
+    @Test
+    @DisplayName("null is an unquoted empty field; an empty string stays distinct from it")
+    void null_and_empty_string_differ() {
+        String encoded = encode(null, "", 7, null);
+
+        assertEquals(",\"\",7,\n", encoded);
+        assertEquals(Arrays.asList(null, "", "7", null), decode(encoded));
+    }
+
+    @Test
+    @DisplayName("amounts are written in plain notation, never scientific")
+    void big_decimal_plain_string() {
+        assertEquals("1000,-0.0000001\n", encode(new BigDecimal("1E+3"), new BigDecimal("-1E-7")));
+    }
+
+    @Test
+    @DisplayName("a row can be reused after end(); records are newline-separated")
+    void reuse_after_end() {
+        CsvRow row = new CsvRow();
+        row.add("A").add(1).end();
+        row.add("B").add(2).end();
+
+        assertEquals("\"A\",1\n\"B\",2\n", row.buffer.toString());
+    }
+}
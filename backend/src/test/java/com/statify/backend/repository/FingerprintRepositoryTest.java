@@ -0,0 +1,102 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.entity.Upload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ownership against failed uploads. The fingerprint table has no entity, so it is created
+ * here as V13 defines it.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(FingerprintRepository.class)
+class FingerprintRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FingerprintRepository fingerprintRepository;
+
+    private UUID upload(String status) {
+        Upload upload = new Upload();
+        upload.setFilename("statement.csv");
+        upload.setFileType("csv");
+        upload.setStatus(status);
+        em.persist(upload);
+        em.flush();
+        return upload.getId();
+    }
+
+    private void fingerprint(long fingerprint, UUID uploadId) {
+        jdbcTemplate.update("INSERT INTO transaction_fingerprints (account_key, fingerprint, upload_id) VALUES (?, ?, ?)",
+                "acct-1", fingerprint, uploadId);
+    }
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS transaction_fingerprints ("
+                + " account_key VARCHAR(64) NOT NULL, fingerprint BIGINT NOT NULL,"
+                + " upload_id UUID NOT NULL REFERENCES uploads(id) ON DELETE CASCADE,"
+                + " PRIMARY KEY (account_key, fingerprint))");
+    }
+
+    @Test
+    @DisplayName("failed uploads own nothing, and their fingerprints move to the upload that takes them over")
+    void failed_owner_is_taken_over() {
+        UUID completed = upload("completed");
+        UUID processing = upload("processing");
+        UUID failed = upload("failed");
+        UUID retry = upload("processing");
+        fingerprint(1, completed);
+        fingerprint(2, processing);
+        fingerprint(3, failed);
+
+        assertEquals(Map.of(1L, completed, 2L, processing),
+                fingerprintRepository.findOwners("acct-1", List.of(1L, 2L, 3L, 4L)));
+
+        assertEquals(Set.of(3L), fingerprintRepository.takeOverFailed("acct-1", retry, List.of(2L, 3L, 4L)));
+        assertEquals(Map.of(3L, retry), fingerprintRepository.findOwners("acct-1", List.of(3L)));
+        assertTrue(fingerprintRepository.takeOverFailed("acct-1", upload("processing"), List.of(3L)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("an upload whose rows were taken over can no longer be resumed, and a later save keeps it so")
+    void taken_over_upload_is_not_resumable() {
+        UUID failed = upload("failed");
+        UUID untouched = upload("failed");
+        fingerprint(1, failed);
+        fingerprint(2, untouched);
+
+        fingerprintRepository.takeOverFailed("acct-1", upload("processing"), List.of(1L));
+        em.clear();
+        Upload takenOver = em.find(Upload.class, failed);
+        assertFalse(takenOver.isResumable());
+        assertTrue(em.find(Upload.class, untouched).isResumable());
+
+        takenOver.setResumable(true);
+        takenOver.setStatus("processing");
+        em.flush();
+        em.clear();
+        assertFalse(em.find(Upload.class, failed).isResumable());
+    }
+}
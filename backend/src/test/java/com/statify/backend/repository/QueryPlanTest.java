@@ -0,0 +1,163 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.dto.AnomalyView;
+import com.statify.backend.entity.Anomaly;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.Upload;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-plan regression: the SQL Hibernate actually generates for the dashboard read
+ * paths must be answered by an index lookup on the upload key, never a table scan.
+ * Runs against embedded H2, which also indexes FK columns on its own, so the test
+ * asserts an index seek on the filtered column rather than a specific index name.
+ *
+ * <p>The schema here comes from the entities (ddl-auto), not the Flyway migrations: it is
+ * neither partitioned nor keyed by (upload_id, id), so {@code id} is the primary key and
+ * lookups by id alone always look cheap. Those paths (findById, bulk override and
+ * re-categorization by id list) rely on V17's
+ * idx_transactions_id on PostgreSQL and have to be checked there with EXPLAIN; this test
+ * cannot catch a missing index for them.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.statify.backend.repository.QueryPlanTest$SqlCapture"
+})
+class QueryPlanTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AnomalyRepository anomalyRepository;
+
+    private UUID uploadId;
+
+    /** Records every statement Hibernate prepares so the test can EXPLAIN it. */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        Upload upload = new Upload();
+        upload.setFilename("statement.csv");
+        upload.setFileType("csv");
+        em.persist(upload);
+        uploadId = upload.getId();
+
+        for (int i = 0; i < 50; i++) {
+            Transaction t = new Transaction();
+            t.setUpload(upload);
+            t.setTxnDate(LocalDate.of(2026, 1, 1).plusDays(i % 28));
+            t.setDescription("KFC RAMA 9 REF " + i);
+            t.setAmount(new BigDecimal("-120.00"));
+            em.persist(t);
+
+            if (i % 10 == 0) {
+                Anomaly a = new Anomaly();
+                a.setUploadId(uploadId);
+                a.setTransaction(t);
+                a.setRuleName("Large Amount");
+                a.setSeverity("MEDIUM");
+                em.persist(a);
+            }
+        }
+        em.flush();
+        em.clear();
+        jdbcTemplate.execute("ANALYZE");
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("findByUploadIdOrderByTxnDate seeks on transactions.upload_id")
+    void transactions_by_upload_use_index() {
+        transactionRepository.findByUploadIdOrderByTxnDate(uploadId);
+
+        String plan = explain(lastStatement("transactions"), uploadId);
+        assertNoTableScan(plan);
+        assertTrue(plan.contains("UPLOAD_ID = ?1 */"), plan);
+    }
+
+    @Test
+    @DisplayName("TransactionView projection seeks on transactions.upload_id without joining uploads")
+    void transaction_views_use_index() {
+        transactionRepository.findViewsByUploadId(uploadId);
+
+        String plan = explain(lastStatement("transactions"), uploadId);
+        assertNoTableScan(plan);
+        assertFalse(plan.contains("UPLOADS"), plan);
+        assertTrue(plan.contains("UPLOAD_ID = ?1 */"), plan);
+    }
+
+    @Test
+    @DisplayName("keyset continuation seeks on the upload and orders by the (txn_date, id) index")
+    void keyset_page_uses_index() {
+        transactionRepository.findPageAfter(uploadId, LocalDate.of(2026, 1, 10), new UUID(0, 0),
+                null, null, Limit.of(100));
+
+        String plan = explain(lastStatement("transactions"),
+                uploadId, LocalDate.of(2026, 1, 10), new UUID(0, 0), null, null, null, null);
+        assertNoTableScan(plan);
+        assertTrue(plan.contains("IDX_TRANSACTIONS_UPLOAD_DATE_ID"), plan);
+    }
+
+    @Test
+    @DisplayName("anomaly review seeks idx_anomalies_upload_status_severity without joining uploads")
+    void anomaly_views_use_upload_index() {
+        List<AnomalyView> views = anomalyRepository.findViewsByUploadId(uploadId);
+
+        assertEquals(5, views.size());
+        assertEquals(1, SqlCapture.STATEMENTS.size(), "review page must be served by one query");
+        assertTrue(views.get(0).transaction().description().startsWith("KFC"));
+        String plan = explain(lastStatement("anomalies"), uploadId, uploadId);
+        assertNoTableScan(plan);
+        assertFalse(plan.contains("UPLOADS"), plan);
+        assertTrue(plan.contains("IDX_ANOMALIES_UPLOAD_STATUS_SEVERITY"), plan);
+    }
+
+    private static void assertNoTableScan(String plan) {
+        assertFalse(plan.contains(".TABLESCAN"), plan);
+    }
+
+    private String lastStatement(String table) {
+        return SqlCapture.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().contains(table))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("No statement captured for " + table));
+    }
+
+    private String explain(String sql, Object... args) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args).toUpperCase();
+    }
+}
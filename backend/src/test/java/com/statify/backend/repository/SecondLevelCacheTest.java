@@ -0,0 +1,143 @@
+package com.statify.backend.repository;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import jakarta.persistence.EntityManagerFactory;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Categories and rules are served from the 2nd-level/query cache after the first
+ * load, and a rule write through JPA invalidates the cached rule list. Runs outside a
+ * test transaction: Hibernate will not cache query results over uncommitted writes.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategorizationRuleRepository ruleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void seed() {
+        Category food = new Category();
+        food.setName("Food");
+        categoryRepository.save(food);
+
+        CategorizationRule rule = new CategorizationRule();
+        rule.setKeyword("KFC");
+        rule.setCategory(food);
+        ruleRepository.save(rule);
+
+        emf.getCache().evictAll();
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ruleRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("rule list is fetched once, then served from cache with categories initialized")
+    void rules_served_from_cache() {
+        ruleRepository.findAllWithCategories();
+        long queries = stats.getPrepareStatementCount();
+
+        List<CategorizationRule> rules = ruleRepository.findAllWithCategories();
+
+        assertEquals(queries, stats.getPrepareStatementCount(), "second lookup must not hit the database");
+        assertEquals(1, stats.getQueryCacheHitCount());
+        assertTrue(Hibernate.isInitialized(rules.get(0).getCategory()));
+        assertEquals("Food", rules.get(0).getCategory().getName());
+    }
+
+    @Test
+    @DisplayName("categories findAll is served from the query cache")
+    void categories_served_from_cache() {
+        categoryRepository.findAll();
+        long queries = stats.getPrepareStatementCount();
+
+        assertEquals(1, categoryRepository.findAll().size());
+        assertEquals(queries, stats.getPrepareStatementCount());
+        assertEquals(1, stats.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("a rule write invalidates the cached rule list")
+    void rule_write_invalidates_query_cache() {
+        ruleRepository.findAllWithCategories();
+
+        CategorizationRule extra = new CategorizationRule();
+        extra.setKeyword("GRAB");
+        extra.setCategory(categoryRepository.findAll().get(0));
+        ruleRepository.save(extra);
+
+        assertEquals(2, ruleRepository.findAllWithCategories().size());
+    }
+
+    @Test
+    @DisplayName("the uncached rule load sees a rule written behind Hibernate's back, as by another instance")
+    void uncached_load_sees_foreign_write() {
+        ruleRepository.findAllWithCategories();
+        Integer categoryId = categoryRepository.findAll().get(0).getId();
+        jdbcTemplate.update("INSERT INTO categorization_rules (keyword, category_id, priority, match_count, is_system, created_at)"
+                + " VALUES ('GRAB', ?, 0, 0, FALSE, CURRENT_TIMESTAMP)", categoryId);
+
+        assertEquals(1, ruleRepository.findAllWithCategories().size(), "cached list does not know the write");
+        assertEquals(2, ruleRepository.findAllWithCategoriesUncached().size());
+    }
+
+    @Test
+    @DisplayName("every cache region is size-bounded except update timestamps")
+    void regions_are_bounded() {
+        ruleRepository.findAllWithCategories();
+        categoryRepository.findAll();
+
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        List<String> regions = new ArrayList<>();
+        manager.getCacheNames().forEach(regions::add);
+        assertTrue(regions.contains(Category.class.getName()), regions.toString());
+        for (String region : regions) {
+            OptionalLong maximum = manager.getCache(region).getConfiguration(CaffeineConfiguration.class)
+                    .getMaximumSize();
+            assertEquals(!region.equals("default-update-timestamps-region"), maximum.isPresent(), region);
+        }
+    }
+}
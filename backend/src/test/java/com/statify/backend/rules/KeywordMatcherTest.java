@@ -0,0 +1,112 @@
+package com.statify.backend.rules;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    /** The loop KeywordMatcher replaces: first keyword in list order contained in the text. */
+    private static int naiveFirstMatch(List<String> keywords, String text) {
+        for (int i = 0; i < keywords.size(); i++) {
+            if (text.toUpperCase().contains(keywords.get(i).toUpperCase()))
+                return i;
+        }
+        return KeywordMatcher.NO_MATCH;
+    }
+
+    @Test
+    @DisplayName("returns the lowest-ranked keyword, not the leftmost occurrence")
+    void lowest_rank_wins() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("SHOPEE", "GRAB", "TRANSFER"));
+
+        assertEquals(0, matcher.firstMatch("GRAB FOOD via SHOPEE"));
+        assertEquals(1, matcher.firstMatch("TRANSFER to GRAB"));
+        assertEquals(KeywordMatcher.NO_MATCH, matcher.firstMatch("RANDOM STORE"));
+    }
+
+    @Test
+    @DisplayName("matches case-insensitively and inside Thai text")
+    void case_insensitive_and_thai() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("KFC", "เซเว่น", "Café"));
+
+        assertEquals(0, matcher.firstMatch("ซื้อ kfc อาหาร"));
+        assertEquals(1, matcher.firstMatch("ร้านเซเว่นอีเลฟเว่น สาขา 123"));
+        assertEquals(2, matcher.firstMatch("AMAZON CAFÉ SIAM"));
+    }
+
+    @Test
+    @DisplayName("keywords that are suffixes of others are found through failure links")
+    void overlapping_keywords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("BCD", "ABCX", "CD"));
+
+        assertEquals(0, matcher.firstMatch("xxABCDxx"));
+        assertEquals(2, KeywordMatcher.compile(List.of("ABCX", "XYZ", "CD")).firstMatch("ABCD"));
+    }
+
+    @Test
+    @DisplayName("empty keyword matches everything and null keywords are ignored")
+    void empty_and_null_keywords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Arrays.asList(null, "KFC", ""));
+
+        assertEquals(1, matcher.firstMatch("KFC"));
+        assertEquals(2, matcher.firstMatch(""));
+        assertEquals(KeywordMatcher.NO_MATCH, KeywordMatcher.compile(List.of()).firstMatch("anything"));
+    }
+
+    @Test
+    @DisplayName("agrees with the rule-by-rule contains() loop on random input")
+    void agrees_with_naive_loop() {
+        Random random = new Random(42);
+        String alphabet = "abcAB กข";
+        for (int round = 0; round < 200; round++) {
+            List<String> keywords = new ArrayList<>();
+            for (int k = 0, n = 1 + random.nextInt(20); k < n; k++)
+                keywords.add(randomString(random, alphabet, 1 + random.nextInt(4)));
+            KeywordMatcher matcher = KeywordMatcher.compile(keywords);
+
+            for (int t = 0; t < 20; t++) {
+                String text = randomString(random, alphabet, random.nextInt(30));
+                assertEquals(naiveFirstMatch(keywords, text), matcher.firstMatch(text), keywords + " in '" + text + "'");
+
+                BitSet all = new BitSet();
+                matcher.collectMatches(text, all);
+                assertEquals(naiveAllMatches(keywords, text), all, keywords + " in '" + text + "'");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("collectMatches reports every contained keyword, including suffixes of longer ones")
+    void collects_all_matches() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("GRAB FOOD", "FOOD", "GRAB", "TAXI"));
+        BitSet ranks = new BitSet();
+
+        matcher.collectMatches("grab food delivery", ranks);
+
+        assertEquals(BitSet.valueOf(new long[] { 0b0111 }), ranks);
+    }
+
+    private static BitSet naiveAllMatches(List<String> keywords, String text) {
+        BitSet ranks = new BitSet();
+        for (int i = 0; i < keywords.size(); i++) {
+            if (text.toUpperCase().contains(keywords.get(i).toUpperCase()))
+                ranks.set(i);
+        }
+        return ranks;
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return sb.toString();
+    }
+}
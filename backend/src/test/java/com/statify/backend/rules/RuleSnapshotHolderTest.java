@@ -0,0 +1,72 @@
+package com.statify.backend.rules;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.RuleSetVersionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RuleSnapshotHolderTest {
+
+    @Mock
+    private CategorizationRuleRepository ruleRepository;
+
+    @Mock
+    private RuleSetVersionRepository versionRepository;
+
+    @InjectMocks
+    private RuleSnapshotHolder holder;
+
+    private static CategorizationRule rule(int id, String keyword, int categoryId) {
+        Category category = new Category();
+        category.setId(categoryId);
+        CategorizationRule rule = new CategorizationRule();
+        rule.setId(id);
+        rule.setKeyword(keyword);
+        rule.setCategory(category);
+        return rule;
+    }
+
+    @Test
+    @DisplayName("first access compiles the snapshot; unchanged version is not recompiled")
+    void compiles_once_per_version() {
+        when(versionRepository.currentVersion()).thenReturn(3L);
+        when(ruleRepository.findAllWithCategoriesUncached()).thenReturn(List.of(rule(7, "KFC", 1)));
+
+        RuleSnapshot snapshot = holder.current();
+        holder.poll();
+
+        assertEquals(3, snapshot.version());
+        assertSame(snapshot, holder.current());
+        verify(ruleRepository, times(1)).findAllWithCategoriesUncached();
+    }
+
+    @Test
+    @DisplayName("a newer version swaps in a new snapshot; one already taken is unaffected")
+    void newer_version_swaps_snapshot() {
+        when(versionRepository.currentVersion()).thenReturn(1L, 2L);
+        when(ruleRepository.findAllWithCategoriesUncached())
+                .thenReturn(List.of(rule(7, "KFC", 1)))
+                .thenReturn(List.of(rule(8, "GRAB", 2)));
+
+        RuleSnapshot pinned = holder.current();
+        holder.onRulesChanged(new RulesChangedEvent(2, 8));
+        RuleSnapshot next = holder.current();
+
+        assertEquals(2, next.version());
+        assertEquals(8, next.ruleId(next.keywordHits("GRAB TAXI")[0]));
+        assertEquals(0, next.keywordHits("KFC").length);
+        assertEquals(7, pinned.ruleId(pinned.keywordHits("KFC")[0]), "pinned snapshot keeps its rules");
+    }
+}
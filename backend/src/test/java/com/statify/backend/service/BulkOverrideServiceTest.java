@@ -0,0 +1,205 @@
+package com.statify.backend.service;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.BulkOverrideRequest;
+import com.statify.backend.dto.BulkOverrideResult;
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.Upload;
+import com.statify.backend.exception.InvalidOverrideException;
+import com.statify.backend.repository.BulkOverrideRepository;
+import com.statify.backend.repository.CategoryRepository;
+import com.statify.backend.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the locking read and the set-based UPDATE against embedded H2; the rule service,
+ * classifier and summary service are stubbed.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(BulkOverrideRepository.class)
+class BulkOverrideServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BulkOverrideRepository bulkOverrideRepository;
+
+    private final RuleService ruleService = mock(RuleService.class);
+    private final TokenClassifier tokenClassifier = mock(TokenClassifier.class);
+    private final UploadSummaryService uploadSummaryService = mock(UploadSummaryService.class);
+
+    private BulkOverrideService service;
+    private int food;
+    private int shopping;
+
+    private int category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        em.persist(category);
+        return category.getId();
+    }
+
+    private Upload upload(String status) {
+        Upload upload = new Upload();
+        upload.setFilename("statement.csv");
+        upload.setFileType("csv");
+        upload.setStatus(status);
+        em.persist(upload);
+        return upload;
+    }
+
+    private UUID persist(Upload upload, String merchantKey, String amount, Integer categoryId, boolean override) {
+        Transaction t = new Transaction();
+        t.setUpload(upload);
+        t.setTxnDate(LocalDate.of(2026, 2, 1));
+        t.setDescription(merchantKey + " 0091");
+        t.setMerchantKey(merchantKey);
+        t.setAmount(new BigDecimal(amount));
+        t.setCategoryId(categoryId);
+        t.setOverride(override);
+        em.persist(t);
+        return t.getId();
+    }
+
+    private Integer categoryOf(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT category_id FROM transactions WHERE id = ?", Integer.class, id);
+    }
+
+    @BeforeEach
+    void setup() {
+        service = new BulkOverrideService(transactionRepository, categoryRepository, bulkOverrideRepository,
+                ruleService, tokenClassifier, uploadSummaryService, new ReplicaLagGuard());
+        food = category("Food");
+        shopping = category("Shopping");
+    }
+
+    @Test
+    @DisplayName("similar rows in the anchor's upload move in one update, with summary deltas and learning")
+    void overrides_similar_rows_in_upload() {
+        Upload upload = upload("completed");
+        Upload other = upload("completed");
+        UUID first = persist(upload, "7-ELEVEN", "-40.00", null, false);
+        UUID second = persist(upload, "7-ELEVEN", "-60.00", shopping, false);
+        UUID alreadyDone = persist(upload, "7-ELEVEN", "-10.00", food, true);
+        UUID unrelated = persist(upload, "LOTUS", "-30.00", null, false);
+        UUID elsewhere = persist(other, "7-ELEVEN", "-20.00", null, false);
+        em.flush();
+
+        BulkOverrideResult result = service.override(
+                new BulkOverrideRequest(food, null, first, null, false, null));
+
+        assertEquals(new BulkOverrideResult(2, null), result);
+        assertEquals(food, categoryOf(first));
+        assertEquals(food, categoryOf(second));
+        assertEquals(food, categoryOf(alreadyDone));
+        assertNull(categoryOf(unrelated));
+        assertNull(categoryOf(elsewhere), "scope defaults to the anchor's upload");
+        verify(uploadSummaryService).applyCategoryDeltas(upload.getId(),
+                Map.of(food, new BigDecimal("100.00"), shopping, new BigDecimal("-60.00")));
+        verify(tokenClassifier).adjust("7-ELEVEN", food, 2); // both rows share one match text
+        verifyNoMoreInteractions(tokenClassifier);
+        verifyNoInteractions(ruleService);
+    }
+
+    @Test
+    @DisplayName("scope all reaches completed uploads only, and can save a merchant-key rule")
+    void overrides_across_uploads_and_creates_rule() {
+        Upload upload = upload("completed");
+        Upload other = upload("completed");
+        Upload processing = upload("processing");
+        UUID anchor = persist(upload, "GRAB", "-100.00", null, false);
+        UUID elsewhere = persist(other, "GRAB", "-50.00", shopping, true);
+        UUID inFlight = persist(processing, "GRAB", "-70.00", null, false);
+        em.flush();
+        CategorizationRule rule = new CategorizationRule();
+        rule.setId(42);
+        when(ruleService.addRule(any())).thenReturn(Optional.of(rule));
+
+        BulkOverrideResult result = service.override(
+                new BulkOverrideRequest(food, null, anchor, "all", true, 5));
+
+        assertEquals(new BulkOverrideResult(2, 42), result);
+        assertEquals(food, categoryOf(elsewhere));
+        assertNull(categoryOf(inFlight));
+        verify(tokenClassifier).adjust("GRAB", shopping, -1);
+        verify(tokenClassifier).adjust("GRAB", food, 2);
+        verify(ruleService).addRule(new RuleRequest(null, food, 5, null, null, null, null, null, null, null, null,
+                "GRAB"));
+    }
+
+    @Test
+    @DisplayName("explicit ids are overridden; malformed requests are rejected")
+    void overrides_ids_and_validates() {
+        Upload upload = upload("completed");
+        UUID a = persist(upload, "KFC", "-120.00", null, false);
+        UUID b = persist(upload, "MK", "500.00", null, false);
+        em.flush();
+
+        assertEquals(2, service.override(new BulkOverrideRequest(food, List.of(a, b), null, null, false, null))
+                .updated());
+        verify(uploadSummaryService).applyCategoryDeltas(upload.getId(), Map.of(food, new BigDecimal("120.00")));
+
+        assertThrows(InvalidOverrideException.class, () -> service.override(
+                new BulkOverrideRequest(food, List.of(a), a, null, false, null)));
+        assertThrows(InvalidOverrideException.class, () -> service.override(
+                new BulkOverrideRequest(food, List.of(a), null, null, true, null)));
+        assertThrows(InvalidOverrideException.class, () -> service.override(
+                new BulkOverrideRequest(9999, List.of(a), null, null, false, null)));
+        assertThrows(InvalidOverrideException.class, () -> service.override(
+                new BulkOverrideRequest(food, null, a, "everywhere", false, null)));
+    }
+
+    @Test
+    @DisplayName("a key with no merchant word can be overridden in its upload, but not everywhere or as a rule")
+    void generic_key_stays_in_its_upload() {
+        Upload upload = upload("completed");
+        Upload other = upload("completed");
+        UUID anchor = persist(upload, "PAYMENT", "-100.00", null, false);
+        UUID elsewhere = persist(other, "PAYMENT", "-50.00", null, false);
+        em.flush();
+
+        assertThrows(InvalidOverrideException.class, () -> service.override(
+                new BulkOverrideRequest(food, null, anchor, "all", false, null)));
+        assertThrows(InvalidOverrideException.class, () -> service.override(
+                new BulkOverrideRequest(food, null, anchor, null, true, null)));
+        assertEquals(1, service.override(new BulkOverrideRequest(food, null, anchor, null, false, null)).updated());
+        assertNull(categoryOf(elsewhere));
+        verifyNoInteractions(ruleService);
+    }
+}
@@ -0,0 +1,110 @@
+package com.statify.backend.service;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Transaction;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RuleMatchCounterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @InjectMocks
+    private RuleMatchCounter counter;
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureBatch() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        return captor.getValue().stream().sorted(Comparator.comparing(row -> (Integer) row[1])).toList();
+    }
+
+    @Test
+    @DisplayName("concurrent hits are all counted and flushed as one relative-increment batch")
+    void flushes_concurrent_increments_in_one_batch() throws InterruptedException {
+        Cache jpaCache = mock(Cache.class);
+        org.hibernate.Cache hibernateCache = mock(org.hibernate.Cache.class);
+        when(entityManagerFactory.getCache()).thenReturn(jpaCache);
+        when(jpaCache.unwrap(org.hibernate.Cache.class)).thenReturn(hibernateCache);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            int ruleId = i % 2 == 0 ? 10 : 20;
+            pool.execute(() -> counter.add(ruleId, 1));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        counter.flush();
+
+        List<Object[]> batch = captureBatch();
+        assertEquals(2, batch.size());
+        assertArrayEquals(new Object[] { 4_000L, 10 }, batch.get(0));
+        assertArrayEquals(new Object[] { 4_000L, 20 }, batch.get(1));
+        assertEquals(0, counter.pendingCount(10));
+        verify(hibernateCache).evictEntityData(CategorizationRule.class, 10);
+        verify(hibernateCache).evictEntityData(CategorizationRule.class, 20);
+        verifyNoMoreInteractions(hibernateCache);
+    }
+
+    @Test
+    @DisplayName("nothing pending → no UPDATE is issued")
+    void empty_flush_is_noop() {
+        counter.flush();
+
+        verifyNoInteractions(jdbcTemplate, entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("failed flush keeps the counts for the next cycle")
+    void failed_flush_keeps_counts() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+        counter.add(10, 1);
+        counter.add(10, 1);
+
+        counter.flush();
+
+        assertEquals(2, counter.pendingCount(10));
+        verifyNoInteractions(entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("stored rows add one hit per row to their matched rule; rows without a rule add nothing")
+    void counts_matched_rows() {
+        List<Transaction> rows = new ArrayList<>();
+        for (Integer ruleId : new Integer[] { 10, 20, 10, null }) {
+            Transaction t = new Transaction();
+            t.setMatchedRuleId(ruleId);
+            rows.add(t);
+        }
+
+        counter.addMatches(rows);
+
+        assertEquals(2, counter.pendingCount(10));
+        assertEquals(1, counter.pendingCount(20));
+    }
+}
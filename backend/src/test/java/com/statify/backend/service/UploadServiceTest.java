@@ -0,0 +1,264 @@
+package com.statify.backend.service;
+
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.Upload;
+import com.statify.backend.exception.FileMismatchException;
+import com.statify.backend.fingerprint.FingerprintIndex;
+import com.statify.backend.parser.FileParser;
+import com.statify.backend.parser.MerchantDictionary;
+import com.statify.backend.parser.ParsedTransaction;
+import com.statify.backend.repository.BulkInsertRepository;
+import com.statify.backend.repository.TransactionRepository;
+import com.statify.backend.repository.UploadRepository;
+import com.statify.backend.rules.RuleSnapshot;
+import com.statify.backend.rules.RuleSnapshotHolder;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Chunked commit, failure and resume of {@link UploadService#processUpload}. The parser,
+ * repositories and downstream services are stubbed; transactions run on a mocked manager.
+ * Chunks are two rows, so a five-row file commits as 2 + 2 + 1.
+ */
+class UploadServiceTest {
+
+    private final UploadRepository uploadRepository = mock(UploadRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final BulkInsertRepository bulkInsertRepository = mock(BulkInsertRepository.class);
+    private final FileParser parser = mock(FileParser.class);
+    private final CategorizationService categorizationService = mock(CategorizationService.class);
+    private final RuleMatchCounter ruleMatchCounter = mock(RuleMatchCounter.class);
+    private final RuleSnapshotHolder ruleSnapshotHolder = mock(RuleSnapshotHolder.class);
+    private final AnomalyService anomalyService = mock(AnomalyService.class);
+    private final FingerprintIndex fingerprintIndex = mock(FingerprintIndex.class);
+    private final UploadSummaryService uploadSummaryService = mock(UploadSummaryService.class);
+
+    private UploadService service;
+    private Upload upload;
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "statement.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<ParsedTransaction> parsed(int rows) {
+        List<ParsedTransaction> parsed = new ArrayList<>();
+        for (int i = 0; i < rows; i++)
+            parsed.add(new ParsedTransaction(LocalDate.of(2026, 3, 1 + i), "SHOP " + i, new BigDecimal("-10" + i + ".00"),
+                    "THB"));
+        return parsed;
+    }
+
+    private List<Transaction> committed(int rows) {
+        List<Transaction> committed = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Transaction t = new Transaction();
+            t.setUpload(upload);
+            t.setAmount(new BigDecimal("-10" + i + ".00"));
+            committed.add(t);
+        }
+        return committed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Integer> insertedChunkSizes() {
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bulkInsertRepository, atLeastOnce()).insertTransactions(captor.capture());
+        return captor.getAllValues().stream().map(List::size).toList();
+    }
+
+    @BeforeEach
+    void setup() {
+        service = new UploadService(uploadRepository, transactionRepository, bulkInsertRepository, List.of(parser),
+                new MerchantDictionary(1000), categorizationService, ruleMatchCounter, ruleSnapshotHolder, anomalyService,
+                fingerprintIndex, uploadSummaryService, new ReplicaLagGuard(), mock(PlatformTransactionManager.class),
+                mock(EntityManager.class));
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+
+        upload = new Upload();
+        upload.setId(UUID.randomUUID());
+        upload.setFilename("statement.csv");
+        upload.setFileType("csv");
+        when(uploadRepository.findById(upload.getId())).thenReturn(Optional.of(upload));
+        when(uploadRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(parser.supports("csv")).thenReturn(true);
+        when(ruleSnapshotHolder.current()).thenReturn(RuleSnapshot.EMPTY);
+    }
+
+    @Test
+    @DisplayName("commits each chunk in its own transaction and records progress after each")
+    void commits_in_chunks() {
+        when(parser.parse(any())).thenReturn(parsed(5));
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("completed", upload.getStatus());
+        assertEquals(5, upload.getCommittedRows());
+        assertEquals(5, upload.getRowCount());
+        assertEquals(List.of(2, 2, 1), insertedChunkSizes());
+        verify(uploadRepository).updateCommittedRows(upload.getId(), 2);
+        verify(uploadRepository).updateCommittedRows(upload.getId(), 4);
+        verify(uploadRepository).updateCommittedRows(upload.getId(), 5);
+        verify(anomalyService).detectAnomalies(eq("default"), argThat(rows -> rows.size() == 5), eq(Set.of()));
+    }
+
+    @Test
+    @DisplayName("a failing chunk marks the upload failed, keeping the chunks already committed")
+    void failure_keeps_committed_progress() {
+        when(parser.parse(any())).thenReturn(parsed(5));
+        doNothing().doThrow(new IllegalStateException("Bulk COPY failed: connection reset"))
+                .when(bulkInsertRepository).insertTransactions(any());
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("failed", upload.getStatus());
+        assertEquals("Bulk COPY failed: connection reset", upload.getErrorMsg());
+        assertEquals(2, upload.getCommittedRows());
+        assertEquals(5, upload.getRowCount());
+        verify(uploadRepository).updateCommittedRows(upload.getId(), 2);
+        verify(uploadRepository, never()).updateCommittedRows(eq(upload.getId()), eq(4));
+        verify(anomalyService, never()).detectAnomalies(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("resume inserts only the uncommitted rows, and detection still sees the whole file")
+    void resume_continues_after_committed_rows() {
+        upload.setStatus("failed");
+        upload.setCommittedRows(2);
+        upload.setRowCount(5);
+        when(parser.parse(any())).thenReturn(parsed(5));
+        when(transactionRepository.findByUploadIdOrderByTxnDate(upload.getId())).thenReturn(committed(2));
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("completed", upload.getStatus());
+        assertNull(upload.getErrorMsg());
+        assertEquals(List.of(2, 1), insertedChunkSizes());
+        verify(uploadRepository, never()).updateCommittedRows(eq(upload.getId()), eq(2));
+        verify(uploadRepository).updateCommittedRows(upload.getId(), 5);
+        verify(categorizationService).categorizeTransactions(argThat(rows -> rows.size() == 3), any());
+        verify(anomalyService).detectAnomalies(eq("default"), argThat(rows -> rows.size() == 5), eq(Set.of()));
+    }
+
+    @Test
+    @DisplayName("detection runs for the upload's account and leaves flagged duplicates, before and after a resume, out of the statistics")
+    void flagged_duplicates_stay_out_of_statistics() {
+        upload.setAccountKey("acct-9");
+        upload.setStatus("failed");
+        upload.setCommittedRows(2);
+        upload.setRowCount(5);
+        UUID flaggedBefore = UUID.randomUUID();
+        when(parser.parse(any())).thenReturn(parsed(5));
+        when(transactionRepository.findByUploadIdOrderByTxnDate(upload.getId())).thenReturn(committed(2));
+        when(anomalyService.crossUploadDuplicates(upload.getId())).thenReturn(Set.of(flaggedBefore));
+        when(fingerprintIndex.claim(eq("acct-9"), eq(upload.getId()), any()))
+                .thenReturn(Map.of(1, UUID.randomUUID()), Map.of());
+        doAnswer(inv -> {
+            List<Transaction> rows = inv.getArgument(0);
+            rows.forEach(t -> t.setId(UUID.randomUUID()));
+            return null;
+        }).when(bulkInsertRepository).insertTransactions(any());
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("completed", upload.getStatus());
+        verify(anomalyService).detectAnomalies(eq("acct-9"), argThat(rows -> rows.size() == 5),
+                argThat(ids -> ids.size() == 2 && ids.contains(flaggedBefore)));
+    }
+
+    @Test
+    @DisplayName("a resume accepted before a later upload took the rows over leaves the upload failed and untouched")
+    void resume_after_takeover_does_nothing() {
+        upload.setStatus("failed");
+        upload.setErrorMsg("Bulk COPY failed: connection reset");
+        upload.setCommittedRows(2);
+        upload.setRowCount(5);
+        upload.setResumable(false);
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("failed", upload.getStatus());
+        assertEquals("Bulk COPY failed: connection reset", upload.getErrorMsg());
+        verifyNoInteractions(parser, bulkInsertRepository, fingerprintIndex);
+        verify(uploadRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("rule hits are counted per committed chunk, for stored rows only, and a resume skips the committed prefix")
+    @SuppressWarnings("unchecked")
+    void counts_rule_hits_of_committed_rows() {
+        upload.setStatus("failed");
+        upload.setCommittedRows(2);
+        upload.setRowCount(5);
+        upload.setSkipDuplicates(true);
+        when(parser.parse(any())).thenReturn(parsed(5));
+        when(transactionRepository.findByUploadIdOrderByTxnDate(upload.getId())).thenReturn(committed(2));
+        doAnswer(inv -> {
+            List<Transaction> rows = inv.getArgument(0);
+            rows.forEach(t -> t.setMatchedRuleId(7));
+            return null;
+        }).when(categorizationService).categorizeTransactions(any(), any());
+        when(fingerprintIndex.claim(any(), eq(upload.getId()), any()))
+                .thenReturn(Map.of(0, UUID.randomUUID()), Map.of());
+        doNothing().doThrow(new IllegalStateException("Bulk COPY failed: connection reset"))
+                .when(bulkInsertRepository).insertTransactions(any());
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("failed", upload.getStatus());
+        ArgumentCaptor<List<Transaction>> counted = ArgumentCaptor.forClass(List.class);
+        verify(ruleMatchCounter).addMatches(counted.capture());
+        assertEquals(List.of("SHOP 3"), counted.getValue().stream().map(Transaction::getDescription).toList(),
+                "rows 0-1 were committed before; row 2 was skipped as a duplicate; row 4's chunk rolled back");
+    }
+
+    @Test
+    @DisplayName("resume refuses a file with a different row count before inserting anything")
+    void resume_rejects_different_row_count() {
+        upload.setStatus("failed");
+        upload.setCommittedRows(2);
+        upload.setRowCount(4);
+        when(parser.parse(any())).thenReturn(parsed(5));
+
+        service.processUpload(upload.getId(), file("five rows"));
+
+        assertEquals("failed", upload.getStatus());
+        assertTrue(upload.getErrorMsg().contains("started with 4"), upload.getErrorMsg());
+        assertEquals(2, upload.getCommittedRows());
+        assertEquals(4, upload.getRowCount());
+        verify(bulkInsertRepository, never()).insertTransactions(any());
+        verify(uploadRepository, never()).updateCommittedRows(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("the file's checksum is stored at upload and a resume must present the same file")
+    void resume_requires_same_file() throws Exception {
+        Upload started = service.initiateUpload(file("original"), "default", false);
+
+        assertEquals(64, started.getFileSha256().length());
+        assertDoesNotThrow(() -> service.checkSameFile(started, file("original")));
+        assertThrows(FileMismatchException.class, () -> service.checkSameFile(started, file("edited")));
+    }
+}
@@ -0,0 +1,92 @@
+package com.statify.backend.service;
+
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.UploadSummary;
+import com.statify.backend.repository.UploadSummaryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UploadSummaryService — the ingest-time pass must produce the same numbers the
+ * dashboard used to recompute, and incremental deltas must keep them in step.
+ */
+@ExtendWith(MockitoExtension.class)
+class UploadSummaryServiceTest {
+
+    @Mock
+    private UploadSummaryRepository summaryRepository;
+
+    @InjectMocks
+    private UploadSummaryService service;
+
+    private final UUID uploadId = UUID.randomUUID();
+
+    private Transaction txn(String amount, Integer categoryId) {
+        Transaction t = new Transaction();
+        t.setAmount(new BigDecimal(amount));
+        t.setCategoryId(categoryId);
+        return t;
+    }
+
+    @Test
+    @DisplayName("accumulates income, expense, count and per-category expense across chunks")
+    void accumulates_across_chunks() {
+        UploadSummary summary = UploadSummaryService.newSummary(uploadId);
+
+        UploadSummaryService.accumulate(summary, List.of(txn("5000.00", 9), txn("-120.00", 1)));
+        UploadSummaryService.accumulate(summary, List.of(txn("-80.50", 1), txn("-300.00", null), txn("-40.00", 2)));
+
+        assertEquals(new BigDecimal("5000.00"), summary.getTotalIncome());
+        assertEquals(new BigDecimal("540.50"), summary.getTotalExpense());
+        assertEquals(5, summary.getTxnCount());
+        assertEquals(Map.of(1, new BigDecimal("200.50"), 2, new BigDecimal("40.00")), summary.getByCategory());
+    }
+
+    @Test
+    @DisplayName("override moves an expense between category buckets under a row lock")
+    void override_moves_expense_between_buckets() {
+        UploadSummary summary = UploadSummaryService.newSummary(uploadId);
+        UploadSummaryService.accumulate(summary, List.of(txn("-100.00", 1), txn("-50.00", 2)));
+        when(summaryRepository.findForUpdate(uploadId)).thenReturn(Optional.of(summary));
+
+        service.applyCategoryChange(uploadId, new BigDecimal("-100.00"), 1, 2);
+
+        assertEquals(Map.of(2, new BigDecimal("150.00")), summary.getByCategory());
+        assertEquals(new BigDecimal("150.00"), summary.getTotalExpense());
+    }
+
+    @Test
+    @DisplayName("income overrides do not touch the summary")
+    void income_override_is_noop() {
+        service.applyCategoryChange(uploadId, new BigDecimal("2500.00"), 1, 2);
+
+        verifyNoInteractions(summaryRepository);
+    }
+
+    @Test
+    @DisplayName("reviewing an anomaly decrements the open count")
+    void anomaly_review_decrements_open_count() {
+        UploadSummary summary = UploadSummaryService.newSummary(uploadId);
+        summary.setAnomalyCount(3);
+        summary.setOpenAnomalyCount(3);
+        when(summaryRepository.findForUpdate(uploadId)).thenReturn(Optional.of(summary));
+
+        service.anomalyReviewed(uploadId);
+
+        assertEquals(3, summary.getAnomalyCount());
+        assertEquals(2, summary.getOpenAnomalyCount());
+    }
+}
@@ -5,16 +5,22 @@ import { motion, AnimatePresence } from "framer-motion";
 import { useSuspenseQuery, useMutation, useQueryClient } from "@tanstack/react-query";
 import { Plus, Trash2, Edit2, Check, X, Shield } from "lucide-react";
 import { ingestionApi } from "@/features/ingestion/api/ingestionApi";
-import type { CategorizationRule, Category } from "@/features/ingestion/types";
+import type { CategorizationRule, Category, RuleConditions } from "@/features/ingestion/types";
+
+// PUT replaces a rule's conditions, so inline edits carry the existing ones along
+function conditionsOf(rule: CategorizationRule): RuleConditions {
+  const { amountMin, amountMax, direction, dayFrom, dayTo, dateFrom, dateTo, descriptionRegex, merchantKey } = rule;
+  return { amountMin, amountMax, direction, dayFrom, dayTo, dateFrom, dateTo, descriptionRegex, merchantKey };
+}
 
 function RuleRow({ rule, categories }: { rule: CategorizationRule; categories: Category[] }) {
   const qc = useQueryClient();
   const [editing, setEditing] = useState(false);
-  const [keyword, setKeyword] = useState(rule.keyword);
+  const [keyword, setKeyword] = useState(rule.keyword ?? "");
   const [catId, setCatId] = useState(rule.category.id);
 
   const updateMutation = useMutation({
-    mutationFn: () => ingestionApi.updateRule(rule.id, { keyword, categoryId: catId }),
+    mutationFn: () => ingestionApi.updateRule(rule.id, { ...conditionsOf(rule), keyword: keyword || null, categoryId: catId }),
     onSuccess: () => { qc.invalidateQueries({ queryKey: ["rules"] }); setEditing(false); },
   });
 
@@ -40,7 +46,7 @@ function RuleRow({ rule, categories }: { rule: CategorizationRule; categories: C
             className="bg-background border border-accent/40 text-accent font-mono text-[9px] px-2 py-1 outline-none w-full"
           />
         ) : (
-          <span className="font-mono text-[9px] text-foreground/80">{rule.keyword}</span>
+          <span className="font-mono text-[9px] text-foreground/80">{rule.keyword ?? rule.merchantKey ?? "—"}</span>
         )}
       </td>
       <td className="p-3">
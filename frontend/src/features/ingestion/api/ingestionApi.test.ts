@@ -121,6 +121,35 @@ describe("ingestionApi", () => {
     });
   });
 
+  // ── getTransactionsPage ──────────────────────────────────────────────
+  describe("getTransactionsPage", () => {
+    it("sends cursor + limit and returns the X-Next-Cursor header", async () => {
+      mockFetch.mockReturnValueOnce(
+        Promise.resolve({
+          ok: true,
+          json: () => Promise.resolve([{ id: "t1" }]),
+          headers: new Headers({ "X-Next-Cursor": "next123" }),
+        } as Response)
+      );
+
+      const page = await ingestionApi.getTransactionsPage("id1", { cursor: "abc", limit: 50 });
+
+      expect(mockFetch).toHaveBeenCalledWith("/api/v1/uploads/id1/transactions?cursor=abc&limit=50");
+      expect(page.items).toHaveLength(1);
+      expect(page.nextCursor).toBe("next123");
+    });
+
+    it("returns null nextCursor on the last page", async () => {
+      mockFetch.mockReturnValueOnce(
+        Promise.resolve({ ok: true, json: () => Promise.resolve([]), headers: new Headers() } as Response)
+      );
+
+      const page = await ingestionApi.getTransactionsPage("id1");
+
+      expect(page.nextCursor).toBeNull();
+    });
+  });
+
   // ── overrideCategory ─────────────────────────────────────────────────
   describe("overrideCategory", () => {
     it("PATCHes /api/v1/uploads/transactions/:id/category", async () => {
@@ -1,4 +1,4 @@
-import type { Upload, Transaction, Anomaly, Category, CategorizationRule, Summary } from "../types";
+import type { Upload, UploadOptions, Transaction, Anomaly, AnomalyRuleSettings, AnomalyRuleUpdate, Category, CategorizationRule, RulePayload, SimulationRequest, SimulationResult, BulkOverrideRequest, BulkOverrideResult, Summary } from "../types";
 
 const BASE = "/api/v1";
 
@@ -11,11 +11,34 @@ async function req<T>(url: string, init?: RequestInit): Promise<T> {
   return res.json();
 }
 
+export interface TransactionQuery {
+  categoryId?: number;
+  keyword?: string;
+  cursor?: string;
+  limit?: number;
+}
+
+export interface TransactionPage {
+  items: Transaction[];
+  nextCursor: string | null;
+}
+
+function transactionQs(params?: TransactionQuery): string {
+  const qs = new URLSearchParams();
+  if (params?.categoryId) qs.set("categoryId", String(params.categoryId));
+  if (params?.keyword)   qs.set("keyword", params.keyword);
+  if (params?.cursor)    qs.set("cursor", params.cursor);
+  if (params?.limit)     qs.set("limit", String(params.limit));
+  return qs.toString() ? "?" + qs.toString() : "";
+}
+
 export const ingestionApi = {
   // ── Uploads ─────────────────────────────────────────────────────────
-  uploadFile: async (file: File): Promise<Upload> => {
+  uploadFile: async (file: File, options?: UploadOptions): Promise<Upload> => {
     const formData = new FormData();
     formData.append("file", file);
+    if (options?.account)    formData.append("account", options.account);
+    if (options?.duplicates) formData.append("duplicates", options.duplicates);
     return req<Upload>("/uploads", { method: "POST", body: formData });
   },
   getUploadStatus: (id: string) => req<Upload>(`/uploads/${id}`),
@@ -23,37 +46,65 @@ export const ingestionApi = {
   getSummary:      (id: string) => req<Summary>(`/uploads/${id}/summary`),
 
   // ── Transactions ─────────────────────────────────────────────────────
-  getTransactions: (id: string, params?: { categoryId?: number; keyword?: string }) => {
-    const qs = new URLSearchParams();
-    if (params?.categoryId) qs.set("categoryId", String(params.categoryId));
-    if (params?.keyword)   qs.set("keyword", params.keyword);
-    const qstr = qs.toString() ? "?" + qs.toString() : "";
-    return req<Transaction[]>(`/uploads/${id}/transactions${qstr}`);
+  getTransactions: (id: string, params?: TransactionQuery) =>
+    req<Transaction[]>(`/uploads/${id}/transactions${transactionQs(params)}`),
+  // Keyset paging: pass the returned nextCursor back to fetch the following page.
+  getTransactionsPage: async (id: string, params?: TransactionQuery): Promise<TransactionPage> => {
+    const res = await fetch(`${BASE}/uploads/${id}/transactions${transactionQs(params)}`);
+    if (!res.ok) {
+      const body = await res.json().catch(() => ({}));
+      throw new Error(body.message ?? `Request failed: ${res.status}`);
+    }
+    return { items: await res.json(), nextCursor: res.headers.get("X-Next-Cursor") };
   },
   overrideCategory: (txnId: string, categoryId: number) =>
     req<Transaction>(`/uploads/transactions/${txnId}/category?categoryId=${categoryId}`, {
       method: "PATCH",
     }),
+  overrideCategories: (payload: BulkOverrideRequest) =>
+    req<BulkOverrideResult>("/uploads/transactions/category", {
+      method: "PATCH",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify(payload),
+    }),
 
   // ── Anomalies ─────────────────────────────────────────────────────────
   getAnomalies: (uploadId: string) => req<Anomaly[]>(`/uploads/${uploadId}/anomalies`),
   updateAnomalyStatus: (id: string, status: "confirmed" | "dismissed") =>
     req<Anomaly>(`/anomalies/${id}/status?status=${status}`, { method: "PATCH" }),
+  getAnomalyRules: (account = "default") =>
+    req<AnomalyRuleSettings[]>(`/anomaly-rules?account=${encodeURIComponent(account)}`),
+  updateAnomalyRule: (rule: string, payload: AnomalyRuleUpdate, account = "default") =>
+    req<AnomalyRuleSettings>(`/anomaly-rules/${encodeURIComponent(rule)}?account=${encodeURIComponent(account)}`, {
+      method: "PUT",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify(payload),
+    }),
+  resetAnomalyRule: (rule: string, account = "default") =>
+    req<AnomalyRuleSettings>(`/anomaly-rules/${encodeURIComponent(rule)}?account=${encodeURIComponent(account)}`, {
+      method: "DELETE",
+    }),
 
   // ── Categories & Rules ────────────────────────────────────────────────
   getCategories: () => req<Category[]>("/categories"),
   getRules: ()       => req<CategorizationRule[]>("/rules"),
-  addRule: (payload: { keyword: string; categoryId: number; priority?: number }) =>
+  addRule: (payload: RulePayload) =>
     req<CategorizationRule>("/rules", {
       method: "POST",
       headers: { "Content-Type": "application/json" },
       body: JSON.stringify(payload),
     }),
-  updateRule: (id: number, payload: { keyword: string; categoryId: number; priority?: number }) =>
+  updateRule: (id: number, payload: RulePayload) =>
     req<CategorizationRule>(`/rules/${id}`, {
       method: "PUT",
       headers: { "Content-Type": "application/json" },
       body: JSON.stringify(payload),
     }),
+  simulateRules: (payload: SimulationRequest) =>
+    req<SimulationResult>("/rules/simulate", {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify(payload),
+    }),
   deleteRule: (id: number) => req<void>(`/rules/${id}`, { method: "DELETE" }),
 };
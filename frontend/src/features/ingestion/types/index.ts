@@ -8,9 +8,19 @@ export interface Upload {
   status: UploadStatus;
   rowCount?: number;
   errorMsg?: string;
+  accountKey: string;
+  skipDuplicates: boolean;
+  /** Rows an earlier upload of the account already imported (skipped or flagged). */
+  duplicateRows: number;
   uploadedAt: string;
 }
 
+/** `account` groups overlapping statements; `duplicates: "skip"` leaves already-imported rows out. */
+export interface UploadOptions {
+  account?: string;
+  duplicates?: "flag" | "skip";
+}
+
 export interface Category {
   id: number;
   name: string;
@@ -30,9 +40,13 @@ export interface Transaction {
   override: boolean;
 }
 
+/** The flagged transaction as inlined by the anomaly review endpoint. */
+export type FlaggedTransaction = Pick<Transaction, 'id' | 'txnDate' | 'description' | 'amount' | 'currency' | 'categoryId'>;
+
 export interface Anomaly {
   id: string;
-  transaction: Transaction;
+  uploadId: string;
+  transaction: FlaggedTransaction;
   ruleName: string;
   severity: 'LOW' | 'MEDIUM' | 'HIGH';
   detail: string;
@@ -41,9 +55,39 @@ export interface Anomaly {
   createdAt: string;
 }
 
-export interface CategorizationRule {
+/** An anomaly rule as one account runs it; `params` are effective thresholds. */
+export interface AnomalyRuleSettings {
+  rule: string;
+  enabled: boolean;
+  severity: 'LOW' | 'MEDIUM' | 'HIGH';
+  params: Record<string, number>;
+  defaultSeverity: 'LOW' | 'MEDIUM' | 'HIGH';
+  defaultParams: Record<string, number>;
+}
+
+/** Replaces the account's override; omitted fields fall back to the rule's defaults. */
+export interface AnomalyRuleUpdate {
+  enabled?: boolean;
+  severity?: 'LOW' | 'MEDIUM' | 'HIGH';
+  params?: Record<string, number>;
+}
+
+/** Optional structured conditions, ANDed with the keyword. Amounts bound the magnitude. */
+export interface RuleConditions {
+  amountMin?: number | null;
+  amountMax?: number | null;
+  direction?: 'DEBIT' | 'CREDIT' | null;
+  dayFrom?: number | null;
+  dayTo?: number | null;
+  dateFrom?: string | null;
+  dateTo?: string | null;
+  descriptionRegex?: string | null;
+  merchantKey?: string | null;
+}
+
+export interface CategorizationRule extends RuleConditions {
   id: number;
-  keyword: string;
+  keyword: string | null;
   category: Category;
   priority: number;
   matchCount: number;
@@ -51,6 +95,43 @@ export interface CategorizationRule {
   createdAt: string;
 }
 
+export interface RulePayload extends RuleConditions {
+  keyword: string | null;
+  categoryId: number;
+  priority?: number;
+}
+
+/** POST /rules/simulate — `id` replaces that existing rule, omit it to try a new one. */
+export interface SimulationRequest {
+  rules: { id?: number; rule: RulePayload }[];
+  uploads?: number;
+}
+
+export interface SimulationResult {
+  uploads: number;
+  rowsScanned: number;
+  newlyCategorized: number;
+  changed: number;
+  hits: { ruleId: number | null; index: number | null; keyword: string | null; categoryId: number; hits: number }[];
+  samples: { transactionId: string; description: string; fromCategoryId: number | null; toCategoryId: number | null }[];
+  elapsedMs: number;
+}
+
+/** PATCH /uploads/transactions/category — either `transactionIds` or `similarTo`. */
+export interface BulkOverrideRequest {
+  categoryId: number;
+  transactionIds?: string[];
+  similarTo?: string;
+  scope?: "upload" | "all";
+  createRule?: boolean;
+  rulePriority?: number;
+}
+
+export interface BulkOverrideResult {
+  updated: number;
+  ruleId: number | null;
+}
+
 export interface Summary {
   totalIncome: number;
   totalExpense: number;
@@ -0,0 +1,41 @@
+package com.statify.backend.anomaly;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/** US-006: any single amount, debit or credit, at or above a fixed threshold. */
+@Component
+@Order(10)
+public class LargeAmountRule implements AnomalyRule {
+
+    // Default threshold from PRD
+    @Value("${statify.anomaly.large-amount:10000}")
+    private double threshold = 10_000;
+
+    @Override
+    public String name() {
+        return "Large Amount";
+    }
+
+    @Override
+    public String defaultSeverity() {
+        return "MEDIUM";
+    }
+
+    @Override
+    public Map<String, Double> defaultParams() {
+        return Map.of("threshold", threshold);
+    }
+
+    @Override
+    public Check bind(RuleSettings settings) {
+        BigDecimal limit = BigDecimal.valueOf(settings.param("threshold"));
+        String detail = "Transaction exceeds threshold of " + limit.setScale(2, RoundingMode.HALF_UP);
+        return (batch, row) -> batch.row(row).getAmount().abs().compareTo(limit) >= 0 ? detail : null;
+    }
+}
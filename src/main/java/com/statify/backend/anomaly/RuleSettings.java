@@ -0,0 +1,14 @@
+package com.statify.backend.anomaly;
+
+import java.util.Map;
+
+/** A rule's effective settings for one account: its defaults with the account's overrides on top. */
+public record RuleSettings(boolean enabled, String severity, Map<String, Double> params) {
+
+    public double param(String name) {
+        Double value = params.get(name);
+        if (value == null)
+            throw new IllegalArgumentException("Rule has no parameter '" + name + "'");
+        return value;
+    }
+}
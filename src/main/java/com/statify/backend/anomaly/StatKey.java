@@ -0,0 +1,26 @@
+package com.statify.backend.anomaly;
+
+import com.statify.backend.entity.Transaction;
+
+/**
+ * One series of amounts within an account: a merchant ({@code 'M'}, keyed by merchant key)
+ * or a category ({@code 'C'}, keyed by id), split by direction so refunds and salaries do
+ * not blur purchases.
+ */
+public record StatKey(char scope, String key, int sign) {
+
+    public static final char MERCHANT = 'M';
+    public static final char CATEGORY = 'C';
+
+    /** Null when the row has no merchant key (legacy rows). */
+    public static StatKey merchant(Transaction txn) {
+        return txn.getMerchantKey() == null || txn.getMerchantKey().isEmpty() ? null
+                : new StatKey(MERCHANT, txn.getMerchantKey(), txn.getAmount().signum() < 0 ? -1 : 1);
+    }
+
+    /** Null when the row is uncategorized. */
+    public static StatKey category(Transaction txn) {
+        return txn.getCategoryId() == null ? null
+                : new StatKey(CATEGORY, txn.getCategoryId().toString(), txn.getAmount().signum() < 0 ? -1 : 1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.statify.backend.anomaly;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An amount far above the account's running statistics for its merchant, else its
+ * category. Compared with history from before the batch, so repeats within one
+ * statement cannot mask each other.
+ */
+@Component
+@Order(30)
+public class UnusualAmountRule implements AnomalyRule {
+
+    /** Standard scores above a series' mean that flag an amount. */
+    @Value("${statify.anomaly.z-bound:4.0}")
+    private double zBound = 4.0;
+
+    /** Multiple of a series' median that flags an amount. */
+    @Value("${statify.anomaly.ratio-bound:5.0}")
+    private double ratioBound = 5.0;
+
+    /** Samples a series needs before it flags anything. */
+    @Value("${statify.anomaly.min-samples:10}")
+    private int minSamples = 10;
+
+    @Override
+    public String name() {
+        return "Unusual Amount";
+    }
+
+    @Override
+    public String defaultSeverity() {
+        return "MEDIUM";
+    }
+
+    @Override
+    public Map<String, Double> defaultParams() {
+        return Map.of("zBound", zBound, "ratioBound", ratioBound, "minSamples", (double) minSamples);
+    }
+
+    @Override
+    public Set<BatchState> requires() {
+        return Set.of(BatchState.AMOUNT_HISTORY);
+    }
+
+    @Override
+    public Check bind(RuleSettings settings) {
+        double z = settings.param("zBound");
+        double ratio = settings.param("ratioBound");
+        double samples = settings.param("minSamples");
+        return (batch, row) -> {
+            double amount = batch.row(row).getAmount().abs().doubleValue();
+            StatKey merchant = batch.merchantKey(row);
+            String detail = merchant != null
+                    ? unusual(batch.history(merchant), amount, "at " + merchant.key(), z, ratio, samples)
+                    : null;
+            if (detail == null)
+                detail = unusual(batch.history(batch.categoryKey(row)), amount, "in its category", z, ratio, samples);
+            return detail;
+        };
+    }
+
+    /** Detail for an amount far above its series, or null; series with too few samples never flag. */
+    private static String unusual(AmountStats stats, double amount, String where, double zBound, double ratioBound,
+            double minSamples) {
+        if (stats == null || stats.n() < minSamples)
+            return null;
+        double z = stats.zScore(amount);
+        if (z >= zBound)
+            return String.format("%.1f standard deviations above the usual %.2f %s", z, stats.mean(), where);
+        double ratio = stats.ratioToMedian(amount);
+        if (ratio >= ratioBound)
+            return String.format("%.1f× the typical %.2f %s", ratio, stats.median(), where);
+        return null;
+    }
+}
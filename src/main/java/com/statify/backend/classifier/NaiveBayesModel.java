@@ -0,0 +1,167 @@
+package com.statify.backend.classifier;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multinomial naive Bayes over merchant tokens with Laplace smoothing. Counts live in
+ * primitive tables: an open-addressing token dictionary (String → dense token id) and,
+ * per token, an {@code int[]} of counts indexed by dense category slot, so training and
+ * scoring never box. Counts are set, not added: the model mirrors the stored ones.
+ * Not thread-safe; {@link TokenClassifier} guards it.
+ */
+public final class NaiveBayesModel {
+
+    /** Winning category and its posterior probability. */
+    public record Prediction(int categoryId, double confidence) {
+    }
+
+    // ── Token dictionary (open addressing, linear probing) ───────────────────
+    private String[] keys = new String[256];
+    private int[] slotIds = new int[256];
+    private int tokenCount;
+
+    /** counts[tokenId][categorySlot]; rows grow lazily as categories appear. */
+    private int[][] counts = new int[128][];
+
+    // ── Per-category totals, by dense slot ───────────────────────────────────
+    private int[] categoryIds = new int[8];
+    private int[] docs = new int[8];
+    private long[] tokenTotals = new long[8];
+    private int categoryCount;
+    private long totalDocs;
+
+    /** Sets how many examples the category has; a category with none is not created. */
+    public void setExamples(int categoryId, int examples) {
+        int slot = categorySlot(categoryId, examples > 0);
+        if (slot < 0)
+            return;
+        totalDocs += examples - docs[slot];
+        docs[slot] = examples;
+    }
+
+    /** Sets how many of the category's examples contain {@code token}. */
+    public void setTokenCount(String token, int categoryId, int examples) {
+        int slot = categorySlot(categoryId, examples > 0);
+        if (slot < 0)
+            return;
+        int id = examples > 0 ? tokenIdOrAdd(token) : tokenId(token);
+        if (id < 0)
+            return;
+        int[] row = counts[id];
+        if (row == null || row.length <= slot) {
+            row = row == null ? new int[categoryCount] : Arrays.copyOf(row, categoryCount);
+            counts[id] = row;
+        }
+        tokenTotals[slot] += examples - row[slot];
+        row[slot] = examples;
+    }
+
+    /**
+     * Most probable category for {@code tokens}, or null when none of them has been seen.
+     * Unknown tokens are ignored rather than smoothed, so they cannot tilt the result.
+     */
+    public Prediction predict(List<String> tokens) {
+        if (categoryCount == 0)
+            return null;
+        double[] scores = new double[categoryCount];
+        double logTotal = Math.log(totalDocs + categoryCount);
+        for (int c = 0; c < categoryCount; c++)
+            scores[c] = Math.log(docs[c] + 1) - logTotal;
+
+        int vocabulary = tokenCount;
+        int known = 0;
+        for (String token : tokens) {
+            int id = tokenId(token);
+            if (id < 0)
+                continue;
+            known++;
+            int[] row = counts[id];
+            for (int c = 0; c < categoryCount; c++) {
+                int count = c < row.length ? row[c] : 0;
+                scores[c] += Math.log(count + 1);
+            }
+        }
+        if (known == 0)
+            return null;
+
+        int best = 0;
+        for (int c = 0; c < categoryCount; c++) {
+            scores[c] -= known * Math.log(tokenTotals[c] + vocabulary);
+            if (scores[c] > scores[best])
+                best = c;
+        }
+        double norm = 0;
+        for (int c = 0; c < categoryCount; c++)
+            norm += Math.exp(scores[c] - scores[best]);
+        return new Prediction(categoryIds[best], 1 / norm);
+    }
+
+    public long totalDocs() {
+        return totalDocs;
+    }
+
+    public int vocabulary() {
+        return tokenCount;
+    }
+
+    // ── Internals ────────────────────────────────────────────────────────────
+    private int categorySlot(int categoryId, boolean create) {
+        for (int c = 0; c < categoryCount; c++) {
+            if (categoryIds[c] == categoryId)
+                return c;
+        }
+        if (!create)
+            return -1;
+        if (categoryCount == categoryIds.length) {
+            categoryIds = Arrays.copyOf(categoryIds, categoryCount * 2);
+            docs = Arrays.copyOf(docs, categoryCount * 2);
+            tokenTotals = Arrays.copyOf(tokenTotals, categoryCount * 2);
+        }
+        categoryIds[categoryCount] = categoryId;
+        return categoryCount++;
+    }
+
+    private int tokenId(String token) {
+        int mask = keys.length - 1;
+        for (int i = token.hashCode() & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(token))
+                return slotIds[i];
+        }
+        return -1;
+    }
+
+    private int tokenIdOrAdd(String token) {
+        int id = tokenId(token);
+        if (id >= 0)
+            return id;
+        if ((tokenCount + 1) * 2 > keys.length)
+            rehash(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = token.hashCode() & mask;
+        while (keys[i] != null)
+            i = (i + 1) & mask;
+        keys[i] = token;
+        slotIds[i] = tokenCount;
+        if (tokenCount == counts.length)
+            counts = Arrays.copyOf(counts, tokenCount * 2);
+        return tokenCount++;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldIds = slotIds;
+        keys = new String[capacity];
+        slotIds = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null)
+                continue;
+            int i = oldKeys[j].hashCode() & mask;
+            while (keys[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            slotIds[i] = oldIds[j];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.statify.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes for the replica: uploads written within the lag window are read
+ * from the primary, since the replica may not have replayed the rows yet.
+ * A no-op unless {@link ReplicaRoutingDataSource} is installed.
+ *
+ * <p>Write times are kept in this process only. With several instances behind a load
+ * balancer, a read that lands on an instance other than the writer's goes to the replica
+ * and may miss the write. Run one instance while the replica is enabled, or keep each
+ * client on one instance (sticky sessions).
+ */
+@Component
+public class ReplicaLagGuard {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final Map<UUID, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    @Value("${statify.datasource.replica.lag-window:10s}")
+    private Duration lagWindow = Duration.ofSeconds(10);
+
+    /** Records a committed write to the upload (ingest completion, override, review). */
+    public void markWritten(UUID uploadId) {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(at -> now - at > lagWindow.toNanos());
+        lastWriteNanos.put(uploadId, now);
+    }
+
+    public boolean recentlyWritten(UUID uploadId) {
+        Long at = lastWriteNanos.get(uploadId);
+        return at != null && System.nanoTime() - at <= lagWindow.toNanos();
+    }
+
+    /**
+     * Called at the top of a read-only transaction, before its first query: pins the
+     * transaction to the primary if the upload was written too recently.
+     */
+    public void routeFor(UUID uploadId) {
+        if (!recentlyWritten(uploadId) || !TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                FORCE_PRIMARY.remove();
+            }
+        });
+    }
+
+    static boolean isPrimaryForced() {
+        return FORCE_PRIMARY.get() != null;
+    }
+}
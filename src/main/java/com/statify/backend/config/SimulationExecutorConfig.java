@@ -0,0 +1,30 @@
+package com.statify.backend.config;
+
+import com.statify.backend.service.RuleSimulationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workers for rule simulations, shared by every request. {@code simulate-parallelism}
+ * threads bound the connections simulations hold at once; the queue is sized for the
+ * uploads of {@code simulate-max-concurrent} simulations, which RuleSimulationService
+ * caps, so a submit is never rejected.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SimulationExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    ExecutorService simulationExecutor(@Value("${statify.rules.simulate-parallelism:4}") int parallelism,
+            @Value("${statify.rules.simulate-max-concurrent:2}") int maxConcurrent) {
+        ThreadFactory threads = Thread.ofPlatform().name("simulate-", 1).daemon(true).factory();
+        return new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxConcurrent) * RuleSimulationService.MAX_UPLOADS), threads);
+    }
+}
@@ -1,12 +1,15 @@
 package com.statify.backend.controller;
 
-import com.statify.backend.entity.Anomaly;
-import com.statify.backend.repository.AnomalyRepository;
+import com.statify.backend.dto.AnomalyRuleUpdate;
+import com.statify.backend.dto.AnomalyRuleView;
+import com.statify.backend.dto.AnomalyView;
+import com.statify.backend.service.AnomalyRuleSettingsService;
+import com.statify.backend.service.AnomalyService;
+import com.statify.backend.service.TransactionQueryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,17 +18,21 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AnomalyController {
 
-    private final AnomalyRepository anomalyRepository;
+    private final TransactionQueryService transactionQueryService;
+    private final AnomalyService anomalyService;
+    private final AnomalyRuleSettingsService anomalyRuleSettingsService;
+
+    private static final int MAX_ACCOUNT_KEY = 64;
 
     /** GET /api/v1/uploads/:id/anomalies — list anomalies for an upload */
     @GetMapping("/uploads/{uploadId}/anomalies")
-    public ResponseEntity<List<Anomaly>> listAnomalies(@PathVariable UUID uploadId) {
-        return ResponseEntity.ok(anomalyRepository.findByUploadId(uploadId));
+    public ResponseEntity<List<AnomalyView>> listAnomalies(@PathVariable UUID uploadId) {
+        return ResponseEntity.ok(transactionQueryService.getAnomalies(uploadId));
     }
 
     /** PATCH /api/v1/anomalies/:id/status — confirm or dismiss */
     @PatchMapping("/anomalies/{id}/status")
-    public ResponseEntity<Anomaly> updateStatus(
+    public ResponseEntity<AnomalyView> updateStatus(
             @PathVariable UUID id,
             @RequestParam String status) {
 
@@ -33,12 +40,47 @@ public class AnomalyController {
             return ResponseEntity.badRequest().build();
         }
 
-        return anomalyRepository.findById(id)
-                .map(a -> {
-                    a.setStatus(status);
-                    a.setReviewedAt(OffsetDateTime.now());
-                    return ResponseEntity.ok(anomalyRepository.save(a));
-                })
+        return anomalyService.reviewAnomaly(id, status)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /** GET /api/v1/anomaly-rules — every rule with the account's effective settings */
+    @GetMapping("/anomaly-rules")
+    public ResponseEntity<List<AnomalyRuleView>> listRules(@RequestParam(defaultValue = "default") String account) {
+        String accountKey = account.trim();
+        if (!isValidAccountKey(accountKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(anomalyRuleSettingsService.list(accountKey));
+    }
+
+    /** PUT /api/v1/anomaly-rules/:rule — enable/disable, severity and thresholds for one account */
+    @PutMapping("/anomaly-rules/{rule}")
+    public ResponseEntity<AnomalyRuleView> updateRule(
+            @PathVariable String rule,
+            @RequestParam(defaultValue = "default") String account,
+            @RequestBody AnomalyRuleUpdate req) {
+        String accountKey = account.trim();
+        if (!isValidAccountKey(accountKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(anomalyRuleSettingsService.update(accountKey, rule, req));
+    }
+
+    /** DELETE /api/v1/anomaly-rules/:rule — back to the rule's defaults for one account */
+    @DeleteMapping("/anomaly-rules/{rule}")
+    public ResponseEntity<AnomalyRuleView> resetRule(
+            @PathVariable String rule,
+            @RequestParam(defaultValue = "default") String account) {
+        String accountKey = account.trim();
+        if (!isValidAccountKey(accountKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(anomalyRuleSettingsService.reset(accountKey, rule));
+    }
+
+    private static boolean isValidAccountKey(String accountKey) {
+        return !accountKey.isEmpty() && accountKey.length() <= MAX_ACCOUNT_KEY;
+    }
 }
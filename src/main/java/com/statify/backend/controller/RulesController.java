@@ -1,9 +1,16 @@
 package com.statify.backend.controller;
 
+import com.statify.backend.dto.RecategorizationProgress;
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.dto.SimulationRequest;
+import com.statify.backend.dto.SimulationResult;
 import com.statify.backend.entity.CategorizationRule;
 import com.statify.backend.entity.Category;
 import com.statify.backend.repository.CategorizationRuleRepository;
 import com.statify.backend.repository.CategoryRepository;
+import com.statify.backend.service.RecategorizationService;
+import com.statify.backend.service.RuleService;
+import com.statify.backend.service.RuleSimulationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +25,9 @@ public class RulesController {
 
     private final CategorizationRuleRepository ruleRepository;
     private final CategoryRepository categoryRepository;
+    private final RuleService ruleService;
+    private final RecategorizationService recategorizationService;
+    private final RuleSimulationService ruleSimulationService;
 
     /** GET /api/v1/categories */
     @GetMapping("/categories")
@@ -34,17 +44,9 @@ public class RulesController {
     /** POST /api/v1/rules */
     @PostMapping("/rules")
     public ResponseEntity<CategorizationRule> addRule(@RequestBody RuleRequest req) {
-        Category cat = categoryRepository.findById(req.categoryId()).orElse(null);
-        if (cat == null)
-            return ResponseEntity.badRequest().build();
-
-        CategorizationRule rule = new CategorizationRule();
-        rule.setKeyword(req.keyword());
-        rule.setCategory(cat);
-        rule.setPriority(req.priority() != null ? req.priority() : 0);
-        rule.setMatchCount(0);
-        rule.setSystem(false);
-        return ResponseEntity.ok(ruleRepository.save(rule));
+        return ruleService.addRule(req)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.badRequest().build());
     }
 
     /** PUT /api/v1/rules/:id */
@@ -53,19 +55,25 @@ public class RulesController {
             @PathVariable Integer id,
             @RequestBody RuleRequest req) {
 
-        return ruleRepository.findById(id)
-                .map(rule -> {
-                    rule.setKeyword(req.keyword());
-                    if (req.categoryId() != null) {
-                        categoryRepository.findById(req.categoryId()).ifPresent(rule::setCategory);
-                    }
-                    if (req.priority() != null)
-                        rule.setPriority(req.priority());
-                    return ResponseEntity.ok(ruleRepository.save(rule));
-                })
+        return ruleService.updateRule(id, req)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /** POST /api/v1/rules/simulate — dry run of proposed rules over recent uploads; nothing is saved */
+    @PostMapping("/rules/simulate")
+    public ResponseEntity<SimulationResult> simulate(@RequestBody SimulationRequest req) {
+        return ResponseEntity.ok(ruleSimulationService.simulate(req));
+    }
+
+    /** GET /api/v1/rules/recategorization — progress of the latest history re-categorization; 204 if none ran */
+    @GetMapping("/rules/recategorization")
+    public ResponseEntity<RecategorizationProgress> recategorizationProgress() {
+        return recategorizationService.progress()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
     /** DELETE /api/v1/rules/:id — 403 if system rule */
     @DeleteMapping("/rules/{id}")
     public ResponseEntity<Object> deleteRule(@PathVariable Integer id) {
@@ -75,12 +83,9 @@ public class RulesController {
                         return ResponseEntity.status(HttpStatus.FORBIDDEN)
                                 .body((Object) "System rules cannot be deleted.");
                     }
-                    ruleRepository.delete(rule);
+                    ruleService.deleteRule(rule);
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-
-    record RuleRequest(String keyword, Integer categoryId, Integer priority) {
-    }
 }
@@ -1,24 +1,27 @@
 package com.statify.backend.controller;
 
-import com.statify.backend.entity.Transaction;
+import com.statify.backend.dto.BulkOverrideRequest;
+import com.statify.backend.dto.BulkOverrideResult;
+import com.statify.backend.dto.TransactionPage;
+import com.statify.backend.dto.TransactionView;
 import com.statify.backend.entity.Upload;
 import com.statify.backend.exception.UnsupportedFileTypeException;
-import com.statify.backend.repository.AnomalyRepository;
-import com.statify.backend.repository.TransactionRepository;
 import com.statify.backend.repository.UploadRepository;
+import com.statify.backend.service.BulkOverrideService;
+import com.statify.backend.service.CategorizationService;
 import com.statify.backend.service.ReportService;
+import com.statify.backend.service.TransactionQueryService;
 import com.statify.backend.service.UploadService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/uploads")
@@ -27,16 +30,31 @@ public class UploadController {
 
     private final UploadService uploadService;
     private final UploadRepository uploadRepository;
-    private final TransactionRepository transactionRepository;
-    private final AnomalyRepository anomalyRepository;
+    private final CategorizationService categorizationService;
+    private final BulkOverrideService bulkOverrideService;
+    private final TransactionQueryService transactionQueryService;
     private final ReportService reportService;
 
     private static final Set<String> ALLOWED_EXTENSIONS = Set.of("xlsx", "xls", "pdf", "csv");
     private static final long MAX_SIZE_BYTES = 10L * 1024 * 1024; // 10 MB
-
-    /** POST /api/v1/uploads */
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_ACCOUNT_KEY = 64;
+
+    /**
+     * POST /api/v1/uploads — {@code account} names the statement's source (overlaps with its
+     * earlier uploads are detected); {@code duplicates=skip} leaves such rows out instead of
+     * flagging them.
+     */
     @PostMapping
-    public ResponseEntity<Upload> uploadFile(@RequestParam("file") MultipartFile file) throws IOException {
+    public ResponseEntity<Upload> uploadFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "default") String account,
+            @RequestParam(defaultValue = "flag") String duplicates) throws IOException {
+        String accountKey = account.trim();
+        if (accountKey.isEmpty() || accountKey.length() > MAX_ACCOUNT_KEY
+                || !(duplicates.equals("flag") || duplicates.equals("skip"))) {
+            return ResponseEntity.badRequest().build();
+        }
         // File type validation
         String ext = getExtension(file.getOriginalFilename());
         if (!ALLOWED_EXTENSIONS.contains(ext)) {
@@ -47,7 +65,25 @@ public class UploadController {
             throw new org.springframework.web.multipart.MaxUploadSizeExceededException(MAX_SIZE_BYTES);
         }
 
-        Upload upload = uploadService.initiateUpload(file);
+        Upload upload = uploadService.initiateUpload(file, accountKey, duplicates.equals("skip"));
+        uploadService.processUpload(upload.getId(), file);
+        return ResponseEntity.accepted().body(upload);
+    }
+
+    /**
+     * POST /api/v1/uploads/:id/resume — re-run a failed upload from its last committed chunk;
+     * the file must be the one the upload was started with, and no later upload may have
+     * taken over its rows
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<Upload> resumeUpload(
+            @PathVariable UUID id,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        Upload upload = uploadRepository.findById(id).orElseThrow();
+        if (!"failed".equals(upload.getStatus()) || !upload.isResumable()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(upload);
+        }
+        uploadService.checkSameFile(upload, file);
         uploadService.processUpload(upload.getId(), file);
         return ResponseEntity.accepted().body(upload);
     }
@@ -62,81 +98,52 @@ public class UploadController {
 
     /** GET /api/v1/uploads/:id/preview — first 10 rows */
     @GetMapping("/{id}/preview")
-    public ResponseEntity<List<Transaction>> getPreview(@PathVariable UUID id) {
-        List<Transaction> all = transactionRepository.findByUploadIdOrderByTxnDate(id);
-        return ResponseEntity.ok(all.stream().limit(10).collect(Collectors.toList()));
+    public ResponseEntity<List<TransactionView>> getPreview(@PathVariable UUID id) {
+        return ResponseEntity.ok(transactionQueryService.getPreview(id));
     }
 
-    /** GET /api/v1/uploads/:id/transactions — with optional filters */
+    /**
+     * GET /api/v1/uploads/:id/transactions — optional filters; keyset-paginated once a
+     * {@code cursor} or {@code limit} is given, else every row. The body stays a plain
+     * array; the next page's cursor comes back in X-Next-Cursor.
+     */
     @GetMapping("/{id}/transactions")
-    public ResponseEntity<List<Transaction>> getTransactions(
+    public ResponseEntity<List<TransactionView>> getTransactions(
             @PathVariable UUID id,
             @RequestParam(required = false) Integer categoryId,
-            @RequestParam(required = false) String keyword) {
-
-        List<Transaction> txns = transactionRepository.findByUploadIdOrderByTxnDate(id);
-
-        if (categoryId != null) {
-            txns = txns.stream().filter(t -> Objects.equals(t.getCategoryId(), categoryId))
-                    .collect(Collectors.toList());
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        TransactionPage page = transactionQueryService.getTransactions(id, categoryId, keyword, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
         }
-        if (keyword != null && !keyword.isBlank()) {
-            String lower = keyword.toLowerCase();
-            txns = txns.stream()
-                    .filter(t -> t.getDescription().toLowerCase().contains(lower))
-                    .collect(Collectors.toList());
-        }
-        return ResponseEntity.ok(txns);
+        return response.body(page.items());
     }
 
     /** GET /api/v1/uploads/:id/summary — dashboard cards */
     @GetMapping("/{id}/summary")
     public ResponseEntity<Map<String, Object>> getSummary(@PathVariable UUID id) {
-        List<Transaction> txns = transactionRepository.findByUploadIdOrderByTxnDate(id);
-        long anomalyCount = anomalyRepository.findByUploadId(id).size();
-
-        BigDecimal totalIncome = txns.stream()
-                .filter(t -> t.getAmount().compareTo(BigDecimal.ZERO) > 0)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalExpense = txns.stream()
-                .filter(t -> t.getAmount().compareTo(BigDecimal.ZERO) < 0)
-                .map(t -> t.getAmount().abs())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal net = totalIncome.subtract(totalExpense);
-
-        // Category breakdown for donut chart
-        Map<Integer, BigDecimal> byCategory = txns.stream()
-                .filter(t -> t.getAmount().compareTo(BigDecimal.ZERO) < 0 && t.getCategoryId() != null)
-                .collect(Collectors.groupingBy(
-                        Transaction::getCategoryId,
-                        Collectors.reducing(BigDecimal.ZERO, t -> t.getAmount().abs(), BigDecimal::add)));
-
-        return ResponseEntity.ok(Map.of(
-                "totalIncome", totalIncome,
-                "totalExpense", totalExpense,
-                "netBalance", net,
-                "anomalyCount", anomalyCount,
-                "txnCount", txns.size(),
-                "byCategory", byCategory));
+        return ResponseEntity.ok(transactionQueryService.getSummary(id));
     }
 
     /** PATCH /api/v1/transactions/:txnId/category */
     @PatchMapping("/transactions/{txnId}/category")
-    public ResponseEntity<Transaction> overrideCategory(
+    public ResponseEntity<TransactionView> overrideCategory(
             @PathVariable UUID txnId,
             @RequestParam Integer categoryId) {
-        return transactionRepository.findById(txnId)
-                .map(txn -> {
-                    txn.setCategoryId(categoryId);
-                    txn.setOverride(true);
-                    return ResponseEntity.ok(transactionRepository.save(txn));
-                })
+        return categorizationService.overrideCategory(txnId, categoryId)
+                .map(txn -> ResponseEntity.ok(TransactionView.from(txn)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /** PATCH /api/v1/uploads/transactions/category — many rows, or every row like one, in one UPDATE */
+    @PatchMapping("/transactions/category")
+    public ResponseEntity<BulkOverrideResult> overrideCategories(@RequestBody BulkOverrideRequest request) {
+        return ResponseEntity.ok(bulkOverrideService.override(request));
+    }
+
     @GetMapping("/{id}/report")
     public ResponseEntity<byte[]> getReport(@PathVariable UUID id) {
         try {
@@ -0,0 +1,11 @@
+package com.statify.backend.dto;
+
+import java.util.Map;
+
+/**
+ * Body of PUT /api/v1/anomaly-rules/:rule. Replaces the account's override: a null
+ * {@code enabled} means enabled, a null {@code severity} the rule's own, and parameters
+ * left out of {@code params} their defaults.
+ */
+public record AnomalyRuleUpdate(Boolean enabled, String severity, Map<String, Double> params) {
+}
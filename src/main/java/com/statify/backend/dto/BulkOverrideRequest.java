@@ -0,0 +1,20 @@
+package com.statify.backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Body of PATCH /api/v1/uploads/transactions/category. Targets either the listed
+ * {@code transactionIds}, or every row sharing the merchant key (else description) of
+ * {@code similarTo}, within its upload ({@code scope} "upload", the default) or across all
+ * uploads ("all"). {@code createRule} also saves a merchant-key rule for that match text,
+ * so future uploads land in the category without an override.
+ */
+public record BulkOverrideRequest(
+        Integer categoryId,
+        List<UUID> transactionIds,
+        UUID similarTo,
+        String scope,
+        boolean createRule,
+        Integer rulePriority) {
+}
@@ -0,0 +1,17 @@
+package com.statify.backend.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * State of the latest background re-categorization. {@code status} is running, done or
+ * failed; {@code scanned} counts candidate rows checked, {@code updated} rows that moved.
+ */
+public record RecategorizationProgress(
+        long version,
+        int ruleId,
+        String status,
+        long scanned,
+        long updated,
+        OffsetDateTime startedAt,
+        OffsetDateTime finishedAt) {
+}
@@ -0,0 +1,29 @@
+package com.statify.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Body of POST/PUT /api/v1/rules. Every condition is optional but at least one must be
+ * set; a PUT replaces the rule's conditions as a whole. {@code direction} is DEBIT or CREDIT,
+ * amounts bound the magnitude, days are 1..31 (dayFrom &gt; dayTo wraps month end).
+ */
+public record RuleRequest(
+        String keyword,
+        Integer categoryId,
+        Integer priority,
+        BigDecimal amountMin,
+        BigDecimal amountMax,
+        String direction,
+        Integer dayFrom,
+        Integer dayTo,
+        LocalDate dateFrom,
+        LocalDate dateTo,
+        String descriptionRegex,
+        String merchantKey) {
+
+    /** Keyword-only rule. */
+    public RuleRequest(String keyword, Integer categoryId, Integer priority) {
+        this(keyword, categoryId, priority, null, null, null, null, null, null, null, null, null);
+    }
+}
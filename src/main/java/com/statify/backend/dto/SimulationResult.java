@@ -0,0 +1,27 @@
+package com.statify.backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a rule dry run. {@code newlyCategorized} rows have no category today and
+ * would get one; {@code changed} rows would move to a different category or lose theirs.
+ * Overridden rows are counted in {@code rowsScanned} only. {@code samples} holds the first
+ * few changes found, in no particular order.
+ */
+public record SimulationResult(
+        int uploads,
+        long rowsScanned,
+        long newlyCategorized,
+        long changed,
+        List<RuleHits> hits,
+        List<SampleChange> samples,
+        long elapsedMs) {
+
+    /** {@code ruleId} is null for a proposed new rule; {@code index} is its position in the request. */
+    public record RuleHits(Integer ruleId, Integer index, String keyword, Integer categoryId, long hits) {
+    }
+
+    public record SampleChange(UUID transactionId, String description, Integer fromCategoryId, Integer toCategoryId) {
+    }
+}
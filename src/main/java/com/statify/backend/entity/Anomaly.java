@@ -3,18 +3,26 @@ package com.statify.backend.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.UuidGenerator;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "anomalies")
+@Table(name = "anomalies", indexes = {
+        @Index(name = "idx_anomalies_transaction", columnList = "transaction_id"),
+        @Index(name = "idx_anomalies_upload_status_severity", columnList = "upload_id, status, severity")
+})
 @Getter
 @Setter
 public class Anomaly {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
+    /** Copied from the transaction at detection time so review queries skip the join to uploads. */
+    @Column(name = "upload_id", nullable = false)
+    private UUID uploadId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "transaction_id", nullable = false)
     private Transaction transaction;
@@ -0,0 +1,47 @@
+package com.statify.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/** One account's override of an anomaly rule; read on every upload, written by hand. */
+@Entity
+@Table(name = "anomaly_rule_settings")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@Setter
+public class AnomalyRuleSetting {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "account_key", nullable = false, length = 64)
+    private String accountKey;
+
+    @Column(name = "rule_name", nullable = false, length = 50)
+    private String ruleName;
+
+    @Column(nullable = false)
+    private boolean enabled = true;
+
+    /** Null keeps the rule's default severity. */
+    @Column(length = 10)
+    private String severity;
+
+    /** Threshold name → value; names left out keep the rule's default. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private Map<String, Double> params = new HashMap<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt = OffsetDateTime.now();
+}
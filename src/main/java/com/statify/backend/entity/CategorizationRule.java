@@ -3,10 +3,16 @@ package com.statify.backend.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "categorization_rules")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 public class CategorizationRule {
@@ -14,9 +20,39 @@ public class CategorizationRule {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(nullable = false)
+    /** Substring of the description; null for rules that only use the conditions below. */
     private String keyword;
 
+    // ── Structured conditions (all optional, ANDed with the keyword) ──────────
+    @Column(name = "amount_min")
+    private BigDecimal amountMin;
+
+    @Column(name = "amount_max")
+    private BigDecimal amountMax;
+
+    /** "DEBIT" (amount &lt; 0) or "CREDIT" (amount &gt; 0). */
+    private String direction;
+
+    /** Day-of-month window, 1..31; wraps around month end when dayFrom &gt; dayTo. */
+    @Column(name = "day_from")
+    private Integer dayFrom;
+
+    @Column(name = "day_to")
+    private Integer dayTo;
+
+    @Column(name = "date_from")
+    private LocalDate dateFrom;
+
+    @Column(name = "date_to")
+    private LocalDate dateTo;
+
+    @Column(name = "description_regex")
+    private String descriptionRegex;
+
+    /** Exact normalized merchant key, as produced at ingest. */
+    @Column(name = "merchant_key")
+    private String merchantKey;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
@@ -3,18 +3,19 @@ package com.statify.backend.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.UuidGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = @Index(name = "idx_transactions_upload_date_id", columnList = "upload_id, txn_date, id"))
 @Getter
 @Setter
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -27,6 +28,10 @@ public class Transaction {
     @Column(nullable = false)
     private String description;
 
+    /** Description with volatile tokens stripped (see DescriptionNormalizer); null on legacy rows. */
+    @Column(name = "merchant_key")
+    private String merchantKey;
+
     @Column(nullable = false)
     private BigDecimal amount;
 
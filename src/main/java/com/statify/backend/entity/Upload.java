@@ -3,6 +3,7 @@ package com.statify.backend.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.UuidGenerator;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
@@ -12,7 +13,7 @@ import java.util.UUID;
 @Setter
 public class Upload {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @Column(nullable = false)
@@ -24,9 +25,40 @@ public class Upload {
     @Column(nullable = false)
     private String status = "pending";
 
+    /** Rows parsed from the file; set before the first chunk commits. */
     @Column(name = "row_count")
     private Integer rowCount;
 
+    /** SHA-256 of the uploaded file, hex; a resume must present the same file. */
+    @Column(name = "file_sha256", length = 64)
+    private String fileSha256;
+
+    @Column(name = "committed_rows", nullable = false)
+    private Integer committedRows = 0;
+
+    /** rule_set_state version the upload was categorized with. */
+    @Column(name = "rule_version")
+    private Long ruleVersion;
+
+    /** Source account; overlapping statements are detected per account. */
+    @Column(name = "account_key", nullable = false, length = 64)
+    private String accountKey = "default";
+
+    /** Rows already imported by an earlier upload of the account are left out instead of flagged. */
+    @Column(name = "skip_duplicates", nullable = false)
+    private boolean skipDuplicates = false;
+
+    /** Rows already imported by an earlier upload of the account (skipped or flagged). */
+    @Column(name = "duplicate_rows", nullable = false)
+    private Integer duplicateRows = 0;
+
+    /**
+     * False once a later upload of the account has taken over this failed upload's rows;
+     * only {@code FingerprintRepository} clears it, so an entity save never sets it back.
+     */
+    @Column(nullable = false, updatable = false)
+    private boolean resumable = true;
+
     @Column(name = "error_msg")
     private String errorMsg;
 
@@ -0,0 +1,7 @@
+package com.statify.backend.exception;
+
+public class FileMismatchException extends RuntimeException {
+    public FileMismatchException(String message) {
+        super(message);
+    }
+}
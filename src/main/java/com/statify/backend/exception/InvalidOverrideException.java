@@ -0,0 +1,7 @@
+package com.statify.backend.exception;
+
+public class InvalidOverrideException extends RuntimeException {
+    public InvalidOverrideException(String message) {
+        super(message);
+    }
+}
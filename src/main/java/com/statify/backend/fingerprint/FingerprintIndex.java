@@ -0,0 +1,133 @@
+package com.statify.backend.fingerprint;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.repository.BulkInsertRepository;
+import com.statify.backend.repository.FingerprintRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Finds rows an account has already imported. Every imported row leaves a 64-bit
+ * fingerprint in {@code transaction_fingerprints}, whose primary key is the authority; a
+ * per-account {@link BloomFilter} in front of it means only the few fingerprints it might
+ * hold are looked up, never the account's history. A filter is filled once per account
+ * and process, then grows with what this process inserts. Fingerprints inserted by other
+ * instances are missing from it, and the unique key catches those at insert instead.
+ * Fingerprints held by a failed upload do not make a row a duplicate: the next upload of
+ * the account that reaches them takes them over.
+ */
+@Slf4j
+@Component
+public class FingerprintIndex {
+
+    private static final int MIN_CAPACITY = 1 << 16;
+    private static final double FPP = 0.01;
+
+    private final FingerprintRepository fingerprintRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final Cache<String, BloomFilter> filters;
+
+    public FingerprintIndex(FingerprintRepository fingerprintRepository, BulkInsertRepository bulkInsertRepository,
+            @Value("${statify.ingest.fingerprint-accounts:1000}") long maxAccounts) {
+        this.fingerprintRepository = fingerprintRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.filters = Caffeine.newBuilder().maximumSize(maxAccounts).build();
+    }
+
+    /** One fingerprint per row, in statement order; repeats of a row count as further occurrences. */
+    public static long[] fingerprints(List<Transaction> transactions) {
+        long[] fingerprints = new long[transactions.size()];
+        Map<DuplicateKey, Integer> occurrences = new HashMap<>(transactions.size() * 2);
+        for (int i = 0; i < fingerprints.length; i++) {
+            DuplicateKey key = DuplicateKey.of(transactions.get(i));
+            fingerprints[i] = key.fingerprint(occurrences.merge(key, 1, Integer::sum) - 1);
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Claims one chunk's fingerprints for {@code uploadId} in the caller's transaction.
+     * Returns, by position in {@code fingerprints}, the earlier upload that already holds
+     * each row that is a duplicate; those fingerprints stay with their owner.
+     */
+    public Map<Integer, UUID> claim(String accountKey, UUID uploadId, long[] fingerprints) {
+        BloomFilter filter = filters.get(accountKey, this::load);
+
+        List<Long> candidates = new ArrayList<>();
+        for (long fingerprint : fingerprints) {
+            if (filter.mightContain(fingerprint))
+                candidates.add(fingerprint);
+        }
+        Map<Long, UUID> owners = fingerprintRepository.findOwners(accountKey, candidates);
+        // Rows a failed upload committed are not imported; this upload takes them over
+        candidates.removeIf(owners::containsKey);
+        Set<Long> taken = fingerprintRepository.takeOverFailed(accountKey, uploadId, candidates);
+
+        long[] fresh = new long[fingerprints.length - owners.size() - taken.size()];
+        int n = 0;
+        for (long fingerprint : fingerprints) {
+            if (!owners.containsKey(fingerprint) && !taken.contains(fingerprint))
+                fresh[n++] = fingerprint;
+        }
+        Set<Long> inserted = bulkInsertRepository.insertFingerprints(accountKey, uploadId, fresh);
+        if (inserted.size() < fresh.length) {
+            // Claimed by another instance since our filter was filled
+            List<Long> lost = new ArrayList<>();
+            for (long fingerprint : fresh) {
+                if (!inserted.contains(fingerprint))
+                    lost.add(fingerprint);
+            }
+            owners.putAll(fingerprintRepository.findOwners(accountKey, lost));
+        }
+        afterCommit(() -> remember(accountKey, filter, inserted));
+
+        Map<Integer, UUID> duplicates = new HashMap<>();
+        for (int i = 0; i < fingerprints.length; i++) {
+            UUID owner = owners.get(fingerprints[i]);
+            if (owner != null)
+                duplicates.put(i, owner);
+        }
+        return duplicates;
+    }
+
+    private BloomFilter load(String accountKey) {
+        long count = fingerprintRepository.countByAccount(accountKey);
+        BloomFilter filter = new BloomFilter((int) Math.min(Integer.MAX_VALUE / 2, Math.max(MIN_CAPACITY, count * 2)),
+                FPP);
+        fingerprintRepository.forEachFingerprint(accountKey, filter::put);
+        log.debug("Fingerprint filter for account {}: {} entries, capacity {}", accountKey, count, filter.capacity());
+        return filter;
+    }
+
+    /** Past capacity the filter is dropped, and the next upload refills a larger one. */
+    private void remember(String accountKey, BloomFilter filter, Set<Long> inserted) {
+        inserted.forEach(filter::put);
+        if (filter.size() > filter.capacity())
+            filters.asMap().remove(accountKey, filter);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
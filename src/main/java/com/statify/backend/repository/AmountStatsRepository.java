@@ -0,0 +1,75 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.anomaly.AmountStats;
+import com.statify.backend.anomaly.StatKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code amount_stats} rows (V14), read and written only by primary key: an upload reads
+ * the series its rows belong to and merges its own per-series aggregate back.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AmountStatsRepository {
+
+    /** Chan's parallel merge of the stored row (s) and the upload's aggregate (EXCLUDED). */
+    private static final String MERGE = """
+            INSERT INTO amount_stats AS s (account_key, scope, stat_key, sign, n, mean, m2, median, updated_at)
+            VALUES (:accountKey, :scope, :statKey, :sign, :n, :mean, :m2, :median, NOW())
+            ON CONFLICT (account_key, scope, stat_key, sign) DO UPDATE SET
+                n = s.n + EXCLUDED.n,
+                mean = s.mean + (EXCLUDED.mean - s.mean) * EXCLUDED.n / (s.n + EXCLUDED.n),
+                m2 = s.m2 + EXCLUDED.m2
+                        + (EXCLUDED.mean - s.mean) * (EXCLUDED.mean - s.mean) * s.n * EXCLUDED.n / (s.n + EXCLUDED.n),
+                median = EXCLUDED.median,
+                updated_at = NOW()""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Stored series among {@code keys}; keys with no row yet are absent. */
+    public Map<StatKey, AmountStats> find(String accountKey, Collection<StatKey> keys) {
+        Map<StatKey, AmountStats> found = new HashMap<>();
+        for (char scope : new char[] { StatKey.MERCHANT, StatKey.CATEGORY }) {
+            List<String> statKeys = keys.stream().filter(k -> k.scope() == scope).map(StatKey::key).distinct().toList();
+            if (statKeys.isEmpty())
+                continue;
+            jdbcTemplate.query("SELECT stat_key, sign, n, mean, m2, median FROM amount_stats"
+                    + " WHERE account_key = :accountKey AND scope = :scope AND stat_key IN (:statKeys)",
+                    new MapSqlParameterSource("accountKey", accountKey)
+                            .addValue("scope", String.valueOf(scope))
+                            .addValue("statKeys", statKeys),
+                    rs -> {
+                        found.put(new StatKey(scope, rs.getString("stat_key"), rs.getInt("sign")),
+                                new AmountStats(rs.getLong("n"), rs.getDouble("mean"), rs.getDouble("m2"),
+                                        rs.getDouble("median")));
+                    });
+        }
+        return found;
+    }
+
+    /** Merges each series' aggregate into its row, creating rows for new series. */
+    public void merge(String accountKey, Map<StatKey, AmountStats> aggregates) {
+        if (aggregates.isEmpty())
+            return;
+        SqlParameterSource[] batch = aggregates.entrySet().stream()
+                .map(e -> new MapSqlParameterSource("accountKey", accountKey)
+                        .addValue("scope", String.valueOf(e.getKey().scope()))
+                        .addValue("statKey", e.getKey().key())
+                        .addValue("sign", e.getKey().sign())
+                        .addValue("n", e.getValue().n())
+                        .addValue("mean", e.getValue().mean())
+                        .addValue("m2", e.getValue().m2())
+                        .addValue("median", e.getValue().median()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(MERGE, batch);
+    }
+}
@@ -1,5 +1,6 @@
 package com.statify.backend.repository;
 
+import com.statify.backend.dto.AnomalyView;
 import com.statify.backend.entity.Anomaly;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +11,17 @@ import java.util.UUID;
 @Repository
 public interface AnomalyRepository extends JpaRepository<Anomaly, UUID> {
 
-    @Query("SELECT a FROM Anomaly a WHERE a.transaction.upload.id = :uploadId ORDER BY a.createdAt DESC")
-    List<Anomaly> findByUploadId(UUID uploadId);
+    // Filters on the denormalized anomalies.upload_id (idx_anomalies_upload_status_severity);
+    // repeating the upload on the transaction side lets Postgres prune to one partition.
+    @Query("""
+            SELECT new com.statify.backend.dto.AnomalyView(
+                a.id, a.uploadId, a.ruleName, a.severity, a.detail, a.status, a.reviewedAt, a.createdAt,
+                t.id, t.txnDate, t.description, t.amount, t.currency, t.categoryId)
+            FROM Anomaly a JOIN a.transaction t
+            WHERE a.uploadId = :uploadId AND t.upload.id = :uploadId
+            ORDER BY a.createdAt DESC""")
+    List<AnomalyView> findViewsByUploadId(UUID uploadId);
+
+    @Query("SELECT a.transaction.id FROM Anomaly a WHERE a.uploadId = :uploadId AND a.ruleName = :ruleName")
+    List<UUID> findTransactionIds(UUID uploadId, String ruleName);
 }
@@ -0,0 +1,123 @@
+package com.statify.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The classifier's stored counts (V12). Every write is an additive upsert returning the
+ * count after it, so concurrent overrides on any instance add up instead of overwriting
+ * each other; reads stream whole tables or the rows changed since a point in time.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClassifierModelRepository {
+
+    private static final String ADD_OVERRIDE_ROWS = """
+            INSERT INTO classifier_examples AS e (match_text, category_id, override_rows)
+            VALUES (:matchText, :categoryId, :rows)
+            ON CONFLICT (match_text, category_id) DO UPDATE SET override_rows = e.override_rows + EXCLUDED.override_rows
+            RETURNING override_rows""";
+
+    private static final String ADD_TOKEN = """
+            INSERT INTO classifier_tokens AS t (token, category_id, examples, updated_at)
+            VALUES (:token, :categoryId, GREATEST(0, :delta), clock_timestamp())
+            ON CONFLICT (token, category_id) DO UPDATE SET
+                examples = GREATEST(0, t.examples + :delta), updated_at = clock_timestamp()
+            RETURNING examples""";
+
+    private static final String ADD_CATEGORY = """
+            INSERT INTO classifier_categories AS c (category_id, examples, updated_at)
+            VALUES (:categoryId, GREATEST(0, :delta), clock_timestamp())
+            ON CONFLICT (category_id) DO UPDATE SET
+                examples = GREATEST(0, c.examples + :delta), updated_at = clock_timestamp()
+            RETURNING examples""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds {@code rows} overridden rows (negative to remove) to the text's count for the
+     * category and returns the count after; a text left with none is deleted.
+     */
+    public int addOverrideRows(String matchText, int categoryId, int rows) {
+        MapSqlParameterSource params = new MapSqlParameterSource("matchText", matchText)
+                .addValue("categoryId", categoryId)
+                .addValue("rows", rows);
+        Integer after = jdbcTemplate.queryForObject(ADD_OVERRIDE_ROWS, params, Integer.class);
+        if (after == null || after <= 0) {
+            jdbcTemplate.update("DELETE FROM classifier_examples"
+                    + " WHERE match_text = :matchText AND category_id = :categoryId", params);
+            return 0;
+        }
+        return after;
+    }
+
+    /** Adds {@code delta} to each token's example count in the category; returns the counts after. */
+    public Map<String, Integer> addTokens(Collection<String> tokens, int categoryId, int delta) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : tokens) {
+            counts.put(token, jdbcTemplate.queryForObject(ADD_TOKEN, new MapSqlParameterSource("token", token)
+                    .addValue("categoryId", categoryId)
+                    .addValue("delta", delta), Integer.class));
+        }
+        return counts;
+    }
+
+    /** Adds {@code delta} to the category's example count; returns the count after. */
+    public int addExamples(int categoryId, int delta) {
+        Integer after = jdbcTemplate.queryForObject(ADD_CATEGORY,
+                new MapSqlParameterSource("categoryId", categoryId).addValue("delta", delta), Integer.class);
+        return after != null ? after : 0;
+    }
+
+    /** The database clock, which stamps {@code updated_at}. */
+    public OffsetDateTime now() {
+        return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT CURRENT_TIMESTAMP", OffsetDateTime.class);
+    }
+
+    /** Category counts changed after {@code since}, or all when null; columns: category_id, examples. */
+    public void forEachCategory(OffsetDateTime since, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT category_id, examples FROM classifier_categories" + changedAfter(since),
+                new MapSqlParameterSource("since", since), handler);
+    }
+
+    /** Token counts changed after {@code since}, or all when null; columns: token, category_id, examples. */
+    public void forEachToken(OffsetDateTime since, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT token, category_id, examples FROM classifier_tokens" + changedAfter(since),
+                new MapSqlParameterSource("since", since), handler);
+    }
+
+    /**
+     * Locks the examples table against writers for the rest of the transaction and says
+     * whether it is empty, so only one instance seeds it and no override slips in between.
+     */
+    public boolean lockIfEmpty() {
+        jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE classifier_examples IN SHARE ROW EXCLUSIVE MODE");
+        Boolean empty = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM classifier_examples)", Boolean.class);
+        return Boolean.TRUE.equals(empty);
+    }
+
+    /**
+     * Manual overrides with a category, grouped by stored match text (merchant key, else
+     * description) and category (partial index, V12); columns: merchant_key, description,
+     * category_id, override_rows.
+     */
+    public void forEachOverride(RowCallbackHandler handler) {
+        jdbcTemplate.getJdbcTemplate().query("SELECT MAX(merchant_key) AS merchant_key,"
+                + " MAX(description) AS description, category_id, COUNT(*) AS override_rows"
+                + " FROM transactions WHERE is_override = TRUE AND category_id IS NOT NULL"
+                + " GROUP BY COALESCE(merchant_key, description), category_id", handler);
+    }
+
+    private static String changedAfter(OffsetDateTime since) {
+        return since != null ? " WHERE updated_at > :since" : "";
+    }
+}
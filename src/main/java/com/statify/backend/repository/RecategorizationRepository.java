@@ -0,0 +1,130 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based reads and writes for re-categorizing stored transactions after a rule change.
+ * Candidates are found through indexes, never by scanning every row: rows the rule owns
+ * via {@code matched_rule_id}, plus rows whose match text contains the rule's keyword
+ * (trigram index) or whose merchant key equals the rule's (btree), all from V11. Manually
+ * overridden rows are never returned or touched.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RecategorizationRepository {
+
+    private static final String CANDIDATE_COLUMNS =
+            "id, upload_id, txn_date, description, merchant_key, amount, category_id, matched_rule_id";
+
+    private static final RowMapper<Candidate> CANDIDATE_MAPPER = (rs, i) -> {
+        Transaction txn = new Transaction();
+        txn.setId(rs.getObject("id", UUID.class));
+        txn.setTxnDate(rs.getObject("txn_date", LocalDate.class));
+        txn.setDescription(rs.getString("description"));
+        txn.setMerchantKey(rs.getString("merchant_key"));
+        txn.setAmount(rs.getBigDecimal("amount"));
+        txn.setCategoryId(rs.getObject("category_id", Integer.class));
+        txn.setMatchedRuleId(rs.getObject("matched_rule_id", Integer.class));
+        return new Candidate(rs.getObject("upload_id", UUID.class), txn);
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** A stored row, detached; {@code txn} carries only what rule matching reads. */
+    public record Candidate(UUID uploadId, Transaction txn) {
+    }
+
+    /** Current category and rule of a locked row. */
+    public record Assignment(Integer categoryId, Integer ruleId) {
+    }
+
+    /**
+     * Next keyset page of rows that {@code ruleId} owns or could now match, after the row
+     * ({@code afterUploadId}, {@code afterId}). Pass a null keyword and merchant key to find
+     * only owned rows; with {@code scanAll} every row is a candidate (rules with neither a
+     * keyword nor a merchant key have no index to use).
+     *
+     * <p>The keyset is the primary key, (upload_id, id), so each partition's PK index can
+     * resume at the last row in key order and a merge of them stops at {@code limit}. A
+     * keyset on id alone has no such index on the partitioned table: every page re-read and
+     * re-sorted all remaining matches, making a job quadratic in its candidate count.
+     */
+    public List<Candidate> findCandidates(UUID afterUploadId, UUID afterId, int ruleId, String keyword,
+            String merchantKey, boolean scanAll, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterUploadId", afterUploadId)
+                .addValue("afterId", afterId)
+                .addValue("ruleId", ruleId)
+                .addValue("limit", limit);
+
+        String reach;
+        if (scanAll) {
+            reach = "TRUE";
+        } else {
+            StringBuilder sb = new StringBuilder("matched_rule_id = :ruleId");
+            if (keyword != null) {
+                sb.append(" OR ").append(BulkOverrideRepository.MATCH_TEXT).append(" ILIKE :pattern ESCAPE '\\'");
+                params.addValue("pattern", "%" + escapeLike(keyword) + "%");
+            }
+            if (merchantKey != null) {
+                sb.append(" OR merchant_key = :merchantKey");
+                params.addValue("merchantKey", merchantKey);
+            }
+            reach = sb.toString();
+        }
+
+        return jdbcTemplate.query("SELECT " + CANDIDATE_COLUMNS + " FROM transactions"
+                + " WHERE is_override = FALSE AND (upload_id, id) > (:afterUploadId, :afterId) AND (" + reach + ")"
+                + " ORDER BY upload_id, id LIMIT :limit", params, CANDIDATE_MAPPER);
+    }
+
+    /** Row-locks the rows that are still eligible (not overridden meanwhile) and returns their current assignment. */
+    public Map<UUID, Assignment> lockEligible(Collection<UUID> ids) {
+        Map<UUID, Assignment> locked = new HashMap<>();
+        jdbcTemplate.query("SELECT id, category_id, matched_rule_id FROM transactions"
+                + " WHERE id IN (:ids) AND is_override = FALSE FOR UPDATE",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    locked.put(rs.getObject("id", UUID.class), new Assignment(
+                            rs.getObject("category_id", Integer.class), rs.getObject("matched_rule_id", Integer.class)));
+                });
+        return locked;
+    }
+
+    /** One UPDATE for every row moving to the same category and rule. */
+    public int reassign(Collection<UUID> ids, Integer categoryId, Integer ruleId) {
+        return jdbcTemplate.update("UPDATE transactions SET category_id = :categoryId, matched_rule_id = :ruleId"
+                + " WHERE id IN (:ids) AND is_override = FALSE",
+                new MapSqlParameterSource("ids", ids)
+                        .addValue("categoryId", categoryId, Types.INTEGER)
+                        .addValue("ruleId", ruleId, Types.INTEGER));
+    }
+
+    /**
+     * Up to {@code limit} overridden rows keep their category but stop pointing at a deleted
+     * rule; returns how many did, so the caller repeats until fewer than {@code limit}.
+     */
+    public int detachOverrides(int ruleId, int limit) {
+        String owned = " WHERE matched_rule_id = :ruleId AND is_override = TRUE";
+        return jdbcTemplate.update("UPDATE transactions SET matched_rule_id = NULL" + owned
+                + " AND id IN (SELECT id FROM transactions" + owned + " LIMIT :limit)",
+                new MapSqlParameterSource("ruleId", ruleId).addValue("limit", limit));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,14 +1,56 @@
 package com.statify.backend.repository;
 
+import com.statify.backend.dto.TransactionView;
 import com.statify.backend.entity.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
+    // Explicit JPQL: the derived query joined uploads and filtered on uploads.id,
+    // which hid transactions.upload_id from idx_transactions_upload_date.
+    @Query("SELECT t FROM Transaction t WHERE t.upload.id = :uploadId ORDER BY t.txnDate")
     List<Transaction> findByUploadIdOrderByTxnDate(UUID uploadId);
+
+    @Query("""
+            SELECT new com.statify.backend.dto.TransactionView(
+                t.id, t.upload.id, t.txnDate, t.description, t.amount, t.currency,
+                t.categoryId, t.matchedRuleId, t.override, t.createdAt)
+            FROM Transaction t
+            WHERE t.upload.id = :uploadId
+            ORDER BY t.txnDate""")
+    List<TransactionView> findViewsByUploadId(UUID uploadId);
+
+    /** First keyset page; filters are optional (null = not applied). */
+    @Query("""
+            SELECT new com.statify.backend.dto.TransactionView(
+                t.id, t.upload.id, t.txnDate, t.description, t.amount, t.currency,
+                t.categoryId, t.matchedRuleId, t.override, t.createdAt)
+            FROM Transaction t
+            WHERE t.upload.id = :uploadId
+              AND (:categoryId IS NULL OR t.categoryId = :categoryId)
+              AND (:keyword IS NULL OR LOWER(t.description) LIKE :keyword ESCAPE '\\')
+            ORDER BY t.txnDate, t.id""")
+    List<TransactionView> findPage(UUID uploadId, Integer categoryId, String keyword, Limit limit);
+
+    /** Keyset continuation: rows strictly after (afterDate, afterId). */
+    @Query("""
+            SELECT new com.statify.backend.dto.TransactionView(
+                t.id, t.upload.id, t.txnDate, t.description, t.amount, t.currency,
+                t.categoryId, t.matchedRuleId, t.override, t.createdAt)
+            FROM Transaction t
+            WHERE t.upload.id = :uploadId
+              AND (t.txnDate, t.id) > (:afterDate, :afterId)
+              AND (:categoryId IS NULL OR t.categoryId = :categoryId)
+              AND (:keyword IS NULL OR LOWER(t.description) LIKE :keyword ESCAPE '\\')
+            ORDER BY t.txnDate, t.id""")
+    List<TransactionView> findPageAfter(UUID uploadId, LocalDate afterDate, UUID afterId,
+            Integer categoryId, String keyword, Limit limit);
 }
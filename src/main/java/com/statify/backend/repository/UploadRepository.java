@@ -2,7 +2,14 @@ package com.statify.backend.repository;
 
 import com.statify.backend.entity.Upload;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
 import java.util.UUID;
 
 public interface UploadRepository extends JpaRepository<Upload, UUID> {
+
+    @Modifying
+    @Query("UPDATE Upload u SET u.committedRows = :committedRows WHERE u.id = :id")
+    int updateCommittedRows(UUID id, int committedRows);
 }
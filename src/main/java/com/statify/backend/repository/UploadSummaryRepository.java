@@ -0,0 +1,20 @@
+package com.statify.backend.repository;
+
+import com.statify.backend.entity.UploadSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSummaryRepository extends JpaRepository<UploadSummary, UUID> {
+
+    /** Row lock so concurrent incremental updates to one upload serialize. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSummary s WHERE s.uploadId = :uploadId")
+    Optional<UploadSummary> findForUpdate(UUID uploadId);
+}
@@ -0,0 +1,49 @@
+package com.statify.backend.rules;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Match text → keyword-stage candidate ranks ({@link RuleSnapshot#keywordHits}), shared
+ * across uploads. Keyed on {@link RuleSnapshot#matchText}, which carries no reference
+ * numbers or times, so every purchase at one merchant shares an entry. Only the
+ * text-dependent stage is memoized; per-row conditions (amount, date) still run on every
+ * transaction. Keys carry the snapshot version, so ranks always index the snapshot they
+ * were computed against; when a newer version shows up the old entries are dropped
+ * wholesale. Bounded W-TinyLFU (Caffeine), hit/miss exported as
+ * {@code cache.gets{cache=categorization.memo}}.
+ */
+@Component
+public class CategorizationMemo {
+
+    private record Key(String matchText, long version) {
+    }
+
+    private final Cache<Key, int[]> ranks;
+    private final AtomicLong latestVersion = new AtomicLong();
+
+    public CategorizationMemo(@Value("${statify.rules.memo-size:100000}") long maxSize, MeterRegistry meterRegistry) {
+        this.ranks = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ranks, "categorization.memo");
+    }
+
+    /** Keyword hits in {@code rules} for this match text; treat the array as read-only. */
+    public int[] keywordHits(RuleSnapshot rules, String matchText) {
+        long version = rules.version();
+        long latest = latestVersion.get();
+        if (version > latest && latestVersion.compareAndSet(latest, version)) {
+            ranks.invalidateAll();
+        }
+        return ranks.get(new Key(matchText, version), key -> rules.keywordHits(key.matchText()));
+    }
+
+    public double hitRate() {
+        return ranks.stats().hitRate();
+    }
+}
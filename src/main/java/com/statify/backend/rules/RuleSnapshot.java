@@ -0,0 +1,199 @@
+package com.statify.backend.rules;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.parser.DescriptionNormalizer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable compiled rule set: the keyword automaton plus, per rank, the rule and
+ * category it stands for. Holds no entities, so uploads read it without touching
+ * Hibernate. {@code version} is the {@code rule_set_state} version it was built from.
+ *
+ * <p>Matching runs in two stages. The indexed stage finds candidate ranks: keyword hits
+ * from the automaton, keywordless merchant-key rules from a hash index, plus the few
+ * rules with neither. The candidates are then walked in rank order and each rule's
+ * compiled {@link RuleCondition}s are checked; the first rule that passes wins. When no
+ * rule has conditions the first keyword hit wins outright, as before.
+ */
+@Slf4j
+public final class RuleSnapshot {
+
+    private static final int[] NONE = new int[0];
+
+    public static final RuleSnapshot EMPTY = compile(0, List.of());
+
+    private final long version;
+    private final KeywordMatcher matcher;
+    private final int[] ruleIds;
+    private final int[] categoryIds;
+    /** Per rank, conditions in evaluation order; null when the rule has none. */
+    private final RuleCondition[][] conditions;
+    /** Keywordless merchant-key rules, by normalized key; ranks ascending. */
+    private final Map<String, int[]> byMerchantKey;
+    /** Rules with neither a keyword nor a merchant key; always candidates. */
+    private final int[] unindexed;
+    /** {rank} per rank, so the keyword-only path returns candidates without allocating. */
+    private final int[][] singletons;
+    private final boolean keywordOnly;
+
+    private RuleSnapshot(long version, KeywordMatcher matcher, int[] ruleIds, int[] categoryIds,
+            RuleCondition[][] conditions, Map<String, int[]> byMerchantKey, int[] unindexed, boolean keywordOnly) {
+        this.version = version;
+        this.matcher = matcher;
+        this.ruleIds = ruleIds;
+        this.categoryIds = categoryIds;
+        this.conditions = conditions;
+        this.byMerchantKey = byMerchantKey;
+        this.unindexed = unindexed;
+        this.keywordOnly = keywordOnly;
+        this.singletons = new int[ruleIds.length][];
+        for (int rank = 0; rank < ruleIds.length; rank++)
+            singletons[rank] = new int[] { rank };
+    }
+
+    /**
+     * {@code rules} must be in priority order (highest first), with categories loaded.
+     * A rule whose conditions do not compile (e.g. a stored regex that no longer parses)
+     * is logged and left out rather than failing the whole snapshot.
+     */
+    public static RuleSnapshot compile(long version, List<CategorizationRule> rules) {
+        int n = rules.size();
+        int[] ruleIds = new int[n];
+        int[] categoryIds = new int[n];
+        RuleCondition[][] conditions = new RuleCondition[n][];
+        List<String> keywords = new ArrayList<>(n);
+        Map<String, List<Integer>> merchantRanks = new HashMap<>();
+        List<Integer> unindexed = new ArrayList<>();
+        boolean keywordOnly = true;
+
+        for (int rank = 0; rank < n; rank++) {
+            CategorizationRule rule = rules.get(rank);
+            ruleIds[rank] = rule.getId();
+            categoryIds[rank] = rule.getCategory().getId();
+
+            List<RuleCondition> compiled;
+            try {
+                compiled = RuleCondition.of(rule, rule.getKeyword() != null);
+            } catch (IllegalArgumentException e) {
+                log.warn("Rule {} skipped, conditions do not compile: {}", rule.getId(), e.getMessage());
+                keywords.add(null);
+                continue;
+            }
+            keywords.add(rule.getKeyword());
+            if (!compiled.isEmpty()) {
+                conditions[rank] = compiled.toArray(RuleCondition[]::new);
+                keywordOnly = false;
+            }
+            if (rule.getKeyword() == null) {
+                keywordOnly = false;
+                if (rule.getMerchantKey() != null)
+                    merchantRanks.computeIfAbsent(rule.getMerchantKey(), k -> new ArrayList<>()).add(rank);
+                else if (!compiled.isEmpty())
+                    unindexed.add(rank);
+            }
+        }
+
+        Map<String, int[]> byMerchantKey = new HashMap<>();
+        merchantRanks.forEach((key, ranks) -> byMerchantKey.put(key, toArray(ranks)));
+        return new RuleSnapshot(version, KeywordMatcher.compile(keywords), ruleIds, categoryIds, conditions,
+                byMerchantKey, toArray(unindexed), keywordOnly);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Ranks of the keyword rules whose keyword occurs in {@code text}, ascending. Depends
+     * only on the text, so callers may memoize it per {@link #matchText}. For a keyword-only
+     * snapshot just the winning rank is returned.
+     */
+    public int[] keywordHits(CharSequence text) {
+        if (keywordOnly) {
+            int rank = matcher.firstMatch(text);
+            return rank == KeywordMatcher.NO_MATCH ? NONE : singletons[rank];
+        }
+        BitSet ranks = new BitSet(ruleIds.length);
+        matcher.collectMatches(text, ranks);
+        return ranks.isEmpty() ? NONE : ranks.stream().toArray();
+    }
+
+    /** Rank of the winning rule for {@code txn}; keywords are matched on its {@link #matchText}. */
+    public int match(Transaction txn) {
+        return resolve(txn, keywordHits(matchText(txn)));
+    }
+
+    /**
+     * The text keywords are matched on: the merchant key, else the normalized description
+     * (rows stored before keys existed). Reference numbers, dates, times and amounts are
+     * gone, so repeat purchases at one merchant give the same text.
+     */
+    public static String matchText(Transaction txn) {
+        return txn.getMerchantKey() != null
+                ? txn.getMerchantKey()
+                : DescriptionNormalizer.normalize(txn.getDescription());
+    }
+
+    /**
+     * Rank of the winning rule for {@code txn} given its {@link #keywordHits}, or
+     * {@link KeywordMatcher#NO_MATCH}. Walks keyword hits, merchant-index hits and
+     * unindexed rules merged in rank order, checking conditions until one rule passes.
+     */
+    public int resolve(Transaction txn, int[] keywordHits) {
+        if (keywordOnly)
+            return keywordHits.length == 0 ? KeywordMatcher.NO_MATCH : keywordHits[0];
+
+        int[] merchantHits = txn.getMerchantKey() == null ? NONE : byMerchantKey.getOrDefault(txn.getMerchantKey(), NONE);
+        int i = 0, j = 0, k = 0;
+        while (true) {
+            int a = i < keywordHits.length ? keywordHits[i] : Integer.MAX_VALUE;
+            int b = j < merchantHits.length ? merchantHits[j] : Integer.MAX_VALUE;
+            int c = k < unindexed.length ? unindexed[k] : Integer.MAX_VALUE;
+            int rank = Math.min(a, Math.min(b, c));
+            if (rank == Integer.MAX_VALUE)
+                return KeywordMatcher.NO_MATCH;
+            if (rank == a)
+                i++;
+            else if (rank == b)
+                j++;
+            else
+                k++;
+            if (passes(rank, txn))
+                return rank;
+        }
+    }
+
+    private boolean passes(int rank, Transaction txn) {
+        RuleCondition[] checks = conditions[rank];
+        if (checks == null)
+            return true;
+        for (RuleCondition check : checks) {
+            if (!check.test(txn))
+                return false;
+        }
+        return true;
+    }
+
+    public int ruleId(int rank) {
+        return ruleIds[rank];
+    }
+
+    public int categoryId(int rank) {
+        return categoryIds[rank];
+    }
+
+    public int size() {
+        return ruleIds.length;
+    }
+
+    private static int[] toArray(List<Integer> ranks) {
+        return ranks.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
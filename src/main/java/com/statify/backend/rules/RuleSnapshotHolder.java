@@ -0,0 +1,72 @@
+package com.statify.backend.rules;
+
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.RuleSetVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Current {@link RuleSnapshot}, swapped copy-on-write. Rebuilt off the request thread
+ * after a rule change commits, and by polling so edits made on other instances are
+ * picked up. Readers never block: an upload takes one snapshot and keeps it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleSnapshotHolder {
+
+    private final CategorizationRuleRepository ruleRepository;
+    private final RuleSetVersionRepository versionRepository;
+
+    private final AtomicReference<RuleSnapshot> current = new AtomicReference<>();
+
+    /** Loads synchronously on first use if the startup build has not run yet. */
+    public RuleSnapshot current() {
+        RuleSnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : refresh();
+    }
+
+    @Async
+    @TransactionalEventListener
+    public void onRulesChanged(RulesChangedEvent event) {
+        refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${statify.rules.snapshot-poll-interval:60s}",
+            fixedDelayString = "${statify.rules.snapshot-poll-interval:60s}")
+    public void poll() {
+        RuleSnapshot snapshot = current.get();
+        if (snapshot == null || versionRepository.currentVersion() > snapshot.version())
+            refresh();
+    }
+
+    /**
+     * Rebuilds from the database and installs the result unless a newer snapshot won the
+     * race. The version is read before the rules, so a snapshot never claims a version
+     * newer than its contents, and the rules bypass the query cache, which knows nothing
+     * of edits committed elsewhere. Deliberately not read-only: with a replica configured it
+     * must still see the commit that triggered it.
+     */
+    public synchronized RuleSnapshot refresh() {
+        long version = versionRepository.currentVersion();
+        RuleSnapshot existing = current.get();
+        if (existing != null && existing.version() >= version)
+            return existing;
+
+        RuleSnapshot built = RuleSnapshot.compile(version, ruleRepository.findAllWithCategoriesUncached());
+        RuleSnapshot installed = current.accumulateAndGet(built,
+                (prev, next) -> prev == null || next.version() > prev.version() ? next : prev);
+        if (installed == built)
+            log.info("Rule snapshot v{} compiled ({} rules)", version, built.size());
+        return installed;
+    }
+}
@@ -0,0 +1,89 @@
+package com.statify.backend.service;
+
+import com.statify.backend.anomaly.AnomalyRule;
+import com.statify.backend.anomaly.AnomalyRuleEngine;
+import com.statify.backend.anomaly.RuleSettings;
+import com.statify.backend.dto.AnomalyRuleUpdate;
+import com.statify.backend.dto.AnomalyRuleView;
+import com.statify.backend.entity.AnomalyRuleSetting;
+import com.statify.backend.exception.InvalidRuleSettingException;
+import com.statify.backend.repository.AnomalyRuleSettingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Per-account anomaly rule settings. Writes go through JPA, so the cached settings query
+ * the engine reads on every upload is invalidated with them.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnomalyRuleSettingsService {
+
+    private static final Set<String> SEVERITIES = Set.of("LOW", "MEDIUM", "HIGH");
+
+    private final AnomalyRuleEngine anomalyRuleEngine;
+    private final AnomalyRuleSettingRepository settingRepository;
+
+    @Transactional(readOnly = true)
+    public List<AnomalyRuleView> list(String accountKey) {
+        return anomalyRuleEngine.settingsFor(accountKey).entrySet().stream()
+                .map(e -> view(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    /** {@link InvalidRuleSettingException} for a bad severity or parameter; {@link NoSuchElementException} for an unknown rule. */
+    @Transactional
+    public AnomalyRuleView update(String accountKey, String ruleName, AnomalyRuleUpdate req) {
+        AnomalyRule rule = find(ruleName);
+        if (req.severity() != null && !SEVERITIES.contains(req.severity()))
+            throw new InvalidRuleSettingException("Unknown severity '" + req.severity() + "'.");
+        Map<String, Double> params = req.params() != null ? req.params() : Map.of();
+        params.forEach((name, value) -> {
+            if (!rule.defaultParams().containsKey(name))
+                throw new InvalidRuleSettingException(rule.name() + " has no parameter '" + name + "'; it takes "
+                        + rule.defaultParams().keySet() + ".");
+            if (value == null || !Double.isFinite(value) || value < 0)
+                throw new InvalidRuleSettingException(name + " must be a non-negative number.");
+        });
+
+        AnomalyRuleSetting setting = settingRepository.findByAccountKeyAndRuleName(accountKey, rule.name())
+                .orElseGet(() -> {
+                    AnomalyRuleSetting created = new AnomalyRuleSetting();
+                    created.setAccountKey(accountKey);
+                    created.setRuleName(rule.name());
+                    return created;
+                });
+        setting.setEnabled(req.enabled() == null || req.enabled());
+        setting.setSeverity(req.severity());
+        setting.setParams(new HashMap<>(params));
+        setting.setUpdatedAt(OffsetDateTime.now());
+        settingRepository.save(setting);
+        return view(rule, AnomalyRuleEngine.effective(rule, setting));
+    }
+
+    /** Drops the account's override, back to the rule's defaults. */
+    @Transactional
+    public AnomalyRuleView reset(String accountKey, String ruleName) {
+        AnomalyRule rule = find(ruleName);
+        settingRepository.findByAccountKeyAndRuleName(accountKey, rule.name()).ifPresent(settingRepository::delete);
+        return view(rule, AnomalyRuleEngine.effective(rule, null));
+    }
+
+    private AnomalyRule find(String ruleName) {
+        return anomalyRuleEngine.rule(ruleName)
+                .orElseThrow(() -> new NoSuchElementException("Anomaly rule " + ruleName));
+    }
+
+    private static AnomalyRuleView view(AnomalyRule rule, RuleSettings settings) {
+        return new AnomalyRuleView(rule.name(), settings.enabled(), settings.severity(), settings.params(),
+                rule.defaultSeverity(), rule.defaultParams());
+    }
+}
@@ -1,34 +1,120 @@
 package com.statify.backend.service;
 
-import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.config.ReplicaLagGuard;
 import com.statify.backend.entity.Transaction;
-import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.TransactionRepository;
+import com.statify.backend.rules.CategorizationMemo;
+import com.statify.backend.rules.KeywordMatcher;
+import com.statify.backend.rules.RuleSnapshot;
+import com.statify.backend.rules.RuleSnapshotHolder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 @Service
 @RequiredArgsConstructor
 public class CategorizationService {
 
-    private final CategorizationRuleRepository ruleRepository;
+    private final RuleSnapshotHolder ruleSnapshotHolder;
+    private final CategorizationMemo categorizationMemo;
+    private final TokenClassifier tokenClassifier;
+    private final TransactionRepository transactionRepository;
+    private final UploadSummaryService uploadSummaryService;
+    private final ReplicaLagGuard replicaLagGuard;
 
-    @Transactional
+    private static final int LEAF_SIZE = 2048;
+
+    /** Batches at least this large are categorized in parallel. */
+    @Value("${statify.rules.parallel-threshold:10000}")
+    private int parallelThreshold = 10_000;
+
+    /** Categorizes against the current rule snapshot. */
     public void categorizeTransactions(List<Transaction> transactions) {
-        List<CategorizationRule> rules = ruleRepository.findAllWithCategories();
-
-        for (Transaction txn : transactions) {
-            for (CategorizationRule rule : rules) {
-                if (txn.getDescription().toUpperCase().contains(rule.getKeyword().toUpperCase())) {
-                    txn.setCategoryId(rule.getCategory().getId());
-                    txn.setMatchedRuleId(rule.getId());
-                    rule.setMatchCount(rule.getMatchCount() + 1);
-                    break;
-                }
+        categorizeTransactions(transactions, ruleSnapshotHolder.current());
+    }
+
+    /**
+     * Categorizes against a pinned snapshot, so every chunk of an upload sees the same rules.
+     * The keyword stage is matched on each row's match text and memoized across uploads.
+     * Rule conditions are then checked per row; rows no rule takes fall back to the token
+     * classifier. Batches of at least {@code parallelThreshold} rows are split across the
+     * common ForkJoinPool.
+     */
+    public void categorizeTransactions(List<Transaction> transactions, RuleSnapshot rules) {
+        if (transactions.size() >= parallelThreshold)
+            ForkJoinPool.commonPool().invoke(new CategorizeTask(transactions, rules, 0, transactions.size()));
+        else
+            categorizeRange(transactions, rules, 0, transactions.size());
+    }
+
+    /** Categorizes {@code [from, to)}. */
+    private void categorizeRange(List<Transaction> transactions, RuleSnapshot rules, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Transaction txn = transactions.get(i);
+            int rank = rules.resolve(txn, categorizationMemo.keywordHits(rules, RuleSnapshot.matchText(txn)));
+            if (rank != KeywordMatcher.NO_MATCH) {
+                txn.setCategoryId(rules.categoryId(rank));
+                txn.setMatchedRuleId(rules.ruleId(rank));
+            } else {
+                OptionalInt predicted = tokenClassifier.classify(txn);
+                if (predicted.isPresent())
+                    txn.setCategoryId(predicted.getAsInt()); // no matched rule: a prediction
             }
         }
-        ruleRepository.saveAll(rules);
+    }
+
+    /** Halves the range down to {@value #LEAF_SIZE} rows; each row is written by one worker only. */
+    private final class CategorizeTask extends RecursiveAction {
+        private final List<Transaction> transactions;
+        private final RuleSnapshot rules;
+        private final int from;
+        private final int to;
+
+        CategorizeTask(List<Transaction> transactions, RuleSnapshot rules, int from, int to) {
+            this.transactions = transactions;
+            this.rules = rules;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                categorizeRange(transactions, rules, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CategorizeTask(transactions, rules, from, mid),
+                    new CategorizeTask(transactions, rules, mid, to));
+        }
+    }
+
+    /**
+     * Manual category override; moves the amount between the upload summary's buckets and
+     * teaches the classifier (replacing what an earlier override of the same row taught it).
+     */
+    @Transactional
+    public Optional<Transaction> overrideCategory(UUID txnId, Integer categoryId) {
+        return transactionRepository.findById(txnId).map(txn -> {
+            Integer previous = txn.getCategoryId();
+            if (txn.isOverride() && previous != null)
+                tokenClassifier.unlearn(txn, previous);
+            txn.setCategoryId(categoryId);
+            txn.setOverride(true);
+            if (categoryId != null)
+                tokenClassifier.learn(txn, categoryId);
+            uploadSummaryService.applyCategoryChange(txn.getUpload().getId(), txn.getAmount(), previous, categoryId);
+            replicaLagGuard.markWritten(txn.getUpload().getId());
+            return txn;
+        });
     }
 }
@@ -0,0 +1,114 @@
+package com.statify.backend.service;
+
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.exception.InvalidRuleException;
+import com.statify.backend.parser.DescriptionNormalizer;
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.CategoryRepository;
+import com.statify.backend.repository.RuleSetVersionRepository;
+import com.statify.backend.rules.RuleCondition;
+import com.statify.backend.rules.RulesChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rule writes. Each one bumps the rule-set version in the same transaction and
+ * publishes {@link RulesChangedEvent}, which recompiles the snapshot and re-categorizes
+ * the affected history after commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class RuleService {
+
+    private final CategorizationRuleRepository ruleRepository;
+    private final CategoryRepository categoryRepository;
+    private final RuleSetVersionRepository versionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Empty if the category does not exist; {@link InvalidRuleException} if the conditions are unusable. */
+    @Transactional
+    public Optional<CategorizationRule> addRule(RuleRequest req) {
+        return categoryRepository.findById(req.categoryId()).map(category -> {
+            CategorizationRule rule = new CategorizationRule();
+            applyConditions(rule, req);
+            rule.setCategory(category);
+            rule.setPriority(req.priority() != null ? req.priority() : 0);
+            rule.setMatchCount(0);
+            rule.setSystem(false);
+            CategorizationRule saved = ruleRepository.save(rule);
+            rulesChanged(saved.getId());
+            return saved;
+        });
+    }
+
+    /** Replaces the keyword and conditions; category and priority change only when given. */
+    @Transactional
+    public Optional<CategorizationRule> updateRule(Integer id, RuleRequest req) {
+        return ruleRepository.findById(id).map(rule -> {
+            applyConditions(rule, req);
+            if (req.categoryId() != null) {
+                categoryRepository.findById(req.categoryId()).ifPresent(rule::setCategory);
+            }
+            if (req.priority() != null)
+                rule.setPriority(req.priority());
+            CategorizationRule saved = ruleRepository.save(rule);
+            rulesChanged(saved.getId());
+            return saved;
+        });
+    }
+
+    /**
+     * Caller checks {@link CategorizationRule#isSystem()} first. Transactions the rule
+     * categorized are handed to the remaining rules after commit, in batches (see
+     * {@link RecategorizationService#onRulesChanged}).
+     */
+    @Transactional
+    public void deleteRule(CategorizationRule rule) {
+        ruleRepository.delete(rule);
+        rulesChanged(rule.getId());
+    }
+
+    /**
+     * Copies the conditions and compiles them once here, so a rule that would be skipped
+     * at snapshot time, such as one with an unparsable or overlong regex, is rejected up
+     * front with a 400. The merchant key is normalized the same way ingest normalizes
+     * descriptions, so it compares equal to stored keys.
+     */
+    static void applyConditions(CategorizationRule rule, RuleRequest req) {
+        rule.setKeyword(blankToNull(req.keyword()));
+        rule.setAmountMin(req.amountMin());
+        rule.setAmountMax(req.amountMax());
+        rule.setDirection(req.direction() != null ? req.direction().trim().toUpperCase() : null);
+        rule.setDayFrom(req.dayFrom());
+        rule.setDayTo(req.dayTo());
+        rule.setDateFrom(req.dateFrom());
+        rule.setDateTo(req.dateTo());
+        rule.setDescriptionRegex(blankToNull(req.descriptionRegex()));
+        String merchantKey = blankToNull(req.merchantKey());
+        rule.setMerchantKey(merchantKey != null ? blankToNull(DescriptionNormalizer.normalize(merchantKey)) : null);
+
+        List<RuleCondition> conditions;
+        try {
+            conditions = RuleCondition.of(rule, true);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRuleException(e.getMessage());
+        }
+        if (rule.getKeyword() == null && conditions.isEmpty())
+            throw new InvalidRuleException("A rule needs a keyword or at least one condition.");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private void rulesChanged(Integer ruleId) {
+        ruleRepository.flush();
+        eventPublisher.publishEvent(new RulesChangedEvent(versionRepository.bump(), ruleId));
+    }
+}
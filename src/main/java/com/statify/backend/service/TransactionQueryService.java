@@ -0,0 +1,100 @@
+package com.statify.backend.service;
+
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.AnomalyView;
+import com.statify.backend.dto.TransactionCursor;
+import com.statify.backend.dto.TransactionPage;
+import com.statify.backend.dto.TransactionView;
+import com.statify.backend.entity.UploadSummary;
+import com.statify.backend.repository.AnomalyRepository;
+import com.statify.backend.repository.TransactionRepository;
+import com.statify.backend.repository.UploadSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dashboard read paths. Read-only transactions: Hibernate skips dirty checking and
+ * flush, and rows come back as {@link TransactionView} projections, not entities.
+ * With a replica configured these run there, unless the upload was just written.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TransactionQueryService {
+
+    private static final int PREVIEW_ROWS = 10;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final TransactionRepository transactionRepository;
+    private final UploadSummaryRepository summaryRepository;
+    private final AnomalyRepository anomalyRepository;
+    private final ReplicaLagGuard replicaLagGuard;
+
+    public List<TransactionView> getPreview(UUID uploadId) {
+        replicaLagGuard.routeFor(uploadId);
+        return transactionRepository.findPage(uploadId, null, null, Limit.of(PREVIEW_ROWS));
+    }
+
+    /**
+     * Keyset page over (txn_date, id), filtered in SQL. Fetches one extra row to know
+     * whether a next page exists; page size is capped at {@value #MAX_PAGE_SIZE}. Paging
+     * starts once the caller passes a cursor or a limit; without either the whole
+     * (filtered) upload comes back, as it did before paging existed.
+     */
+    public TransactionPage getTransactions(UUID uploadId, Integer categoryId, String keyword,
+            String cursor, Integer limit) {
+        replicaLagGuard.routeFor(uploadId);
+        String pattern = keyword == null || keyword.isBlank() ? null : "%" + escapeLike(keyword.toLowerCase()) + "%";
+        boolean paged = limit != null || (cursor != null && !cursor.isBlank());
+        if (!paged)
+            return new TransactionPage(transactionRepository.findPage(uploadId, categoryId, pattern, Limit.unlimited()),
+                    null);
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        Limit fetch = Limit.of(pageSize + 1);
+
+        List<TransactionView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findPage(uploadId, categoryId, pattern, fetch);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            rows = transactionRepository.findPageAfter(uploadId, after.txnDate(), after.id(), categoryId, pattern, fetch);
+        }
+
+        if (rows.size() <= pageSize)
+            return new TransactionPage(rows, null);
+        List<TransactionView> page = rows.subList(0, pageSize);
+        return new TransactionPage(page, TransactionCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    /** Single-row lookup of the summary maintained during ingest; zeros until the upload completes. */
+    public Map<String, Object> getSummary(UUID uploadId) {
+        replicaLagGuard.routeFor(uploadId);
+        UploadSummary s = summaryRepository.findById(uploadId)
+                .orElseGet(() -> UploadSummaryService.newSummary(uploadId));
+        return Map.of(
+                "totalIncome", s.getTotalIncome(),
+                "totalExpense", s.getTotalExpense(),
+                "netBalance", s.getTotalIncome().subtract(s.getTotalExpense()),
+                "anomalyCount", s.getAnomalyCount(),
+                "openAnomalyCount", s.getOpenAnomalyCount(),
+                "txnCount", s.getTxnCount(),
+                "byCategory", s.getByCategory());
+    }
+
+    public List<AnomalyView> getAnomalies(UUID uploadId) {
+        replicaLagGuard.routeFor(uploadId);
+        return anomalyRepository.findViewsByUploadId(uploadId);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
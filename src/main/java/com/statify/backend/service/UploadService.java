@@ -1,44 +1,113 @@
 package com.statify.backend.service;
 
+import com.statify.backend.config.ReplicaLagGuard;
 import com.statify.backend.entity.Transaction;
 import com.statify.backend.entity.Upload;
+import com.statify.backend.entity.UploadSummary;
+import com.statify.backend.entity.UuidV7Generator;
+import com.statify.backend.exception.FileMismatchException;
+import com.statify.backend.fingerprint.FingerprintIndex;
 import com.statify.backend.parser.FileParser;
+import com.statify.backend.parser.MerchantDictionary;
 import com.statify.backend.parser.ParsedTransaction;
+import com.statify.backend.repository.BulkInsertRepository;
 import com.statify.backend.repository.TransactionRepository;
 import com.statify.backend.repository.UploadRepository;
+import com.statify.backend.rules.RuleSnapshot;
+import com.statify.backend.rules.RuleSnapshotHolder;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UploadService {
 
     private final UploadRepository uploadRepository;
     private final TransactionRepository transactionRepository;
+    private final BulkInsertRepository bulkInsertRepository;
     private final List<FileParser> parsers;
+    private final MerchantDictionary merchantDictionary;
     private final CategorizationService categorizationService;
+    private final RuleMatchCounter ruleMatchCounter;
+    private final RuleSnapshotHolder ruleSnapshotHolder;
     private final AnomalyService anomalyService;
+    private final FingerprintIndex fingerprintIndex;
+    private final UploadSummaryService uploadSummaryService;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
 
-    public Upload initiateUpload(MultipartFile file) throws IOException {
+    /** Rows committed per transaction; the persistence context is cleared between chunks. */
+    @Value("${statify.ingest.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    /** {@code accountKey} groups the uploads checked against each other for overlapping rows. */
+    public Upload initiateUpload(MultipartFile file, String accountKey, boolean skipDuplicates) throws IOException {
         String extension = getFileExtension(file.getOriginalFilename());
         Upload upload = new Upload();
         upload.setFilename(file.getOriginalFilename());
         upload.setFileType(extension);
         upload.setStatus("pending");
+        upload.setAccountKey(accountKey);
+        upload.setSkipDuplicates(skipDuplicates);
+        upload.setFileSha256(sha256(file));
         return uploadRepository.save(upload);
     }
 
+    /**
+     * Refuses to resume {@code upload} with any file but the one it was started with: the
+     * committed rows are only a valid prefix of that file. Uploads from before checksums
+     * were stored are let through; {@link #processUpload} still checks their row count.
+     */
+    public void checkSameFile(Upload upload, MultipartFile file) throws IOException {
+        if (upload.getFileSha256() != null && !upload.getFileSha256().equals(sha256(file)))
+            throw new FileMismatchException("File differs from the one upload " + upload.getId() + " was started with.");
+    }
+
+    /**
+     * Parses, categorizes and persists the file in chunks of {@code chunkSize} rows, each in
+     * its own transaction. {@link Upload#getCommittedRows()} records progress, so re-running a
+     * failed upload with the same file resumes after the last committed chunk, unless a
+     * later upload has taken its rows over since. Rows an earlier upload of the same
+     * account already imported are flagged or, if the upload asked for it, left out (see
+     * {@link FingerprintIndex}).
+     */
     @Async
     public void processUpload(UUID uploadId, MultipartFile file) {
         Upload upload = uploadRepository.findById(uploadId).orElseThrow();
+        if (!upload.isResumable()) {
+            // Taken over after the resume was accepted
+            log.warn("Upload {}: not resumed, a later upload of account {} took over its rows", uploadId,
+                    upload.getAccountKey());
+            return;
+        }
         upload.setStatus("processing");
+        upload.setErrorMsg(null);
         uploadRepository.save(upload);
 
         try {
@@ -52,33 +121,129 @@ public class UploadService {
 
             List<Transaction> transactions = parsedTxns.stream().map(pt -> {
                 Transaction t = new Transaction();
+                t.setId(UuidV7Generator.next());
                 t.setUpload(upload);
                 t.setTxnDate(pt.date());
                 t.setDescription(pt.description());
+                t.setMerchantKey(merchantDictionary.merchantKey(pt.description()));
                 t.setAmount(pt.amount());
                 t.setCurrency(pt.currency());
                 return t;
             }).collect(Collectors.toList());
 
-            categorizationService.categorizeTransactions(transactions);
+            if (upload.getCommittedRows() > 0 && upload.getRowCount() != null
+                    && upload.getRowCount() != transactions.size()) {
+                throw new FileMismatchException("File has " + transactions.size() + " rows; upload "
+                        + uploadId + " was started with " + upload.getRowCount() + ".");
+            }
+            upload.setRowCount(transactions.size());
+            int resumeFrom = Math.min(upload.getCommittedRows(), transactions.size());
+            List<Transaction> detectionSet = new ArrayList<>(transactions.size());
+            // Flagged rows an earlier upload owns: checked again, but already in the amount statistics
+            Set<UUID> alreadyImported = new HashSet<>();
+            UploadSummary summary = UploadSummaryService.newSummary(uploadId);
+            if (resumeFrom > 0) {
+                log.info("Upload {}: resuming after {} committed rows", uploadId, resumeFrom);
+                detectionSet.addAll(transactionRepository.findByUploadIdOrderByTxnDate(uploadId));
+                UploadSummaryService.accumulate(summary, detectionSet);
+                if (!upload.isSkipDuplicates())
+                    alreadyImported.addAll(anomalyService.crossUploadDuplicates(uploadId));
+            }
+
+            // Pinned for the whole upload: rule edits mid-flight apply to the next upload
+            RuleSnapshot rules = ruleSnapshotHolder.current();
+            if (upload.getRuleVersion() != null && upload.getRuleVersion() != rules.version()) {
+                log.warn("Upload {}: resuming with rules v{} (started with v{})", uploadId, rules.version(), upload.getRuleVersion());
+            }
+            upload.setRuleVersion(rules.version());
+            // In-memory and pure, so the whole remainder is categorized at once (parallel when large)
+            categorizationService.categorizeTransactions(transactions.subList(resumeFrom, transactions.size()), rules);
 
-            transactionRepository.saveAll(transactions);
+            long[] fingerprints = FingerprintIndex.fingerprints(transactions);
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            for (int from = resumeFrom; from < transactions.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, transactions.size());
+                List<Transaction> chunk = transactions.subList(from, to);
+                long[] chunkFingerprints = Arrays.copyOfRange(fingerprints, from, to);
+                ChunkResult result = tx.execute(status -> {
+                    List<Transaction> rows = chunk;
+                    Map<Integer, UUID> owners = fingerprintIndex.claim(upload.getAccountKey(), uploadId,
+                            chunkFingerprints);
+                    if (!owners.isEmpty() && upload.isSkipDuplicates()) {
+                        rows = new ArrayList<>(chunk.size() - owners.size());
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (!owners.containsKey(i))
+                                rows.add(chunk.get(i));
+                        }
+                    }
+                    bulkInsertRepository.insertTransactions(rows);
+                    List<UUID> flaggedIds = new ArrayList<>();
+                    if (!owners.isEmpty() && !upload.isSkipDuplicates()) {
+                        Map<Transaction, UUID> flagged = new IdentityHashMap<>();
+                        owners.forEach((i, owner) -> flagged.put(chunk.get(i), owner));
+                        anomalyService.flagCrossUploadDuplicates(flagged);
+                        flagged.keySet().forEach(t -> flaggedIds.add(t.getId()));
+                    }
+                    uploadRepository.updateCommittedRows(uploadId, to);
+                    entityManager.flush();
+                    entityManager.clear();
+                    return new ChunkResult(rows, flaggedIds, owners.size());
+                });
+                upload.setCommittedRows(to);
+                // Counted per committed chunk, so a resume never counts the committed prefix again
+                ruleMatchCounter.addMatches(result.kept());
+                upload.setDuplicateRows(upload.getDuplicateRows() + result.duplicates());
+                detectionSet.addAll(result.kept());
+                alreadyImported.addAll(result.alreadyImported());
+                UploadSummaryService.accumulate(summary, result.kept());
+            }
+            if (upload.getDuplicateRows() > 0)
+                log.info("Upload {}: {} rows already imported for account {} were {}", uploadId,
+                        upload.getDuplicateRows(), upload.getAccountKey(),
+                        upload.isSkipDuplicates() ? "skipped" : "flagged");
 
-            anomalyService.detectAnomalies(transactions);
+            tx.executeWithoutResult(status -> {
+                // Flagged cross-upload duplicates were raised chunk by chunk, one anomaly per row
+                int anomalies = anomalyService.detectAnomalies(upload.getAccountKey(), detectionSet, alreadyImported)
+                        + (upload.isSkipDuplicates() ? 0 : upload.getDuplicateRows());
+                summary.setAnomalyCount(anomalies);
+                summary.setOpenAnomalyCount(anomalies);
+                uploadSummaryService.save(summary);
+            });
 
             upload.setStatus("completed");
-            upload.setRowCount(transactions.size());
         } catch (Exception e) {
             upload.setStatus("failed");
             upload.setErrorMsg(e.getMessage());
         } finally {
             uploadRepository.save(upload);
+            replicaLagGuard.markWritten(uploadId);
         }
     }
 
+    private static String sha256(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
     private String getFileExtension(String filename) {
         if (filename == null || !filename.contains("."))
             return "";
         return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
     }
+
+    /**
+     * Rows of a committed chunk that were inserted, the ids of those flagged as already
+     * imported, and how many were already imported.
+     */
+    private record ChunkResult(List<Transaction> kept, List<UUID> alreadyImported, int duplicates) {
+    }
 }
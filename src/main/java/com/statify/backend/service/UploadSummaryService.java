@@ -0,0 +1,118 @@
+package com.statify.backend.service;
+
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.UploadSummary;
+import com.statify.backend.repository.UploadSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Maintains {@link UploadSummary} rows: built in one pass alongside ingest, then
+ * adjusted by deltas under a row lock instead of being recomputed from transactions.
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadSummaryService {
+
+    private final UploadSummaryRepository summaryRepository;
+
+    public static UploadSummary newSummary(UUID uploadId) {
+        UploadSummary summary = new UploadSummary();
+        summary.setUploadId(uploadId);
+        return summary;
+    }
+
+    /** Folds a batch into the running totals: one pass for income, expense, count and categories. */
+    public static void accumulate(UploadSummary summary, List<Transaction> transactions) {
+        BigDecimal income = summary.getTotalIncome();
+        BigDecimal expense = summary.getTotalExpense();
+        Map<Integer, BigDecimal> byCategory = summary.getByCategory();
+
+        for (Transaction txn : transactions) {
+            BigDecimal amount = txn.getAmount();
+            int sign = amount.signum();
+            if (sign > 0) {
+                income = income.add(amount);
+            } else if (sign < 0) {
+                BigDecimal abs = amount.negate();
+                expense = expense.add(abs);
+                if (txn.getCategoryId() != null)
+                    byCategory.merge(txn.getCategoryId(), abs, BigDecimal::add);
+            }
+        }
+
+        summary.setTotalIncome(income);
+        summary.setTotalExpense(expense);
+        summary.setTxnCount(summary.getTxnCount() + transactions.size());
+    }
+
+    @Transactional
+    public void save(UploadSummary summary) {
+        summary.setUpdatedAt(OffsetDateTime.now());
+        summaryRepository.save(summary);
+    }
+
+    /** Moves an expense between category buckets after a manual override. Income is not bucketed. */
+    @Transactional
+    public void applyCategoryChange(UUID uploadId, BigDecimal amount, Integer fromCategoryId, Integer toCategoryId) {
+        if (amount.signum() >= 0 || Objects.equals(fromCategoryId, toCategoryId))
+            return;
+
+        summaryRepository.findForUpdate(uploadId).ifPresent(summary -> {
+            BigDecimal abs = amount.negate();
+            Map<Integer, BigDecimal> byCategory = new HashMap<>(summary.getByCategory());
+            if (fromCategoryId != null) {
+                BigDecimal remaining = byCategory.getOrDefault(fromCategoryId, BigDecimal.ZERO).subtract(abs);
+                if (remaining.signum() <= 0)
+                    byCategory.remove(fromCategoryId);
+                else
+                    byCategory.put(fromCategoryId, remaining);
+            }
+            if (toCategoryId != null)
+                byCategory.merge(toCategoryId, abs, BigDecimal::add);
+            summary.setByCategory(byCategory);
+            summary.setUpdatedAt(OffsetDateTime.now());
+        });
+    }
+
+    /**
+     * Applies many moves at once, e.g. from a re-categorization batch: {@code deltas} maps
+     * category → signed change of its expense bucket (positive = gained expenses).
+     */
+    @Transactional
+    public void applyCategoryDeltas(UUID uploadId, Map<Integer, BigDecimal> deltas) {
+        if (deltas.isEmpty())
+            return;
+
+        summaryRepository.findForUpdate(uploadId).ifPresent(summary -> {
+            Map<Integer, BigDecimal> byCategory = new HashMap<>(summary.getByCategory());
+            deltas.forEach((categoryId, delta) -> {
+                BigDecimal updated = byCategory.getOrDefault(categoryId, BigDecimal.ZERO).add(delta);
+                if (updated.signum() <= 0)
+                    byCategory.remove(categoryId);
+                else
+                    byCategory.put(categoryId, updated);
+            });
+            summary.setByCategory(byCategory);
+            summary.setUpdatedAt(OffsetDateTime.now());
+        });
+    }
+
+    /** An open anomaly was confirmed or dismissed. */
+    @Transactional
+    public void anomalyReviewed(UUID uploadId) {
+        summaryRepository.findForUpdate(uploadId).ifPresent(summary -> {
+            summary.setOpenAnomalyCount(Math.max(0, summary.getOpenAnomalyCount() - 1));
+            summary.setUpdatedAt(OffsetDateTime.now());
+        });
+    }
+}
@@ -0,0 +1,21 @@
+-- V10: Structured rule conditions; keyword becomes one optional condition among several
+
+ALTER TABLE categorization_rules ALTER COLUMN keyword DROP NOT NULL;
+
+ALTER TABLE categorization_rules
+    ADD COLUMN IF NOT EXISTS amount_min        NUMERIC(15, 2),
+    ADD COLUMN IF NOT EXISTS amount_max        NUMERIC(15, 2),
+    ADD COLUMN IF NOT EXISTS direction         VARCHAR(6) CHECK (direction IN ('DEBIT', 'CREDIT')),
+    ADD COLUMN IF NOT EXISTS day_from          SMALLINT CHECK (day_from BETWEEN 1 AND 31),
+    ADD COLUMN IF NOT EXISTS day_to            SMALLINT CHECK (day_to BETWEEN 1 AND 31),
+    ADD COLUMN IF NOT EXISTS date_from         DATE,
+    ADD COLUMN IF NOT EXISTS date_to           DATE,
+    ADD COLUMN IF NOT EXISTS description_regex TEXT,
+    ADD COLUMN IF NOT EXISTS merchant_key      TEXT;
+
+-- A rule with no condition at all would swallow every transaction
+ALTER TABLE categorization_rules ADD CONSTRAINT chk_rules_has_condition CHECK (
+    keyword IS NOT NULL OR amount_min IS NOT NULL OR amount_max IS NOT NULL OR direction IS NOT NULL
+    OR day_from IS NOT NULL OR day_to IS NOT NULL OR date_from IS NOT NULL OR date_to IS NOT NULL
+    OR description_regex IS NOT NULL OR merchant_key IS NOT NULL
+);
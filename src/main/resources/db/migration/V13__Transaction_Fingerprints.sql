@@ -0,0 +1,21 @@
+-- V13: Cross-upload duplicate detection
+-- Uploads belong to an account (the statement's source); overlapping statements of the
+-- same account are detected through one hashed fingerprint per imported row:
+-- (date, amount, merchant key, occurrence within the upload) → 64-bit hash.
+
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS account_key VARCHAR(64) NOT NULL DEFAULT 'default';
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS skip_duplicates BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS duplicate_rows INTEGER NOT NULL DEFAULT 0;
+-- Cleared when a later upload takes over a failed upload's fingerprints: resuming it
+-- would import those rows a second time
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS resumable BOOLEAN NOT NULL DEFAULT TRUE;
+
+-- The primary key is the unique index that settles races between instances
+CREATE TABLE IF NOT EXISTS transaction_fingerprints (
+    account_key VARCHAR(64) NOT NULL,
+    fingerprint BIGINT      NOT NULL,
+    upload_id   UUID        NOT NULL REFERENCES uploads(id) ON DELETE CASCADE,
+    PRIMARY KEY (account_key, fingerprint)
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_fingerprints_upload ON transaction_fingerprints (upload_id);
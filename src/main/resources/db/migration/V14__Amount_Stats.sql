@@ -0,0 +1,17 @@
+-- V14: Running amount statistics per account, merchant / category and direction.
+-- One row per key holds count, mean and M2 (Welford), merged in SQL with Chan's
+-- parallel formula so concurrent uploads of an account cannot lose updates; median is
+-- an approximate running estimate (last writer wins).
+
+CREATE TABLE IF NOT EXISTS amount_stats (
+    account_key VARCHAR(64)      NOT NULL,
+    scope       CHAR(1)          NOT NULL CHECK (scope IN ('M', 'C')),  -- merchant key / category id
+    stat_key    TEXT             NOT NULL,
+    sign        SMALLINT         NOT NULL CHECK (sign IN (-1, 1)),      -- debit / credit
+    n           BIGINT           NOT NULL,
+    mean        DOUBLE PRECISION NOT NULL,
+    m2          DOUBLE PRECISION NOT NULL,
+    median      DOUBLE PRECISION NOT NULL,
+    updated_at  TIMESTAMPTZ      NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (account_key, scope, stat_key, sign)
+);
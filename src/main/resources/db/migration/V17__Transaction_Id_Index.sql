@@ -0,0 +1,6 @@
+-- V17: Index transactions by id alone. The primary key is (upload_id, id), so lookups
+-- that know only the id (findById, bulk override and re-categorization by id list, the
+-- re-categorization keyset) otherwise probe all 16 partitions with a sequential scan.
+-- Partitioned, so each partition gets its own index; ids are UUIDv7 and unique anyway.
+
+CREATE INDEX IF NOT EXISTS idx_transactions_id ON transactions (id);
@@ -0,0 +1,3 @@
+-- V3: Track chunked ingest progress so a failed upload can resume after the last committed chunk
+
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS committed_rows INTEGER NOT NULL DEFAULT 0;
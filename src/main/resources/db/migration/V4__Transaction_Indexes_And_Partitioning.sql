@@ -0,0 +1,47 @@
+-- V4: Index the per-upload read paths and hash-partition transactions by upload_id
+
+-- 1. Rebuild transactions as a hash-partitioned table.
+--    Every read path filters by upload_id, so queries prune to a single partition.
+--    A partitioned table's unique constraints must include the partition key:
+--    the PK becomes (upload_id, id) and the anomalies FK on id alone has to go.
+ALTER TABLE anomalies DROP CONSTRAINT IF EXISTS anomalies_transaction_id_fkey;
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER TABLE transactions_legacy RENAME CONSTRAINT transactions_pkey TO transactions_legacy_pkey;
+
+CREATE TABLE transactions (
+    id              UUID NOT NULL DEFAULT gen_random_uuid(),
+    upload_id       UUID NOT NULL REFERENCES uploads(id) ON DELETE CASCADE,
+    txn_date        DATE NOT NULL,
+    description     TEXT NOT NULL,
+    amount          NUMERIC(15, 2) NOT NULL,  -- positive = credit, negative = debit
+    currency        CHAR(3) NOT NULL DEFAULT 'THB',
+    category_id     INTEGER REFERENCES categories(id),
+    matched_rule_id INTEGER REFERENCES categorization_rules(id),
+    is_override     BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (upload_id, id)
+) PARTITION BY HASH (upload_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE transactions_p%s PARTITION OF transactions FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            i, i);
+    END LOOP;
+END $$;
+
+INSERT INTO transactions (id, upload_id, txn_date, description, amount, currency,
+                          category_id, matched_rule_id, is_override, created_at)
+SELECT id, upload_id, txn_date, description, amount, currency,
+       category_id, matched_rule_id, is_override, created_at
+FROM transactions_legacy;
+
+DROP TABLE transactions_legacy;
+
+-- 2. findByUploadIdOrderByTxnDate backs preview, transactions, summary and report
+CREATE INDEX IF NOT EXISTS idx_transactions_upload_date ON transactions (upload_id, txn_date);
+
+-- 3. anomalies → transactions join used by AnomalyRepository.findByUploadId
+CREATE INDEX IF NOT EXISTS idx_anomalies_transaction ON anomalies (transaction_id);
@@ -0,0 +1,43 @@
+-- V6: Materialized per-upload dashboard summary (single-row PK lookup)
+
+CREATE TABLE IF NOT EXISTS upload_summaries (
+    upload_id          UUID PRIMARY KEY REFERENCES uploads(id) ON DELETE CASCADE,
+    total_income       NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    total_expense      NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    txn_count          INTEGER NOT NULL DEFAULT 0,
+    anomaly_count      INTEGER NOT NULL DEFAULT 0,
+    open_anomaly_count INTEGER NOT NULL DEFAULT 0,
+    by_category        JSONB NOT NULL DEFAULT '{}'::jsonb,   -- categoryId → absolute expense
+    updated_at         TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Backfill uploads ingested before this migration
+INSERT INTO upload_summaries (upload_id, total_income, total_expense, txn_count)
+SELECT upload_id,
+       COALESCE(SUM(amount) FILTER (WHERE amount > 0), 0),
+       COALESCE(SUM(-amount) FILTER (WHERE amount < 0), 0),
+       COUNT(*)
+FROM transactions
+GROUP BY upload_id
+ON CONFLICT (upload_id) DO NOTHING;
+
+UPDATE upload_summaries s
+SET by_category = c.by_category
+FROM (SELECT upload_id, jsonb_object_agg(category_id, expense) AS by_category
+      FROM (SELECT upload_id, category_id, SUM(-amount) AS expense
+            FROM transactions
+            WHERE amount < 0 AND category_id IS NOT NULL
+            GROUP BY upload_id, category_id) per_category
+      GROUP BY upload_id) c
+WHERE s.upload_id = c.upload_id;
+
+UPDATE upload_summaries s
+SET anomaly_count = a.total,
+    open_anomaly_count = a.open
+FROM (SELECT t.upload_id,
+             COUNT(*) AS total,
+             COUNT(*) FILTER (WHERE an.status = 'open') AS open
+      FROM anomalies an
+      JOIN transactions t ON t.id = an.transaction_id
+      GROUP BY t.upload_id) a
+WHERE s.upload_id = a.upload_id;
@@ -0,0 +1,10 @@
+-- V8: Versioned rule set; uploads record the version they were categorized with
+
+CREATE TABLE IF NOT EXISTS rule_set_state (
+    id      SMALLINT PRIMARY KEY CHECK (id = 1),   -- single row
+    version BIGINT NOT NULL
+);
+
+INSERT INTO rule_set_state (id, version) VALUES (1, 1) ON CONFLICT (id) DO NOTHING;
+
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS rule_version BIGINT;
@@ -0,0 +1,33 @@
+package com.statify.backend.fingerprint;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("never forgets what was put, and stays near its false-positive rate at capacity")
+    void no_false_negatives_and_bounded_false_positives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(7);
+        long[] put = new long[10_000];
+        for (int i = 0; i < put.length; i++) {
+            put[i] = random.nextLong();
+            filter.put(put[i]);
+        }
+
+        for (long fingerprint : put)
+            assertTrue(filter.mightContain(fingerprint));
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(random.nextLong()))
+                falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "expected about 1%, got " + falsePositives + " in 100k");
+        assertEquals(10_000, filter.size());
+    }
+}
@@ -0,0 +1,158 @@
+package com.statify.backend.fingerprint;
+
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.repository.BulkInsertRepository;
+import com.statify.backend.repository.FingerprintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FingerprintIndexTest {
+
+    private final FingerprintRepository fingerprintRepository = mock(FingerprintRepository.class);
+    private final BulkInsertRepository bulkInsertRepository = mock(BulkInsertRepository.class);
+    private final UUID january = UUID.randomUUID();
+    private final UUID quarter = UUID.randomUUID();
+
+    /** Stands in for one account's rows of the fingerprint table: fingerprint → owning upload. */
+    private final Map<Long, UUID> table = new HashMap<>();
+
+    /** Uploads whose status is failed. */
+    private final Set<UUID> failed = new HashSet<>();
+
+    private FingerprintIndex index;
+
+    private static Transaction txn(String description, String amount, int day) {
+        Transaction t = new Transaction();
+        t.setTxnDate(LocalDate.of(2026, 1, day));
+        t.setDescription(description);
+        t.setAmount(new BigDecimal(amount));
+        return t;
+    }
+
+    @BeforeEach
+    void setup() {
+        index = new FingerprintIndex(fingerprintRepository, bulkInsertRepository, 10);
+        when(fingerprintRepository.countByAccount(any())).thenAnswer(inv -> (long) table.size());
+        doAnswer(inv -> {
+            table.keySet().forEach(((LongConsumer) inv.getArgument(1))::accept);
+            return null;
+        }).when(fingerprintRepository).forEachFingerprint(any(), any());
+        when(fingerprintRepository.findOwners(any(), anyCollection())).thenAnswer(inv -> {
+            Map<Long, UUID> owners = new HashMap<>();
+            for (Long fingerprint : inv.<List<Long>>getArgument(1)) {
+                if (table.containsKey(fingerprint) && !failed.contains(table.get(fingerprint)))
+                    owners.put(fingerprint, table.get(fingerprint));
+            }
+            return owners;
+        });
+        when(fingerprintRepository.takeOverFailed(any(), any(), anyCollection())).thenAnswer(inv -> {
+            Set<Long> taken = new HashSet<>();
+            for (Long fingerprint : inv.<List<Long>>getArgument(2)) {
+                if (failed.contains(table.get(fingerprint))) {
+                    table.put(fingerprint, inv.getArgument(1));
+                    taken.add(fingerprint);
+                }
+            }
+            return taken;
+        });
+        when(bulkInsertRepository.insertFingerprints(any(), any(), any())).thenAnswer(inv -> {
+            Set<Long> inserted = new HashSet<>();
+            for (long fingerprint : inv.<long[]>getArgument(2)) {
+                if (table.putIfAbsent(fingerprint, inv.getArgument(1)) == null)
+                    inserted.add(fingerprint);
+            }
+            return inserted;
+        });
+    }
+
+    @Test
+    @DisplayName("identical rows in one statement get distinct fingerprints; printed times and scale do not matter")
+    void fingerprints_count_occurrences() {
+        long[] fingerprints = FingerprintIndex.fingerprints(List.of(
+                txn("STARBUCKS SIAM 03/01 10:32", "-145.00", 3),
+                txn("STARBUCKS SIAM 03/01 10:41", "-145.0", 3),
+                txn("STARBUCKS SIAM 04/01 09:05", "-145.00", 4)));
+        long[] again = FingerprintIndex.fingerprints(List.of(txn("STARBUCKS SIAM", "-145", 3)));
+
+        assertEquals(3, Arrays.stream(fingerprints).distinct().count());
+        assertEquals(fingerprints[0], again[0]);
+    }
+
+    @Test
+    @DisplayName("rows that differ by reference or payee account are separate postings")
+    void references_distinguish_postings() {
+        long[] fingerprints = FingerprintIndex.fingerprints(List.of(
+                txn("TRANSFER TO 123-4-56789-0", "-5000", 3),
+                txn("TRANSFER TO 987-6-54321-0", "-5000", 3),
+                txn("STARBUCKS REF 0091", "-145", 3),
+                txn("STARBUCKS REF 0092", "-145", 3)));
+        long[] firstOccurrences = FingerprintIndex.fingerprints(List.of(txn("TRANSFER TO 987-6-54321-0", "-5000", 3),
+                txn("STARBUCKS REF 0092", "-145", 3)));
+
+        assertEquals(4, Arrays.stream(fingerprints).distinct().count());
+        assertEquals(fingerprints[1], firstOccurrences[0], "each is the first of its key, not a repeat");
+        assertEquals(fingerprints[3], firstOccurrences[1]);
+    }
+
+    @Test
+    @DisplayName("an overlapping statement's rows are reported with the upload that imported them first")
+    void overlapping_statement_is_detected() {
+        List<Transaction> janRows = List.of(txn("KFC", "-120.00", 5), txn("KFC", "-120.00", 5), txn("BTS", "-44", 6));
+        assertTrue(index.claim("acct-1", january, FingerprintIndex.fingerprints(janRows)).isEmpty());
+
+        List<Transaction> quarterRows = List.of(
+                txn("KFC", "-120.00", 5), // both January KFC rows are in the export...
+                txn("KFC", "-120.00", 5),
+                txn("KFC", "-120.00", 5), // ...but a third one is new
+                txn("BTS", "-44.00", 6),
+                txn("LOTUS", "-900.00", 20));
+        Map<Integer, UUID> duplicates = index.claim("acct-1", quarter, FingerprintIndex.fingerprints(quarterRows));
+
+        assertEquals(Map.of(0, january, 1, january, 3, january), duplicates);
+        assertEquals(5, table.size(), "only the new rows were claimed");
+    }
+
+    @Test
+    @DisplayName("a row claimed by another instance after the filter was filled is caught by the unique key")
+    void conflict_at_insert_is_a_duplicate() {
+        index.claim("acct-1", january, FingerprintIndex.fingerprints(List.of(txn("MK", "-300", 9))));
+        long foreign = FingerprintIndex.fingerprints(List.of(txn("GRAB", "-80", 9)))[0];
+        table.put(foreign, quarter); // inserted elsewhere; this filter never saw it
+
+        Map<Integer, UUID> duplicates = index.claim("acct-1", UUID.randomUUID(), new long[] { foreign });
+
+        assertEquals(Map.of(0, quarter), duplicates);
+    }
+
+    @Test
+    @DisplayName("rows a failed upload committed are not duplicates; the re-upload takes their fingerprints over")
+    void failed_upload_does_not_own_rows() {
+        List<Transaction> rows = List.of(txn("KFC", "-120.00", 5), txn("BTS", "-44", 6));
+        index.claim("acct-1", january, FingerprintIndex.fingerprints(rows.subList(0, 1)));
+        failed.add(january); // the upload failed after its first chunk
+
+        Map<Integer, UUID> duplicates = index.claim("acct-1", quarter, FingerprintIndex.fingerprints(rows));
+
+        assertTrue(duplicates.isEmpty());
+        assertEquals(Map.of(FingerprintIndex.fingerprints(rows)[0], quarter,
+                FingerprintIndex.fingerprints(rows)[1], quarter), table);
+        assertEquals(Map.of(0, quarter), index.claim("acct-1", UUID.randomUUID(),
+                FingerprintIndex.fingerprints(rows.subList(0, 1))), "the re-upload owns them now");
+    }
+}
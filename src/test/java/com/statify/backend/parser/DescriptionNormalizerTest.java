@@ -0,0 +1,90 @@
+package com.statify.backend.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescriptionNormalizerTest {
+
+    @ParameterizedTest(name = "{0} → {1}")
+    @DisplayName("strips volatile tokens and keeps the merchant")
+    @CsvSource(delimiter = '|', value = {
+            "KFC RAMA 9 REF 88231                 | KFC RAMA 9",
+            "kfc rama 9 ref:10442 12/03/26        | KFC RAMA 9",
+            "7-11 SILOM TID00012345 10:32         | 7-11 SILOM",
+            "GRAB*FOOD XXXX1234 2026-03-12        | GRAB*FOOD",
+            "ร้านเซเว่น สาขา 00123                  | ร้านเซเว่น สาขา",
+            "NO BRAND SHOP                        | NO BRAND SHOP",
+            "SHOPEE PAY NO. 99812 (BKK)           | SHOPEE PAY BKK",
+            "TRANSFER 0123456789                  | TRANSFER 0123456789",
+            "POS KFC#1234 BANGKOK                 | POS KFC BANGKOK",
+            "SHOPEE12345678 PAYMENT               | SHOPEE PAYMENT",
+            "LAZADA98765432 PAYMENT               | LAZADA PAYMENT",
+            "TRANSFER TO 123-4-56789-0 REF 991    | TRANSFER TO 123-4-56789-0",
+            "PROMPTPAY 0812345678                 | PROMPTPAY 0812345678",
+            "STARBUCKS 12MAR2026 10:32AM          | STARBUCKS",
+    })
+    void strips_volatile_tokens(String description, String expected) {
+        assertEquals(expected, DescriptionNormalizer.normalize(description));
+    }
+
+    @Test
+    @DisplayName("repeat purchases with different references share one key")
+    void repeat_purchases_share_key() {
+        assertEquals(DescriptionNormalizer.normalize("KFC RAMA 9 REF 88231"),
+                DescriptionNormalizer.normalize("KFC  RAMA 9  REF 90017"));
+    }
+
+    @Test
+    @DisplayName("different merchants and payees keep different keys")
+    void distinct_merchants_and_payees_stay_distinct() {
+        assertNotEquals(DescriptionNormalizer.normalize("SHOPEE12345678 PAYMENT"),
+                DescriptionNormalizer.normalize("LAZADA98765432 PAYMENT"));
+        assertNotEquals(DescriptionNormalizer.normalize("TRANSFER TO 123-4-56789-0 REF 991"),
+                DescriptionNormalizer.normalize("TRANSFER TO 987-6-54321-0 REF 112"));
+        assertNotEquals(DescriptionNormalizer.normalize("PROMPTPAY 0812345678"),
+                DescriptionNormalizer.normalize("PROMPTPAY 0899999999"));
+        assertEquals(DescriptionNormalizer.normalize("TRANSFER TO 123-4-56789-0 REF 991"),
+                DescriptionNormalizer.normalize("TRANSFER TO 123-4-56789-0 REF 112"),
+                "the same payee with another reference is the same key");
+    }
+
+    @Test
+    @DisplayName("duplicate text drops only printed dates and times, keeping references and accounts")
+    void without_dates_keeps_references() {
+        assertEquals("STARBUCKS SIAM", DescriptionNormalizer.withoutDates("Starbucks  Siam 12/03/26 10:32AM"));
+        assertEquals("7-ELEVEN REF 0091", DescriptionNormalizer.withoutDates("7-ELEVEN REF 0091 2026-03-12"));
+        assertEquals("TRANSFER TO 123-4-56789-0", DescriptionNormalizer.withoutDates("TRANSFER TO 123-4-56789-0"));
+        assertEquals("12/03", DescriptionNormalizer.withoutDates("12/03"));
+    }
+
+    @Test
+    @DisplayName("a key names a merchant unless every word is a generic channel word")
+    void names_merchant() {
+        assertFalse(DescriptionNormalizer.namesMerchant("PAYMENT"));
+        assertFalse(DescriptionNormalizer.namesMerchant("POS TRANSFER TO"));
+        assertTrue(DescriptionNormalizer.namesMerchant("SHOPEE PAYMENT"));
+        assertTrue(DescriptionNormalizer.namesMerchant("TRANSFER TO 123-4-56789-0"));
+    }
+
+    @Test
+    @DisplayName("a description that is only a reference falls back to the folded original")
+    void all_volatile_falls_back() {
+        assertEquals("88231 12/03", DescriptionNormalizer.normalize(" 88231  12/03 "));
+    }
+
+    @Test
+    @DisplayName("dictionary interns keys so equal merchants share one instance")
+    void dictionary_interns_keys() {
+        MerchantDictionary dictionary = new MerchantDictionary(100);
+
+        String first = dictionary.merchantKey("KFC RAMA 9 REF 88231");
+        String second = dictionary.merchantKey("KFC RAMA 9 REF 90017");
+
+        assertSame(first, second);
+        assertEquals(1, dictionary.size());
+    }
+}
@@ -0,0 +1,57 @@
+package com.statify.backend.rules;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorizationMemoTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CategorizationMemo memo = new CategorizationMemo(1_000, registry);
+
+    private static RuleSnapshot snapshot(long version, String... keywords) {
+        Category category = new Category();
+        category.setId(1);
+        List<CategorizationRule> rules = new ArrayList<>();
+        for (int i = 0; i < keywords.length; i++) {
+            CategorizationRule rule = new CategorizationRule();
+            rule.setId(i + 1);
+            rule.setKeyword(keywords[i]);
+            rule.setCategory(category);
+            rules.add(rule);
+        }
+        return RuleSnapshot.compile(version, rules);
+    }
+
+    @Test
+    @DisplayName("repeat merchants are served from the memo and counted as hits")
+    void repeat_merchants_hit() {
+        RuleSnapshot rules = snapshot(1, "KFC", "GRAB");
+
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(new int[] { 0 }, memo.keywordHits(rules, "KFC RAMA 9"));
+            assertArrayEquals(new int[0], memo.keywordHits(rules, "UNKNOWN SHOP"));
+        }
+
+        assertEquals(0.9, memo.hitRate(), 1e-9);
+        assertEquals(18, registry.get("cache.gets").tag("cache", "categorization.memo").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("a newer rule version never sees ranks computed against the old one")
+    void version_change_invalidates() {
+        assertArrayEquals(new int[0], memo.keywordHits(snapshot(1, "GRAB"), "KFC RAMA 9"));
+
+        RuleSnapshot v2 = snapshot(2, "GRAB", "KFC");
+        assertArrayEquals(new int[] { 1 }, memo.keywordHits(v2, "KFC RAMA 9"));
+        assertEquals(0, memo.hitRate(), 1e-9);
+    }
+}
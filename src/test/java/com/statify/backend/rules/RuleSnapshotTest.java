@@ -0,0 +1,122 @@
+package com.statify.backend.rules;
+
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.entity.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSnapshotTest {
+
+    private static int nextId = 1;
+
+    private static CategorizationRule rule(String keyword, int categoryId, Consumer<CategorizationRule> conditions) {
+        Category category = new Category();
+        category.setId(categoryId);
+        CategorizationRule rule = new CategorizationRule();
+        rule.setId(nextId++);
+        rule.setKeyword(keyword);
+        rule.setCategory(category);
+        conditions.accept(rule);
+        return rule;
+    }
+
+    private static Transaction txn(String description, String merchantKey, String amount, LocalDate date) {
+        Transaction t = new Transaction();
+        t.setDescription(description);
+        t.setMerchantKey(merchantKey);
+        t.setAmount(new BigDecimal(amount));
+        t.setTxnDate(date);
+        return t;
+    }
+
+    private static int categoryOf(RuleSnapshot rules, Transaction txn) {
+        int rank = rules.match(txn);
+        return rank == KeywordMatcher.NO_MATCH ? -1 : rules.categoryId(rank);
+    }
+
+    @Test
+    @DisplayName("a keyword hit whose amount condition fails falls through to the next rule")
+    void failed_condition_falls_through() {
+        RuleSnapshot rules = RuleSnapshot.compile(1, List.of(
+                rule("7-ELEVEN", 1, r -> r.setAmountMin(new BigDecimal("500"))), // big basket → Groceries
+                rule("7-ELEVEN", 2, r -> { }))); // otherwise → Snacks
+
+        assertEquals(1, categoryOf(rules, txn("7-ELEVEN SILOM", null, "-820.00", LocalDate.of(2026, 3, 2))));
+        assertEquals(2, categoryOf(rules, txn("7-ELEVEN SILOM", null, "-45.00", LocalDate.of(2026, 3, 2))));
+    }
+
+    @Test
+    @DisplayName("keywordless rules match on merchant key, sign and wrapping day-of-month windows")
+    void keywordless_conditions() {
+        RuleSnapshot rules = RuleSnapshot.compile(1, List.of(
+                rule(null, 5, r -> r.setMerchantKey("LANDLORD CO")),
+                rule(null, 7, r -> {
+                    r.setDirection("CREDIT");
+                    r.setDayFrom(25);
+                    r.setDayTo(5);
+                }))); // salary around month end
+
+        assertEquals(5, categoryOf(rules, txn("LANDLORD CO 0042", "LANDLORD CO", "-15000.00", LocalDate.of(2026, 3, 1))));
+        assertEquals(7, categoryOf(rules, txn("PAYROLL ACME", "PAYROLL ACME", "52000.00", LocalDate.of(2026, 3, 28))));
+        assertEquals(7, categoryOf(rules, txn("PAYROLL ACME", "PAYROLL ACME", "52000.00", LocalDate.of(2026, 4, 3))));
+        assertEquals(-1, categoryOf(rules, txn("PAYROLL ACME", "PAYROLL ACME", "52000.00", LocalDate.of(2026, 3, 15))));
+        assertEquals(-1, categoryOf(rules, txn("REFUND SHOP", "REFUND SHOP", "-200.00", LocalDate.of(2026, 3, 28))));
+    }
+
+    @Test
+    @DisplayName("priority order holds across keyword, merchant-index and unindexed candidates")
+    void candidates_merge_in_rank_order() {
+        RuleSnapshot rules = RuleSnapshot.compile(1, List.of(
+                rule(null, 1, r -> r.setAmountMax(new BigDecimal("10"))),
+                rule("GRAB", 2, r -> { }),
+                rule(null, 3, r -> r.setMerchantKey("GRAB"))));
+
+        assertEquals(1, categoryOf(rules, txn("GRAB", "GRAB", "-5.00", LocalDate.of(2026, 3, 1))));
+        assertEquals(2, categoryOf(rules, txn("GRAB", "GRAB", "-95.00", LocalDate.of(2026, 3, 1))));
+    }
+
+    @Test
+    @DisplayName("regex conditions run after cheap ones; a stored regex that no longer compiles disables only its rule")
+    void regex_ordering_and_invalid_pattern() {
+        CategorizationRule regexRule = rule(null, 4, r -> {
+            r.setDescriptionRegex("^PROMPTPAY \\d{10}$");
+            r.setDirection("DEBIT");
+        });
+        List<RuleCondition> ordered = RuleCondition.of(regexRule, true);
+        assertInstanceOf(RuleCondition.Direction.class, ordered.get(0));
+        assertInstanceOf(RuleCondition.DescriptionRegex.class, ordered.get(1));
+
+        RuleSnapshot rules = RuleSnapshot.compile(1, List.of(
+                rule(null, 9, r -> r.setDescriptionRegex("(unclosed")),
+                regexRule));
+
+        assertEquals(4, categoryOf(rules, txn("promptpay 0812345678", null, "-300.00", LocalDate.of(2026, 3, 1))));
+        assertEquals(-1, categoryOf(rules, txn("PROMPTPAY 0812345678", null, "300.00", LocalDate.of(2026, 3, 1))));
+    }
+
+    @Test
+    @DisplayName("a backtracking regex gives up on its time budget as no match, and overlong patterns are refused")
+    void regex_is_bounded() {
+        RuleSnapshot rules = RuleSnapshot.compile(1, List.of(
+                rule(null, 6, r -> r.setDescriptionRegex("^(\\w+\\s?)*$")),
+                rule(null, 7, r -> r.setDirection("DEBIT"))));
+        Transaction hostile = txn("TRANSFER " + "A".repeat(40) + "!", null, "-10.00", LocalDate.of(2026, 3, 1));
+
+        long started = System.nanoTime();
+        assertEquals(7, categoryOf(rules, hostile));
+        assertTrue(System.nanoTime() - started < 2_000_000_000L, "matching stopped at the budget");
+        assertEquals(6, categoryOf(rules, txn("TRANSFER TO SAVINGS", null, "-10.00", LocalDate.of(2026, 3, 1))));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RuleCondition.of(rule(null, 6, r -> r.setDescriptionRegex("A".repeat(201))), true));
+        assertTrue(e.getMessage().contains("longer than 200"), e.getMessage());
+    }
+}
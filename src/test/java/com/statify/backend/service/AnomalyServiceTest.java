@@ -1,19 +1,32 @@
 package com.statify.backend.service;
 
+import com.statify.backend.anomaly.AmountStats;
+import com.statify.backend.anomaly.AnomalyRuleEngine;
+import com.statify.backend.anomaly.DuplicateRule;
+import com.statify.backend.anomaly.LargeAmountRule;
+import com.statify.backend.anomaly.StatKey;
+import com.statify.backend.anomaly.UnusualAmountRule;
+import com.statify.backend.entity.AnomalyRuleSetting;
 import com.statify.backend.entity.Anomaly;
 import com.statify.backend.entity.Transaction;
-import com.statify.backend.repository.AnomalyRepository;
+import com.statify.backend.entity.Upload;
+import com.statify.backend.repository.AmountStatsRepository;
+import com.statify.backend.repository.AnomalyRuleSettingRepository;
+import com.statify.backend.repository.BulkInsertRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,13 +40,46 @@ import static org.mockito.Mockito.*;
 class AnomalyServiceTest {
 
     @Mock
-    private AnomalyRepository anomalyRepository;
+    private BulkInsertRepository bulkInsertRepository;
+
+    @Mock
+    private AmountStatsRepository amountStatsRepository;
+
+    @Mock
+    private AnomalyRuleSettingRepository settingRepository;
 
-    @InjectMocks
     private AnomalyService service;
 
+    private final Upload upload = uploadWithId();
+
+    private static Upload uploadWithId() {
+        Upload upload = new Upload();
+        upload.setId(UUID.randomUUID());
+        return upload;
+    }
+
+    @BeforeEach
+    void setup() {
+        AnomalyRuleEngine engine = new AnomalyRuleEngine(
+                List.of(new LargeAmountRule(), new DuplicateRule(), new UnusualAmountRule()),
+                settingRepository, amountStatsRepository);
+        service = new AnomalyService(bulkInsertRepository, null, null, null, engine);
+    }
+
+    private AnomalyRuleSetting setting(String rule, boolean enabled, String severity, Map<String, Double> params) {
+        AnomalyRuleSetting setting = new AnomalyRuleSetting();
+        setting.setAccountKey("default");
+        setting.setRuleName(rule);
+        setting.setEnabled(enabled);
+        setting.setSeverity(severity);
+        setting.setParams(params);
+        return setting;
+    }
+
     private Transaction txn(String desc, double amount, LocalDate date) {
         Transaction t = new Transaction();
+        t.setId(UUID.randomUUID());
+        t.setUpload(upload);
         t.setDescription(desc);
         t.setAmount(new BigDecimal(String.valueOf(amount)));
         t.setTxnDate(date);
@@ -44,7 +90,7 @@ class AnomalyServiceTest {
     @SuppressWarnings("unchecked")
     private List<Anomaly> captureAnomalies() {
         ArgumentCaptor<List<Anomaly>> captor = ArgumentCaptor.forClass(List.class);
-        verify(anomalyRepository).saveAll(captor.capture());
+        verify(bulkInsertRepository).insertAnomalies(captor.capture());
         return captor.getValue();
     }
 
@@ -52,7 +98,7 @@ class AnomalyServiceTest {
     @Test
     @DisplayName("flags transaction >= 10,000 THB as MEDIUM severity")
     void flags_large_amount() {
-        service.detectAnomalies(List.of(txn("Big Purchase", -10000.00, LocalDate.now())));
+        service.detectAnomalies("default", List.of(txn("Big Purchase", -10000.00, LocalDate.now())), Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         assertEquals(1, anomalies.size());
@@ -63,7 +109,7 @@ class AnomalyServiceTest {
     @Test
     @DisplayName("does not flag transaction < 10,000 THB")
     void no_flag_for_normal_amount() {
-        service.detectAnomalies(List.of(txn("Coffee", -120.00, LocalDate.now())));
+        service.detectAnomalies("default", List.of(txn("Coffee", -120.00, LocalDate.now())), Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         assertTrue(anomalies.isEmpty(), "Small transaction must not generate anomaly");
@@ -72,7 +118,7 @@ class AnomalyServiceTest {
     @Test
     @DisplayName("flags positive credit >= 10,000 THB (absolute value check)")
     void flags_large_credit() {
-        service.detectAnomalies(List.of(txn("Salary", 50000.00, LocalDate.now())));
+        service.detectAnomalies("default", List.of(txn("Salary", 50000.00, LocalDate.now())), Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         assertEquals(1, anomalies.size());
@@ -88,7 +134,7 @@ class AnomalyServiceTest {
                 txn("KFC Purchase", -120.00, today),
                 txn("KFC Purchase", -120.00, today));
 
-        service.detectAnomalies(txns);
+        service.detectAnomalies("default", txns, Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         assertTrue(
@@ -105,7 +151,7 @@ class AnomalyServiceTest {
                 txn("GRAB", -90.00, today) // different amount
         );
 
-        service.detectAnomalies(txns);
+        service.detectAnomalies("default", txns, Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         long duplicateCount = anomalies.stream()
@@ -122,7 +168,7 @@ class AnomalyServiceTest {
                 txn("Netflix", -379.00, LocalDate.of(2026, 2, 1)) // next month = legitimate recurring
         );
 
-        service.detectAnomalies(txns);
+        service.detectAnomalies("default", txns, Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         long duplicateCount = anomalies.stream()
@@ -131,17 +177,150 @@ class AnomalyServiceTest {
         assertEquals(0, duplicateCount, "Monthly recurring payment must NOT be flagged as duplicate");
     }
 
+    @Test
+    @DisplayName("flags each member of a duplicate group once, not once per pair")
+    void flags_each_group_member_once() {
+        LocalDate today = LocalDate.now();
+        List<Transaction> txns = List.of(
+                txn("7-ELEVEN SIAM 10:32", -45.00, today),
+                txn("7-ELEVEN SIAM 10:33", -45.0, today), // same posting, other printed time, other scale
+                txn("7-ELEVEN SIAM 10:32", -45.00, today),
+                txn("7-ELEVEN SIAM", -45.00, today),
+                txn("7-ELEVEN SIAM 10:34", -46.00, today));
+
+        service.detectAnomalies("default", txns, Set.of());
+
+        List<Anomaly> duplicates = captureAnomalies().stream()
+                .filter(a -> a.getRuleName().equals("Duplicate"))
+                .toList();
+        assertEquals(4, duplicates.size(), "4 members, not 6 pairs");
+        assertEquals(4, duplicates.stream().map(Anomaly::getTransaction).distinct().count());
+    }
+
+    @Test
+    @DisplayName("same amount on the same day to different payees or references is not a duplicate")
+    void different_references_are_not_duplicates() {
+        LocalDate today = LocalDate.now();
+        List<Transaction> txns = List.of(
+                txn("TRANSFER TO 123-4-56789-0", -5000.00, today),
+                txn("TRANSFER TO 987-6-54321-0", -5000.00, today),
+                txn("7-ELEVEN REF 0091", -45.00, today),
+                txn("7-ELEVEN REF 0092", -45.00, today));
+
+        service.detectAnomalies("default", txns, Set.of());
+
+        assertTrue(captureAnomalies().stream().noneMatch(a -> a.getRuleName().equals("Duplicate")));
+    }
+
+    // ── Unusual Amount Rule ─────────────────────────────────────────────
+    @Test
+    @DisplayName("flags an amount far above the merchant's history, then merges the batch into it")
+    void flags_amount_far_above_merchant_history() {
+        Transaction usual = txn("STARBUCKS SIAM", -150.00, LocalDate.now());
+        Transaction unusual = txn("STARBUCKS SIAM", -2400.00, LocalDate.now());
+        usual.setMerchantKey("STARBUCKS SIAM");
+        unusual.setMerchantKey("STARBUCKS SIAM");
+        StatKey key = new StatKey(StatKey.MERCHANT, "STARBUCKS SIAM", -1);
+        when(amountStatsRepository.find(eq("default"), anyCollection()))
+                .thenReturn(Map.of(key, new AmountStats(40, 140, 39 * 400, 135)));
+
+        service.detectAnomalies("default", List.of(usual, unusual), Set.of());
+
+        List<Anomaly> flagged = captureAnomalies().stream()
+                .filter(a -> a.getRuleName().equals("Unusual Amount"))
+                .toList();
+        assertEquals(1, flagged.size());
+        assertSame(unusual, flagged.get(0).getTransaction());
+        verify(amountStatsRepository).merge(eq("default"),
+                argThat(batch -> batch.get(key).n() == 2 && batch.get(key).mean() == 1275));
+    }
+
+    @Test
+    @DisplayName("a row an earlier upload already imported is checked but not merged into the statistics again")
+    void already_imported_row_is_not_merged() {
+        Transaction fresh = txn("STARBUCKS SIAM", -150.00, LocalDate.now());
+        Transaction imported = txn("STARBUCKS SIAM 10:32", -130.00, LocalDate.now());
+        fresh.setMerchantKey("STARBUCKS SIAM");
+        imported.setMerchantKey("STARBUCKS SIAM");
+        StatKey key = new StatKey(StatKey.MERCHANT, "STARBUCKS SIAM", -1);
+
+        service.detectAnomalies("default", List.of(fresh, imported), Set.of(imported.getId()));
+
+        verify(amountStatsRepository).merge(eq("default"),
+                argThat(batch -> batch.get(key).n() == 1 && batch.get(key).mean() == 150));
+    }
+
+    @Test
+    @DisplayName("a series with too few samples flags nothing")
+    void young_series_does_not_flag() {
+        Transaction t = txn("NEW SHOP", -5000.00, LocalDate.now());
+        t.setMerchantKey("NEW SHOP");
+        when(amountStatsRepository.find(any(), anyCollection())).thenReturn(Map.of(
+                new StatKey(StatKey.MERCHANT, "NEW SHOP", -1), new AmountStats(3, 50, 10, 50)));
+
+        service.detectAnomalies("default", List.of(t), Set.of());
+
+        assertTrue(captureAnomalies().stream().noneMatch(a -> a.getRuleName().equals("Unusual Amount")));
+    }
+
+    @Test
+    @DisplayName("Welford statistics merged from two halves equal those of the whole series")
+    void amount_stats_merge_matches_single_pass() {
+        double[] values = { 120, 80, 95, 300, 42.5, 110, 87, 150 };
+        AmountStats whole = AmountStats.continuing(0);
+        AmountStats first = AmountStats.continuing(0);
+        AmountStats second = AmountStats.continuing(0);
+        for (int i = 0; i < values.length; i++) {
+            whole.add(values[i]);
+            (i < 3 ? first : second).add(values[i]);
+        }
+        first.merge(second);
+
+        assertEquals(whole.n(), first.n());
+        assertEquals(whole.mean(), first.mean(), 1e-9);
+        assertEquals(whole.stddev(), first.stddev(), 1e-9);
+    }
+
+    // ── Per-account settings ────────────────────────────────────────────
+    @Test
+    @DisplayName("an account's override changes a rule's threshold and severity")
+    void account_override_applies() {
+        when(settingRepository.findByAccountKey("default")).thenReturn(List.of(
+                setting("Large Amount", true, "HIGH", Map.of("threshold", 500.0))));
+
+        service.detectAnomalies("default", List.of(txn("Dinner", -800.00, LocalDate.now())), Set.of());
+
+        List<Anomaly> anomalies = captureAnomalies();
+        assertEquals(1, anomalies.size());
+        assertEquals("HIGH", anomalies.get(0).getSeverity());
+        assertEquals("Transaction exceeds threshold of 500.00", anomalies.get(0).getDetail());
+    }
+
+    @Test
+    @DisplayName("state no enabled rule declares is never built")
+    void disabled_rule_skips_its_state() {
+        when(settingRepository.findByAccountKey("default")).thenReturn(List.of(
+                setting("Unusual Amount", false, null, Map.of())));
+        Transaction t = txn("STARBUCKS SIAM", -150.00, LocalDate.now());
+        t.setMerchantKey("STARBUCKS SIAM");
+
+        service.detectAnomalies("default", List.of(t, txn("STARBUCKS SIAM", -150.00, LocalDate.now())), Set.of());
+
+        assertEquals(2, captureAnomalies().stream().filter(a -> a.getRuleName().equals("Duplicate")).count());
+        verifyNoInteractions(amountStatsRepository);
+    }
+
     // ── Empty / Edge cases ──────────────────────────────────────────────
     @Test
     @DisplayName("handles empty list without throwing")
     void handles_empty_list() {
-        assertDoesNotThrow(() -> service.detectAnomalies(List.of()));
+        assertDoesNotThrow(() -> service.detectAnomalies("default", List.of(), Set.of()));
     }
 
     @Test
     @DisplayName("handles single transaction — no duplicate possible")
     void no_duplicate_from_single_transaction() {
-        service.detectAnomalies(List.of(txn("Solo", -200.00, LocalDate.now())));
+        service.detectAnomalies("default", List.of(txn("Solo", -200.00, LocalDate.now())), Set.of());
 
         List<Anomaly> anomalies = captureAnomalies();
         long duplicateCount = anomalies.stream()
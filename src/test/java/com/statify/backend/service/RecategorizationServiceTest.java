@@ -0,0 +1,192 @@
+package com.statify.backend.service;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.RecategorizationProgress;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.Upload;
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.RecategorizationRepository;
+import com.statify.backend.rules.RuleSnapshot;
+import com.statify.backend.rules.RuleSnapshotHolder;
+import com.statify.backend.rules.RulesChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the candidate SQL and batched updates against embedded H2; the rule snapshot,
+ * summary service and rule repository are stubbed.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(RecategorizationRepository.class)
+class RecategorizationServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecategorizationRepository recategorizationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CategorizationRuleRepository ruleRepository = mock(CategorizationRuleRepository.class);
+    private final RuleSnapshotHolder ruleSnapshotHolder = mock(RuleSnapshotHolder.class);
+    private final UploadSummaryService uploadSummaryService = mock(UploadSummaryService.class);
+
+    private RecategorizationService service;
+    private UUID uploadId;
+
+    private static CategorizationRule rule(int id, String keyword, int categoryId) {
+        Category category = new Category();
+        category.setId(categoryId);
+        CategorizationRule rule = new CategorizationRule();
+        rule.setId(id);
+        rule.setKeyword(keyword);
+        rule.setCategory(category);
+        return rule;
+    }
+
+    private UUID persist(String description, String merchantKey, String amount, Integer categoryId, Integer ruleId,
+            boolean override) {
+        Transaction t = new Transaction();
+        t.setUpload(em.find(Upload.class, uploadId));
+        t.setTxnDate(LocalDate.of(2026, 2, 1));
+        t.setDescription(description);
+        t.setMerchantKey(merchantKey);
+        t.setAmount(new BigDecimal(amount));
+        t.setCategoryId(categoryId);
+        t.setMatchedRuleId(ruleId);
+        t.setOverride(override);
+        em.persist(t);
+        return t.getId();
+    }
+
+    private List<Object> assignment(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT category_id, matched_rule_id FROM transactions WHERE id = ?",
+                (rs, i) -> Arrays.asList(rs.getObject(1), rs.getObject(2)), id);
+    }
+
+    @BeforeEach
+    void setup() {
+        service = new RecategorizationService(ruleRepository, ruleSnapshotHolder, mock(TokenClassifier.class),
+                recategorizationRepository,
+                uploadSummaryService, new ReplicaLagGuard(), transactionManager);
+
+        Upload upload = new Upload();
+        upload.setFilename("statement.csv");
+        upload.setFileType("csv");
+        em.persist(upload);
+        uploadId = upload.getId();
+    }
+
+    @Test
+    @DisplayName("a new higher-priority rule claims matching rows, skips overrides and moves summary buckets")
+    void new_rule_claims_matching_rows() {
+        UUID food = persist("GRAB FOOD 0091 BKK", "GRAB FOOD", "-100.00", 2, 8, false);
+        UUID taxi = persist("GRAB TAXI", "GRAB TAXI", "-80.00", 2, 8, false);
+        UUID overridden = persist("GRAB FOOD 0092", "GRAB FOOD", "-50.00", 5, 8, true);
+        UUID unrelated = persist("GRAB_PAY TOPUP", null, "-10.00", null, null, false);
+        em.flush();
+
+        CategorizationRule grabFood = rule(11, "GRAB FOOD", 1);
+        RuleSnapshot rules = RuleSnapshot.compile(2, List.of(grabFood, rule(8, "GRAB", 2)));
+
+        service.recategorize(grabFood, rules);
+
+        assertEquals(List.of(1, 11), assignment(food));
+        assertEquals(List.of(2, 8), assignment(taxi));
+        assertEquals(List.of(5, 8), assignment(overridden));
+        assertEquals(Arrays.asList(null, null), assignment(unrelated), "rows outside the rule's reach are not re-matched");
+        verify(uploadSummaryService).applyCategoryDeltas(uploadId,
+                Map.of(2, new BigDecimal("-100.00"), 1, new BigDecimal("100.00")));
+
+        RecategorizationProgress progress = service.progress().orElseThrow();
+        assertEquals("done", progress.status());
+        assertEquals(1, progress.scanned());
+        assertEquals(1, progress.updated());
+    }
+
+    @Test
+    @DisplayName("after a rule is deleted its rows go to the remaining rules and overrides are detached")
+    void deleted_rule_releases_owned_rows() {
+        UUID food = persist("GRAB FOOD 0091", "GRAB FOOD", "-100.00", 1, 11, false);
+        UUID overridden = persist("GRAB FOOD 0092", "GRAB FOOD", "-50.00", 5, 11, true);
+        em.flush();
+        when(ruleRepository.findById(11)).thenReturn(Optional.empty());
+        when(ruleSnapshotHolder.refresh()).thenReturn(RuleSnapshot.compile(3, List.of(rule(8, "GRAB", 2))));
+
+        service.onRulesChanged(new RulesChangedEvent(3, 11));
+
+        assertEquals(List.of(2, 8), assignment(food));
+        assertEquals(Arrays.asList(5, null), assignment(overridden));
+        RecategorizationProgress progress = service.progress().orElseThrow();
+        assertEquals("done", progress.status());
+        assertEquals(1, progress.updated());
+    }
+
+    @Test
+    @DisplayName("candidates are found by keyword in the merchant key, or in the description of rows without one")
+    void keyword_found_in_match_text() {
+        UUID keyed = persist("POS KFC#1234 BANGKOK", "POS KFC BANGKOK", "-120.00", null, null, false);
+        UUID legacy = persist("KFC#5678 SILOM 12/03/26", null, "-95.00", null, null, false);
+        em.flush();
+
+        CategorizationRule kfcRule = rule(10, "KFC", 1);
+        service.recategorize(kfcRule, RuleSnapshot.compile(2, List.of(kfcRule)));
+
+        assertEquals(List.of(1, 10), assignment(keyed));
+        assertEquals(List.of(1, 10), assignment(legacy));
+    }
+
+    @Test
+    @DisplayName("pages on (upload_id, id) visit every candidate once, across uploads and page boundaries")
+    void pages_across_uploads() {
+        Upload second = new Upload();
+        second.setFilename("second.csv");
+        second.setFileType("csv");
+        em.persist(second);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            if (i == 350)
+                uploadId = second.getId();
+            ids.add(persist("KFC " + i, null, "-1.00", null, null, false));
+        }
+        em.flush();
+
+        CategorizationRule kfcRule = rule(10, "KFC", 1);
+        service.recategorize(kfcRule, RuleSnapshot.compile(2, List.of(kfcRule)));
+
+        RecategorizationProgress progress = service.progress().orElseThrow();
+        assertEquals(700, progress.scanned());
+        assertEquals(700, progress.updated());
+        ids.forEach(id -> assertEquals(List.of(1, 10), assignment(id)));
+    }
+}
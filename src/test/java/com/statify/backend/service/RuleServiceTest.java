@@ -0,0 +1,30 @@
+package com.statify.backend.service;
+
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.exception.InvalidRuleException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleServiceTest {
+
+    private static RuleRequest regex(String descriptionRegex) {
+        return new RuleRequest(null, 1, null, null, null, null, null, null, null, null, descriptionRegex, null);
+    }
+
+    @Test
+    @DisplayName("a rule whose regex does not compile or is overlong is refused before it is saved")
+    void rejects_unusable_regex() {
+        InvalidRuleException e = assertThrows(InvalidRuleException.class,
+                () -> RuleService.applyConditions(new CategorizationRule(), regex("(unclosed")));
+        assertTrue(e.getMessage().startsWith("descriptionRegex is not a valid pattern"), e.getMessage());
+        assertThrows(InvalidRuleException.class,
+                () -> RuleService.applyConditions(new CategorizationRule(), regex("PROMPTPAY ".repeat(21))));
+
+        CategorizationRule rule = new CategorizationRule();
+        RuleService.applyConditions(rule, regex("^PROMPTPAY \\d{10}$"));
+        assertEquals("^PROMPTPAY \\d{10}$", rule.getDescriptionRegex());
+    }
+}
@@ -0,0 +1,189 @@
+package com.statify.backend.service;
+
+import com.statify.backend.classifier.TokenClassifier;
+import com.statify.backend.dto.RuleRequest;
+import com.statify.backend.dto.SimulationRequest;
+import com.statify.backend.dto.SimulationRequest.ProposedRule;
+import com.statify.backend.dto.SimulationResult;
+import com.statify.backend.dto.SimulationResult.RuleHits;
+import com.statify.backend.entity.CategorizationRule;
+import com.statify.backend.entity.Category;
+import com.statify.backend.entity.Transaction;
+import com.statify.backend.entity.Upload;
+import com.statify.backend.exception.InvalidRuleException;
+import com.statify.backend.exception.SimulationBusyException;
+import com.statify.backend.repository.CategorizationRuleRepository;
+import com.statify.backend.repository.CategoryRepository;
+import com.statify.backend.repository.SimulationRepository;
+import com.statify.backend.repository.TransactionRepository;
+import com.statify.backend.repository.UploadRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replays committed rows on worker threads, so it runs outside a test transaction and
+ * cleans up after itself.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(SimulationRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RuleSimulationServiceTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategorizationRuleRepository ruleRepository;
+
+    @Autowired
+    private UploadRepository uploadRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private RuleSimulationService service;
+    private Category food;
+    private Category transport;
+    private CategorizationRule grab;
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return categoryRepository.save(category);
+    }
+
+    private void txn(Upload upload, String description, Category category, boolean override) {
+        Transaction t = new Transaction();
+        t.setUpload(upload);
+        t.setTxnDate(LocalDate.of(2026, 2, 1));
+        t.setDescription(description);
+        t.setAmount(new BigDecimal("-100.00"));
+        t.setCategoryId(category != null ? category.getId() : null);
+        t.setOverride(override);
+        transactionRepository.save(t);
+    }
+
+    @BeforeEach
+    void seed() {
+        service = new RuleSimulationService(ruleRepository, categoryRepository, simulationRepository,
+                mock(TokenClassifier.class), transactionManager, executor);
+        food = category("Food");
+        transport = category("Transport");
+
+        grab = new CategorizationRule();
+        grab.setKeyword("GRAB");
+        grab.setCategory(transport);
+        grab.setPriority(8);
+        ruleRepository.save(grab);
+
+        Upload upload = new Upload();
+        upload.setFilename("statement.csv");
+        upload.setFileType("csv");
+        upload.setStatus("completed");
+        uploadRepository.save(upload);
+        txn(upload, "GRAB FOOD 0091", transport, false);
+        txn(upload, "GRAB TAXI", transport, false);
+        txn(upload, "FOODPANDA ORDER", null, false);
+        txn(upload, "GRAB FOOD 0092", food, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM uploads");
+        ruleRepository.deleteAll();
+        categoryRepository.deleteAll();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("reports hits per rule plus newly categorized and changed rows, ignoring overrides")
+    void simulates_proposed_rules() {
+        SimulationResult result = service.simulate(new SimulationRequest(List.of(
+                new ProposedRule(null, new RuleRequest("GRAB FOOD", food.getId(), 20)),
+                new ProposedRule(null, new RuleRequest("FOODPANDA", food.getId(), 10))), 5));
+
+        assertEquals(1, result.uploads());
+        assertEquals(4, result.rowsScanned());
+        assertEquals(1, result.newlyCategorized());
+        assertEquals(1, result.changed());
+        assertEquals(2, result.samples().size());
+        assertTrue(result.hits().contains(new RuleHits(null, 0, "GRAB FOOD", food.getId(), 1)));
+        assertTrue(result.hits().contains(new RuleHits(null, 1, "FOODPANDA", food.getId(), 1)));
+        assertTrue(result.hits().contains(new RuleHits(grab.getId(), null, "GRAB", transport.getId(), 1)));
+        assertEquals(1, ruleRepository.count(), "nothing is saved");
+    }
+
+    @Test
+    @DisplayName("a proposal with an id replaces that rule; unusable proposals are rejected")
+    void replaces_existing_rule_and_validates() {
+        SimulationResult result = service.simulate(new SimulationRequest(List.of(
+                new ProposedRule(grab.getId(), new RuleRequest("GRAB TAXI", null, null))), null));
+
+        assertEquals(0, result.newlyCategorized());
+        assertEquals(1, result.changed(), "GRAB FOOD 0091 loses its category");
+        assertEquals(List.of(new RuleHits(grab.getId(), 0, "GRAB TAXI", transport.getId(), 1)), result.hits());
+
+        assertThrows(InvalidRuleException.class, () -> service.simulate(new SimulationRequest(List.of(
+                new ProposedRule(null, new RuleRequest("KFC", null, null))), 1)));
+    }
+
+    @Test
+    @DisplayName("simulations beyond the cap are refused while others run, and admitted once they finish")
+    void caps_concurrent_simulations() throws Exception {
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<Boolean> hold = () -> release.await(10, TimeUnit.SECONDS);
+        executor.submit(hold); // occupy both workers so the first simulation waits
+        executor.submit(hold);
+        SimulationRequest req = new SimulationRequest(List.of(), 1);
+
+        Future<SimulationResult> first = Executors.newVirtualThreadPerTaskExecutor().submit(() -> service.simulate(req));
+        AtomicInteger running = (AtomicInteger) ReflectionTestUtils.getField(service, "running");
+        while (running.get() == 0)
+            Thread.onSpinWait();
+
+        assertThrows(SimulationBusyException.class, () -> service.simulate(req));
+        release.countDown();
+        assertEquals(4, first.get(10, TimeUnit.SECONDS).rowsScanned());
+        assertEquals(4, service.simulate(req).rowsScanned());
+    }
+}
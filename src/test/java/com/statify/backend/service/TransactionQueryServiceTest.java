@@ -0,0 +1,76 @@
+package com.statify.backend.service;
+
+import com.statify.backend.config.ReplicaLagGuard;
+import com.statify.backend.dto.TransactionPage;
+import com.statify.backend.dto.TransactionView;
+import com.statify.backend.repository.AnomalyRepository;
+import com.statify.backend.repository.TransactionRepository;
+import com.statify.backend.repository.UploadSummaryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionQueryServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UploadSummaryRepository summaryRepository;
+
+    @Mock
+    private AnomalyRepository anomalyRepository;
+
+    @Mock
+    private ReplicaLagGuard replicaLagGuard;
+
+    @InjectMocks
+    private TransactionQueryService service;
+
+    private final UUID uploadId = UUID.randomUUID();
+
+    private List<TransactionView> rows(int n) {
+        List<TransactionView> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            rows.add(new TransactionView(UUID.randomUUID(), uploadId, LocalDate.of(2026, 1, 1).plusDays(i),
+                    "SHOP " + i, new BigDecimal("-10.00"), "THB", null, null, false, OffsetDateTime.now()));
+        return rows;
+    }
+
+    @Test
+    @DisplayName("without cursor or limit, every row comes back and no next cursor is set")
+    void unpaged_request_returns_all_rows() {
+        when(transactionRepository.findPage(uploadId, null, null, Limit.unlimited())).thenReturn(rows(250));
+
+        TransactionPage page = service.getTransactions(uploadId, null, null, null, null);
+
+        assertEquals(250, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("a limit pages by keyset: one extra row is fetched to decide on a next cursor")
+    void limit_starts_paging() {
+        when(transactionRepository.findPage(uploadId, null, null, Limit.of(3))).thenReturn(rows(3));
+
+        TransactionPage page = service.getTransactions(uploadId, null, null, null, 2);
+
+        assertEquals(2, page.items().size());
+        assertNotNull(page.nextCursor());
+    }
+}